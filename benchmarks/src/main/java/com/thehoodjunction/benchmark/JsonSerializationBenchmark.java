@@ -0,0 +1,73 @@
+package com.thehoodjunction.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thehoodjunction.dto.AuthResponse;
+import com.thehoodjunction.dto.OtpResponse;
+import com.thehoodjunction.websocket.WebSocketMessage;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of writing the payloads sent most often: chat messages on every broadcast, and the auth and OTP responses.
+ * The mapper is set up by {@link Jackson2ObjectMapperBuilder} with Spring Boot's defaults, as in the application.
+ *
+ * Run with: mvn -f benchmarks/pom.xml compile exec:exec -Djmh.args=JsonSerializationBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private WebSocketMessage webSocketMessage;
+    private AuthResponse authResponse;
+    private OtpResponse otpResponse;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        webSocketMessage = WebSocketMessage.builder()
+                .id("6650f1c2a4b5c6d7e8f90123")
+                .room("hood.42")
+                .type("CHAT")
+                .content("Has anyone seen a grey cat near the park? She answers to Miso.")
+                .sender("benchmark-user")
+                .timestamp(LocalDateTime.now())
+                .build();
+        authResponse = AuthResponse.builder()
+                .token("eyJhbGciOiJIUzI1NiJ9.eyJzdWIiOiJiZW5jaG1hcmstdXNlciIsImlhdCI6MTcwMDAwMDAwMCwiZXhwIjoxNzAw"
+                        + "MDg2NDAwfQ.3q2-7wJ9bG3fX1Pz0wQ3o4rYf6l5d8c9b0a1s2d3f4g")
+                .username("benchmark-user")
+                .email("benchmark@example.com")
+                .fullName("Benchmark User")
+                .build();
+        otpResponse = OtpResponse.builder()
+                .message("OTP sent successfully")
+                .success(true)
+                .phoneNumber("+919876543210")
+                .expiresInSeconds(599)
+                .build();
+    }
+
+    @Benchmark
+    public byte[] webSocketMessage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(webSocketMessage);
+    }
+
+    @Benchmark
+    public byte[] authResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(authResponse);
+    }
+
+    @Benchmark
+    public byte[] otpResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(otpResponse);
+    }
+}
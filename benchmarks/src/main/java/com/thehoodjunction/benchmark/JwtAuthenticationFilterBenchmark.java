@@ -0,0 +1,79 @@
+package com.thehoodjunction.benchmark;
+
+import com.thehoodjunction.model.User;
+import com.thehoodjunction.security.JwtAuthenticationFilter;
+import com.thehoodjunction.security.JwtTokenProvider;
+import com.thehoodjunction.security.TokenRevocationService;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One authenticated request through {@link JwtAuthenticationFilter}, from reading the header to the populated
+ * security context, with a mock filter chain behind it. In {@code stateful} mode the user comes from a
+ * {@link UserDetailsService} that answers from memory, so this measures the filter and not the database;
+ * in {@code stateless} mode it is built from the token's claims after the revocation check.
+ *
+ * Run with: mvn -f benchmarks/pom.xml compile exec:exec -Djmh.args=JwtAuthenticationFilterBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final String SECRET = "5367566B59703373367639792F423F4528482B4D6251655468576D5A71347437";
+
+    @Param({"stateful", "stateless"})
+    public String mode;
+
+    private JwtAuthenticationFilter filter;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        JwtTokenProvider jwtTokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(jwtTokenProvider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtTokenProvider, "jwtExpirationInMs", 86400000L);
+        ReflectionTestUtils.setField(jwtTokenProvider, "stateless", mode.equals("stateless"));
+        ReflectionTestUtils.invokeMethod(jwtTokenProvider, "init");
+
+        User user = User.builder()
+                .id(1L)
+                .username("benchmark-user")
+                .password("ignored")
+                .roles(Set.of("USER"))
+                .build();
+        UserDetailsService userDetailsService = username -> user;
+
+        filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "jwtTokenProvider", jwtTokenProvider);
+        ReflectionTestUtils.setField(filter, "tokenRevocationService", new TokenRevocationService());
+        ReflectionTestUtils.setField(filter, "userDetailsService", userDetailsService);
+        authorization = "Bearer " + jwtTokenProvider.generateToken(user);
+    }
+
+    @Benchmark
+    public Object authenticatedRequest() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/me");
+        request.addHeader("Authorization", authorization);
+        MockFilterChain chain = new MockFilterChain();
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
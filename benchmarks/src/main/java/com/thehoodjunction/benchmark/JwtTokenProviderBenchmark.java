@@ -0,0 +1,86 @@
+package com.thehoodjunction.benchmark;
+
+import com.thehoodjunction.model.User;
+import com.thehoodjunction.security.JwtTokenProvider;
+import com.thehoodjunction.security.TokenClaims;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-request cost of JWT verification in {@link com.thehoodjunction.security.JwtAuthenticationFilter}.
+ * The "legacy" benchmark reproduces the old flow: a new key and parser for each of the
+ * three parses a request used to do. The "cached" benchmark parses once with the shared parser.
+ * {@code generateToken} and {@code isTokenValid} are the public calls made on login and by token consumers.
+ *
+ * Run with: mvn -f benchmarks/pom.xml compile exec:exec -Djmh.args=JwtTokenProviderBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtTokenProviderBenchmark {
+
+    private static final String SECRET = "5367566B59703373367639792F423F4528482B4D6251655468576D5A71347437";
+
+    private JwtTokenProvider jwtTokenProvider;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtTokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(jwtTokenProvider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtTokenProvider, "jwtExpirationInMs", 86400000L);
+        ReflectionTestUtils.invokeMethod(jwtTokenProvider, "init");
+
+        user = User.builder()
+                .username("benchmark-user")
+                .password("ignored")
+                .roles(Set.of("USER"))
+                .build();
+        token = jwtTokenProvider.generateToken(user);
+    }
+
+    @Benchmark
+    public boolean legacyPerRequestVerification() {
+        String username = legacyParse(token).getSubject();
+        boolean sameUser = legacyParse(token).getSubject().equals(user.getUsername());
+        boolean expired = legacyParse(token).getExpiration().before(new Date());
+        return username != null && sameUser && !expired;
+    }
+
+    @Benchmark
+    public boolean cachedPerRequestVerification() {
+        TokenClaims claims = jwtTokenProvider.parseToken(token);
+        return claims.getUsername() != null && jwtTokenProvider.isTokenValid(claims, user);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtTokenProvider.generateToken(user);
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return jwtTokenProvider.isTokenValid(token, user);
+    }
+
+    private static Claims legacyParse(String token) {
+        Key key = Keys.hmacShaKeyFor(SECRET.getBytes());
+        return Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
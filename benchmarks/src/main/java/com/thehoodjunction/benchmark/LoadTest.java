@@ -0,0 +1,418 @@
+package com.thehoodjunction.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thehoodjunction.TheHoodJunctionApplication;
+import com.thehoodjunction.websocket.WebSocketMessage;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import redis.embedded.RedisServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end load test of the whole application with an in-process stand-in for every external service:
+ * H2 for PostgreSQL, an embedded Redis for the OTP store, an in-memory MongoDB (mongo-java-server) for chat
+ * history, an embedded Kafka broker for domain events and a local MSG91 that answers after a fixed delay and keeps
+ * each code it is asked to send so the OTP can be verified. RabbitMQ has no in-process equivalent, so OTPs are sent
+ * with {@code msg91.dispatch.mode: direct} and WebSocket sessions use the simple broker.
+ * Clients run a weighted mix of registrations, logins, authenticated history reads and OTP send/verify pairs, while
+ * STOMP subscribers to /topic/public time how long each broadcast takes to reach them. Prints requests, errors,
+ * throughput and p50/p99/max latency per endpoint and writes the same report as JSON.
+ *
+ * Run with: mvn -f benchmarks/pom.xml compile exec:java -Dexec.mainClass=com.thehoodjunction.benchmark.LoadTest
+ * Tune with -Dclients=200 -Dduration=30 (seconds) -Dmix=register:5,login:15,read:40,otp:40 -Dsubscribers=200
+ *   -DbroadcastRate=20 (per second) -DgatewayLatency=50 (ms) -Dstrength=10 -Dreport=target/load-report.json.
+ */
+public class LoadTest {
+
+    private static final int USERS = 50;
+    private static final String PASSWORD = "load-test-secret";
+    private static final String BROADCAST = "STOMP /topic/public";
+
+    private final int clients = Integer.getInteger("clients", 200);
+    private final Duration duration = Duration.ofSeconds(Integer.getInteger("duration", 30));
+    private final Map<String, Integer> mix = parseMix(System.getProperty("mix", "register:5,login:15,read:40,otp:40"));
+    private final int subscribers = Integer.getInteger("subscribers", 200);
+    private final int broadcastRate = Integer.getInteger("broadcastRate", 20);
+    private final long gatewayLatencyMillis = Long.getLong("gatewayLatency", 50);
+    private final int strength = Integer.getInteger("strength", 10);
+    private final File report = new File(System.getProperty("report", "target/load-report.json"));
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    // Codes the MSG91 stand-in was asked to send, by phone number, taken by the client that verifies them
+    private final Map<String, String> sentOtps = new ConcurrentHashMap<>();
+
+    public static void main(String[] args) throws Exception {
+        new LoadTest().run();
+        // Kafka and Tomcat leave non-daemon threads behind
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        RedisServer redis = new RedisServer(freePort());
+        MongoServer mongo = new MongoServer(new MemoryBackend());
+        EmbeddedKafkaKraftBroker kafka = new EmbeddedKafkaKraftBroker(1, 1);
+        try (MockWebServer gateway = new MockWebServer()) {
+            gateway.setDispatcher(new Dispatcher() {
+                @Override
+                public MockResponse dispatch(RecordedRequest request) {
+                    String mobile = request.getRequestUrl().queryParameter("mobile");
+                    String otp = request.getRequestUrl().queryParameter("otp");
+                    if (mobile != null && otp != null) {
+                        sentOtps.put(mobile, otp);
+                    }
+                    return new MockResponse()
+                            .setHeader("Content-Type", "application/json")
+                            .setBody("{\"type\":\"success\",\"request_id\":\"load\"}")
+                            .setHeadersDelay(gatewayLatencyMillis, TimeUnit.MILLISECONDS);
+                }
+            });
+            gateway.start();
+            redis.start();
+            InetSocketAddress mongoAddress = mongo.bind();
+            kafka.afterPropertiesSet();
+
+            System.out.printf("%d clients for %ds, mix %s, %d subscribers at %d broadcasts/s, "
+                            + "gateway latency %d ms, BCrypt strength %d%n", clients, duration.toSeconds(), mix,
+                    subscribers, broadcastRate, gatewayLatencyMillis, strength);
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(TheHoodJunctionApplication.class)
+                    // Passed as arguments so they override application.yml
+                    .run(
+                            "--server.port=0",
+                            "--spring.datasource.url=jdbc:h2:mem:load;DB_CLOSE_DELAY=-1",
+                            "--spring.datasource.driver-class-name=org.h2.Driver",
+                            "--spring.datasource.username=sa",
+                            "--spring.datasource.password=",
+                            "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                            "--spring.jpa.show-sql=false",
+                            "--spring.data.redis.host=localhost",
+                            "--spring.data.redis.port=" + redis.ports().get(0),
+                            "--spring.data.mongodb.uri=mongodb://localhost:" + mongoAddress.getPort()
+                                    + "/thehoodjunction",
+                            "--spring.kafka.bootstrap-servers=" + kafka.getBrokersAsString(),
+                            "--app.otp.store=redis",
+                            "--app.rate-limit.enabled=false",
+                            "--app.password-hashing.strength=" + strength,
+                            "--app.websocket.broker=simple",
+                            "--msg91.dispatch.mode=direct",
+                            "--msg91.base-url=" + gateway.url("/").toString().replaceAll("/$", ""),
+                            "--logging.level.root=WARN",
+                            "--logging.level.com.thehoodjunction=WARN");
+            try {
+                int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+                HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+                String baseUrl = "http://localhost:" + port + "/api";
+                List<String> tokens = seed(client, baseUrl);
+
+                Map<String, Results> results = new LinkedHashMap<>();
+                Results deliveries = new Results();
+                WebSocketStompClient stompClient = stompClient();
+                try {
+                    List<StompSession> sessions = subscribe(stompClient, port, tokens, deliveries);
+                    ScheduledExecutorService publisher = broadcast(sessions.get(0));
+                    try {
+                        results.putAll(drive(client, baseUrl, tokens));
+                    } finally {
+                        publisher.shutdownNow();
+                    }
+                    // Let the last broadcasts arrive before counting them
+                    Thread.sleep(1000);
+                    sessions.forEach(StompSession::disconnect);
+                } finally {
+                    stompClient.stop();
+                }
+                synchronized (deliveries) {
+                    results.put(BROADCAST, deliveries);
+                }
+                report(results);
+            } finally {
+                context.close();
+            }
+        } finally {
+            kafka.destroy();
+            mongo.shutdownNow();
+            redis.stop();
+        }
+    }
+
+    /**
+     * Registers the users the clients log in and read as
+     *
+     * @return a token for each user
+     */
+    private List<String> seed(HttpClient client, String baseUrl) throws IOException, InterruptedException {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            post(client, baseUrl + "/auth/register", register("load" + i));
+            HttpResponse<String> login = send(client, HttpRequest.newBuilder(URI.create(baseUrl + "/auth/login"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(login(i))));
+            if (login.statusCode() != 200) {
+                throw new IllegalStateException("Could not log in load" + i + ": " + login.statusCode());
+            }
+            tokens.add(objectMapper.readTree(login.body()).path("token").asText());
+        }
+        return tokens;
+    }
+
+    private Map<String, Results> drive(HttpClient client, String baseUrl, List<String> tokens) throws Exception {
+        int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService clientThreads = Executors.newFixedThreadPool(clients);
+        List<Future<Map<String, Results>>> perClient = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            int clientId = i;
+            perClient.add(clientThreads.submit(() -> {
+                Map<String, Results> results = new LinkedHashMap<>();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int registrations = 0;
+                while (System.nanoTime() < deadline) {
+                    String username = "load" + clientId + "x" + registrations++;
+                    switch (pick(random.nextInt(totalWeight))) {
+                        case "register" -> timed(results, "POST /auth/register", () -> post(client,
+                                baseUrl + "/auth/register", register(username)));
+                        case "login" -> timed(results, "POST /auth/login", () -> post(client,
+                                baseUrl + "/auth/login", login(random.nextInt(USERS))));
+                        case "read" -> timed(results, "GET /chat/rooms/{room}/messages", () -> send(client,
+                                HttpRequest.newBuilder(URI.create(baseUrl + "/chat/rooms/public/messages?limit=20"))
+                                        .header("Authorization", "Bearer " + tokens.get(random.nextInt(USERS)))
+                                        .GET()).statusCode());
+                        default -> otp(client, baseUrl, results, random);
+                    }
+                }
+                return results;
+            }));
+        }
+
+        Map<String, Results> merged = new LinkedHashMap<>();
+        for (Future<Map<String, Results>> results : perClient) {
+            results.get().forEach((endpoint, result) -> merged.merge(endpoint, result, Results::merge));
+        }
+        clientThreads.shutdown();
+        return merged;
+    }
+
+    /**
+     * Sends an OTP to a new number and verifies it with the code the MSG91 stand-in received. Waiting for the code
+     * to reach the stand-in is not timed.
+     */
+    private void otp(HttpClient client, String baseUrl, Map<String, Results> results, ThreadLocalRandom random)
+            throws InterruptedException {
+        String phoneNumber = String.format("+91%010d", 9_000_000_000L + random.nextLong(1_000_000_000L));
+        int status = timed(results, "POST /otp/send", () -> post(client, baseUrl + "/otp/send",
+                String.format("{\"phoneNumber\":\"%s\"}", phoneNumber)));
+        if (status != 200) {
+            return;
+        }
+        String code = null;
+        long giveUp = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((code = sentOtps.remove(phoneNumber)) == null && System.nanoTime() < giveUp) {
+            Thread.sleep(1);
+        }
+        String otp = code;
+        timed(results, "POST /otp/verify", () -> otp == null ? -1 : post(client, baseUrl + "/otp/verify",
+                String.format("{\"phoneNumber\":\"%s\",\"otp\":\"%s\"}", phoneNumber, otp)));
+    }
+
+    private WebSocketStompClient stompClient() {
+        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+        converter.setObjectMapper(objectMapper);
+        WebSocketStompClient stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(converter);
+        return stompClient;
+    }
+
+    /**
+     * Connects the subscribers, each recording how long every broadcast took to reach it
+     *
+     * @return the sessions, at least one even with no subscribers so there is a session to publish from
+     */
+    private List<StompSession> subscribe(WebSocketStompClient stompClient, int port, List<String> tokens,
+                                         Results deliveries) throws Exception {
+        String url = "ws://localhost:" + port + "/api/ws/websocket";
+        List<StompSession> sessions = new ArrayList<>();
+        for (int i = 0; i < Math.max(subscribers, 1); i++) {
+            StompHeaders connectHeaders = new StompHeaders();
+            connectHeaders.add("Authorization", "Bearer " + tokens.get(i % tokens.size()));
+            StompSession session = stompClient.connectAsync(url, new WebSocketHttpHeaders(), connectHeaders,
+                    new StompSessionHandlerAdapter() {
+                    }).get(10, TimeUnit.SECONDS);
+            if (i < subscribers) {
+                session.subscribe("/topic/public", new StompFrameHandler() {
+                    @Override
+                    public Type getPayloadType(StompHeaders headers) {
+                        return WebSocketMessage.class;
+                    }
+
+                    @Override
+                    public void handleFrame(StompHeaders headers, Object payload) {
+                        long sentAt = Long.parseLong(((WebSocketMessage) payload).getContent());
+                        synchronized (deliveries) {
+                            deliveries.record(System.nanoTime() - sentAt, 200);
+                        }
+                    }
+                });
+            }
+            sessions.add(session);
+        }
+        // Subscriptions are confirmed asynchronously
+        Thread.sleep(500);
+        return sessions;
+    }
+
+    /**
+     * Publishes to the public room at broadcastRate, with the send time as the content
+     */
+    private ScheduledExecutorService broadcast(StompSession session) {
+        ScheduledExecutorService publisher = Executors.newSingleThreadScheduledExecutor();
+        if (broadcastRate > 0) {
+            publisher.scheduleAtFixedRate(() -> session.send("/app/chat.sendMessage", WebSocketMessage.builder()
+                    .type("CHAT")
+                    .content(String.valueOf(System.nanoTime()))
+                    .build()), 0, TimeUnit.SECONDS.toNanos(1) / broadcastRate, TimeUnit.NANOSECONDS);
+        }
+        return publisher;
+    }
+
+    private String register(String username) {
+        return String.format(
+                "{\"username\":\"%s\",\"email\":\"%s@example.com\",\"password\":\"%s\",\"fullName\":\"Load %s\"}",
+                username, username, PASSWORD, username);
+    }
+
+    private static String login(int user) {
+        return String.format("{\"username\":\"load%d\",\"password\":\"%s\"}", user, PASSWORD);
+    }
+
+    private String pick(int roll) {
+        for (Map.Entry<String, Integer> operation : mix.entrySet()) {
+            roll -= operation.getValue();
+            if (roll < 0) {
+                return operation.getKey();
+            }
+        }
+        throw new IllegalStateException("Roll outside the mix");
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (!List.of("register", "login", "read", "otp").contains(parts[0])) {
+                throw new IllegalArgumentException("Unknown operation in mix: " + parts[0]);
+            }
+            weights.put(parts[0], Integer.parseInt(parts[1]));
+        }
+        return weights;
+    }
+
+    private interface Request {
+        int call() throws IOException, InterruptedException;
+    }
+
+    private static int timed(Map<String, Results> results, String endpoint, Request request)
+            throws InterruptedException {
+        long start = System.nanoTime();
+        int status;
+        try {
+            status = request.call();
+        } catch (IOException e) {
+            status = -1;
+        }
+        results.computeIfAbsent(endpoint, ignored -> new Results()).record(System.nanoTime() - start, status);
+        return status;
+    }
+
+    private static int post(HttpClient client, String url, String body) throws IOException, InterruptedException {
+        return send(client, HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))).statusCode();
+    }
+
+    private static HttpResponse<String> send(HttpClient client, HttpRequest.Builder request)
+            throws IOException, InterruptedException {
+        return client.send(request.timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private void report(Map<String, Results> results) throws IOException {
+        List<Map<String, Object>> endpoints = new ArrayList<>();
+        System.out.printf("%n%-32s %9s %8s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "max ms");
+        results.forEach((endpoint, result) -> {
+            long[] latencies = result.sortedLatencies();
+            double throughput = latencies.length / (double) duration.toSeconds();
+            double p50 = Results.millis(Results.percentile(latencies, 0.50));
+            double p99 = Results.millis(Results.percentile(latencies, 0.99));
+            double max = Results.millis(latencies.length > 0 ? latencies[latencies.length - 1] : 0);
+            System.out.printf("%-32s %9d %8d %9.1f %9.1f %9.1f %9.1f%n",
+                    endpoint, latencies.length, result.errors(), throughput, p50, p99, max);
+
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("endpoint", endpoint);
+            row.put("requests", latencies.length);
+            row.put("errors", result.errors());
+            row.put("throughputPerSecond", throughput);
+            row.put("p50Millis", p50);
+            row.put("p99Millis", p99);
+            row.put("maxMillis", max);
+            endpoints.add(row);
+        });
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("clients", clients);
+        settings.put("durationSeconds", duration.toSeconds());
+        settings.put("mix", mix);
+        settings.put("subscribers", subscribers);
+        settings.put("broadcastRate", broadcastRate);
+        settings.put("gatewayLatencyMillis", gatewayLatencyMillis);
+        settings.put("strength", strength);
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("settings", settings);
+        document.put("endpoints", endpoints);
+        report.getAbsoluteFile().getParentFile().mkdirs();
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(report, document);
+        System.out.printf("%nReport written to %s%n", report.getAbsolutePath());
+    }
+}
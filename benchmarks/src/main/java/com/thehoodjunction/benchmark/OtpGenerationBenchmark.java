@@ -0,0 +1,61 @@
+package com.thehoodjunction.benchmark;
+
+import com.thehoodjunction.config.Msg91Config;
+import com.thehoodjunction.model.Otp;
+import com.thehoodjunction.service.Msg91Service;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of issuing an OTP before it is stored.
+ * {@code randomNumeric} is the {@link RandomStringUtils} call {@link Msg91Service} generates the value with, which
+ * draws from one shared {@link java.util.Random}; {@code newOtp} adds building the entity. {@code secureRandom} is
+ * the same number of digits from a {@link SecureRandom}, for comparison. Run with {@code -t 8} in jmh.args to see
+ * how the shared generators hold up under concurrent requests.
+ *
+ * Run with: mvn -f benchmarks/pom.xml compile exec:exec -Djmh.args=OtpGenerationBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OtpGenerationBenchmark {
+
+    private static final int OTP_LENGTH = 6;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+    private Msg91Service msg91Service;
+
+    @Setup
+    public void setUp() {
+        Msg91Config msg91Config = new Msg91Config();
+        msg91Config.setOtpLength(OTP_LENGTH);
+        msg91Config.setOtpExpiryMinutes(10);
+        // newOtp only reads the configuration; storing and dispatching are not measured
+        msg91Service = new Msg91Service(msg91Config, null, null, null, null);
+    }
+
+    @Benchmark
+    public String randomNumeric() {
+        return RandomStringUtils.randomNumeric(OTP_LENGTH);
+    }
+
+    @Benchmark
+    public Otp newOtp() {
+        return msg91Service.newOtp("+919876543210");
+    }
+
+    @Benchmark
+    public String secureRandom() {
+        char[] digits = new char[OTP_LENGTH];
+        for (int i = 0; i < OTP_LENGTH; i++) {
+            digits[i] = (char) ('0' + secureRandom.nextInt(10));
+        }
+        return new String(digits);
+    }
+}
@@ -0,0 +1,121 @@
+package com.thehoodjunction.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OTP verification latency against an embedded H2 {@code otps} table seeded with millions of rows.
+ * "legacy" is the old lookup by phone number, value and used flag on the unindexed table.
+ * "indexed" is the new lookup: the latest unused row per phone number through
+ * {@code idx_otps_phone_used_created}, with the value compared in memory.
+ *
+ * Run with: mvn -f benchmarks/pom.xml compile exec:exec -Djmh.args=OtpLookupBenchmark
+ * Add -p rows=5000000 to jmh.args to seed more rows.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class OtpLookupBenchmark {
+
+    private static final String CREATE_TABLE = "CREATE TABLE %s (" +
+            "id BIGINT PRIMARY KEY, phone_number VARCHAR(20) NOT NULL, otp_value VARCHAR(10) NOT NULL, " +
+            "created_at TIMESTAMP NOT NULL, expires_at TIMESTAMP NOT NULL, verified_at TIMESTAMP, used BOOLEAN NOT NULL)";
+
+    // Every phone number gets rows / phones OTPs; only the newest one is unused
+    private static final String SEED = "INSERT INTO otps_unindexed " +
+            "SELECT x, '+91' || (9000000000 + MOD(x, ?)), LPAD(CAST(MOD(x * 7919, 1000000) AS VARCHAR), 6, '0'), " +
+            "DATEADD('SECOND', x, TIMESTAMP '2024-01-01 00:00:00'), " +
+            "DATEADD('SECOND', x + 600, TIMESTAMP '2024-01-01 00:00:00'), NULL, x <= ? - ? " +
+            "FROM SYSTEM_RANGE(1, ?)";
+
+    @Param({"1000000"})
+    public int rows;
+
+    @Param({"100000"})
+    public int phones;
+
+    private Connection connection;
+    private PreparedStatement legacyLookup;
+    private PreparedStatement indexedLookup;
+
+    @Setup(Level.Trial)
+    public void seed() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:otp_benchmark;DB_CLOSE_DELAY=-1");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(String.format(CREATE_TABLE, "otps_unindexed"));
+            statement.execute(String.format(CREATE_TABLE, "otps_indexed"));
+        }
+        try (PreparedStatement seed = connection.prepareStatement(SEED)) {
+            seed.setInt(1, phones);
+            seed.setInt(2, rows);
+            seed.setInt(3, phones);
+            seed.setInt(4, rows);
+            seed.executeUpdate();
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO otps_indexed SELECT * FROM otps_unindexed");
+            statement.execute("CREATE INDEX idx_otps_phone_used_created ON otps_indexed (phone_number, used, created_at)");
+        }
+
+        legacyLookup = connection.prepareStatement(
+                "SELECT id, otp_value, expires_at FROM otps_unindexed WHERE phone_number = ? AND otp_value = ? AND used = FALSE");
+        indexedLookup = connection.prepareStatement(
+                "SELECT id, otp_value, expires_at FROM otps_indexed WHERE phone_number = ? AND used = FALSE " +
+                "ORDER BY created_at DESC LIMIT 1");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public boolean legacyVerify() throws SQLException {
+        long id = latestRowFor(randomPhone());
+        legacyLookup.setString(1, phoneNumber(id));
+        legacyLookup.setString(2, otpValue(id));
+        try (ResultSet resultSet = legacyLookup.executeQuery()) {
+            return resultSet.next();
+        }
+    }
+
+    @Benchmark
+    public boolean indexedVerify() throws SQLException {
+        long id = latestRowFor(randomPhone());
+        indexedLookup.setString(1, phoneNumber(id));
+        try (ResultSet resultSet = indexedLookup.executeQuery()) {
+            return resultSet.next() && resultSet.getString(2).equals(otpValue(id));
+        }
+    }
+
+    private int randomPhone() {
+        return ThreadLocalRandom.current().nextInt(phones);
+    }
+
+    // The newest row for a phone is the highest id congruent to it modulo the number of phones
+    private long latestRowFor(int phone) {
+        return rows - ((rows - phone) % phones);
+    }
+
+    private String phoneNumber(long id) {
+        return "+91" + (9000000000L + id % phones);
+    }
+
+    private static String otpValue(long id) {
+        return String.format("%06d", (id * 7919) % 1000000);
+    }
+}
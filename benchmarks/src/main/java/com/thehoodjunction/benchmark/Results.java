@@ -0,0 +1,51 @@
+package com.thehoodjunction.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * Latencies and error count for one endpoint of a load run, collected by a single client thread and merged at the
+ * end. Shared by {@link ThreadModeComparison} and {@link LoadTest}.
+ */
+class Results {
+
+    private long[] latencies = new long[1024];
+    private int count;
+    private long errors;
+
+    void record(long latencyNanos, int status) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = latencyNanos;
+        if (status < 200 || status >= 300) {
+            errors++;
+        }
+    }
+
+    Results merge(Results other) {
+        Results merged = new Results();
+        merged.latencies = Arrays.copyOf(latencies, count + other.count);
+        System.arraycopy(other.latencies, 0, merged.latencies, count, other.count);
+        merged.count = count + other.count;
+        merged.errors = errors + other.errors;
+        return merged;
+    }
+
+    long[] sortedLatencies() {
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    long errors() {
+        return errors;
+    }
+
+    static long percentile(long[] sorted, double quantile) {
+        return sorted.length == 0 ? 0 : sorted[(int) Math.ceil(quantile * sorted.length) - 1];
+    }
+
+    static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,84 @@
+package com.thehoodjunction.benchmark;
+
+import com.thehoodjunction.websocket.RoomSubscriptionRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.DefaultSubscriptionRegistry;
+import org.springframework.messaging.simp.broker.SubscriptionRegistry;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MultiValueMap;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one chat broadcast with 100k sessions spread over 10k neighborhood rooms, each session also subscribed
+ * to {@code /topic/public}. Each operation resolves the subscribers of one message and counts the frames the broker
+ * would send, for Spring's default registry and for {@link RoomSubscriptionRegistry}.
+ * {@code roomBroadcast} cycles through every room; {@code publicBroadcast} is the old single-topic chat.
+ *
+ * Run with: mvn -f benchmarks/pom.xml compile exec:exec -Djmh.args=RoomBroadcastBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Benchmark)
+public class RoomBroadcastBenchmark {
+
+    private static final int SESSIONS = 100_000;
+    private static final int ROOMS = 10_000;
+
+    @Param({"default", "rooms"})
+    public String registryType;
+
+    private SubscriptionRegistry registry;
+    private Message<?>[] roomMessages;
+    private Message<?> publicMessage;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        registry = registryType.equals("rooms") ? new RoomSubscriptionRegistry() : new DefaultSubscriptionRegistry();
+        for (int session = 0; session < SESSIONS; session++) {
+            registry.registerSubscription(frame(SimpMessageType.SUBSCRIBE, "s" + session, "sub-0",
+                    "/topic/hood." + session % ROOMS));
+            registry.registerSubscription(frame(SimpMessageType.SUBSCRIBE, "s" + session, "sub-1", "/topic/public"));
+        }
+        roomMessages = new Message<?>[ROOMS];
+        for (int room = 0; room < ROOMS; room++) {
+            roomMessages[room] = frame(SimpMessageType.MESSAGE, null, null, "/topic/hood." + room);
+        }
+        publicMessage = frame(SimpMessageType.MESSAGE, null, null, "/topic/public");
+    }
+
+    @Benchmark
+    public int roomBroadcast() {
+        next = (next + 1) % ROOMS;
+        return frames(registry.findSubscriptions(roomMessages[next]));
+    }
+
+    @Benchmark
+    public int publicBroadcast() {
+        return frames(registry.findSubscriptions(publicMessage));
+    }
+
+    private static int frames(MultiValueMap<String, String> subscriptions) {
+        int frames = 0;
+        for (List<String> subscriptionIds : subscriptions.values()) {
+            frames += subscriptionIds.size();
+        }
+        return frames;
+    }
+
+    private static Message<?> frame(SimpMessageType type, String sessionId, String subscriptionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
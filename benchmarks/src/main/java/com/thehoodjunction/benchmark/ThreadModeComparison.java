@@ -0,0 +1,169 @@
+package com.thehoodjunction.benchmark;
+
+import com.thehoodjunction.TheHoodJunctionApplication;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mixed OTP and login load against the application in platform-thread and virtual-thread mode.
+ * Each mode boots the full application on an in-memory H2 database with the jpa OTP store and a local
+ * stand-in for MSG91 that answers after a fixed delay, then runs a fixed number of concurrent clients for a while
+ * and prints throughput and latency percentiles per endpoint. Virtual-thread mode is skipped below Java 21.
+ *
+ * Run with: mvn -f benchmarks/pom.xml compile exec:java
+ *   -Dexec.mainClass=com.thehoodjunction.benchmark.ThreadModeComparison
+ * Tune with -Dclients=400 -Dduration=30 (seconds) -DotpShare=0.6 -DgatewayLatency=200 (ms) -Dstrength=10.
+ */
+public class ThreadModeComparison {
+
+    private static final int USERS = 50;
+    private static final String PASSWORD = "load-test-secret";
+
+    private final int clients = Integer.getInteger("clients", 400);
+    private final Duration duration = Duration.ofSeconds(Integer.getInteger("duration", 30));
+    private final double otpShare = Double.parseDouble(System.getProperty("otpShare", "0.6"));
+    private final long gatewayLatencyMillis = Long.getLong("gatewayLatency", 200);
+    private final int strength = Integer.getInteger("strength", 10);
+
+    public static void main(String[] args) throws Exception {
+        new ThreadModeComparison().run();
+    }
+
+    private void run() throws Exception {
+        try (MockWebServer gateway = new MockWebServer()) {
+            gateway.setDispatcher(new Dispatcher() {
+                @Override
+                public MockResponse dispatch(RecordedRequest request) {
+                    return new MockResponse()
+                            .setHeader("Content-Type", "application/json")
+                            .setBody("{\"type\":\"success\",\"request_id\":\"load\"}")
+                            .setHeadersDelay(gatewayLatencyMillis, TimeUnit.MILLISECONDS);
+                }
+            });
+            gateway.start();
+
+            System.out.printf("%d clients for %ds, %.0f%% OTP sends, gateway latency %d ms, BCrypt strength %d%n",
+                    clients, duration.toSeconds(), otpShare * 100, gatewayLatencyMillis, strength);
+            run(false, gateway);
+            if (Runtime.version().feature() >= 21) {
+                run(true, gateway);
+            } else {
+                System.out.printf("Skipping virtual threads: Java %d has none%n", Runtime.version().feature());
+            }
+        }
+    }
+
+    private void run(boolean virtualThreads, MockWebServer gateway) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(TheHoodJunctionApplication.class)
+                // Passed as arguments so they override application.yml
+                .run(
+                        "--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--spring.datasource.url=jdbc:h2:mem:load-" + mode + ";DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.show-sql=false",
+                        "--app.otp.store=jpa",
+                        "--app.rate-limit.enabled=false",
+                        // No MongoDB or Kafka to talk to
+                        "--spring.data.mongodb.auto-index-creation=false",
+                        "--app.events.enabled=false",
+                        "--app.password-hashing.strength=" + strength,
+                        "--msg91.base-url=" + gateway.url("/").toString().replaceAll("/$", ""),
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.thehoodjunction=WARN");
+        try {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api";
+            HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+            for (int i = 0; i < USERS; i++) {
+                post(client, baseUrl + "/auth/register", String.format(
+                        "{\"username\":\"load%d\",\"email\":\"load%d@example.com\",\"password\":\"%s\",\"fullName\":\"Load %d\"}",
+                        i, i, PASSWORD, i));
+            }
+            report(mode, drive(client, baseUrl));
+        } finally {
+            context.close();
+        }
+    }
+
+    private Map<String, Results> drive(HttpClient client, String baseUrl) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService clientThreads = Executors.newFixedThreadPool(clients);
+        List<Future<Map<String, Results>>> perClient = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            perClient.add(clientThreads.submit(() -> {
+                Map<String, Results> results = new LinkedHashMap<>();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    boolean otp = random.nextDouble() < otpShare;
+                    String endpoint = otp ? "/otp/send" : "/auth/login";
+                    String body = otp
+                            ? String.format("{\"phoneNumber\":\"+91%010d\"}", 9_000_000_000L + random.nextInt(1_000_000))
+                            : String.format("{\"username\":\"load%d\",\"password\":\"%s\"}", random.nextInt(USERS), PASSWORD);
+
+                    long start = System.nanoTime();
+                    int status;
+                    try {
+                        status = post(client, baseUrl + endpoint, body);
+                    } catch (IOException e) {
+                        status = -1;
+                    }
+                    results.computeIfAbsent(endpoint, ignored -> new Results()).record(System.nanoTime() - start, status);
+                }
+                return results;
+            }));
+        }
+
+        Map<String, Results> merged = new LinkedHashMap<>();
+        for (Future<Map<String, Results>> results : perClient) {
+            results.get().forEach((endpoint, result) -> merged.merge(endpoint, result, Results::merge));
+        }
+        clientThreads.shutdown();
+        return merged;
+    }
+
+    private static int post(HttpClient client, String url, String body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private void report(String mode, Map<String, Results> results) {
+        System.out.printf("%n%-9s %-12s %9s %8s %9s %9s %9s %9s%n",
+                "mode", "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "max ms");
+        results.forEach((endpoint, result) -> {
+            long[] latencies = result.sortedLatencies();
+            System.out.printf("%-9s %-12s %9d %8d %9.1f %9.1f %9.1f %9.1f%n", mode, endpoint, latencies.length,
+                    result.errors(), latencies.length / (double) duration.toSeconds(),
+                    Results.millis(Results.percentile(latencies, 0.50)),
+                    Results.millis(Results.percentile(latencies, 0.99)),
+                    Results.millis(latencies.length > 0 ? latencies[latencies.length - 1] : 0));
+        });
+    }
+}
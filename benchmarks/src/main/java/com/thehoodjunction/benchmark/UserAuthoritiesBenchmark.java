@@ -0,0 +1,49 @@
+package com.thehoodjunction.benchmark;
+
+import com.thehoodjunction.model.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link User#getAuthorities()}, which maps the role set to a new list of authorities on every call.
+ * It is called at least once per authenticated request, and again by every authorization check.
+ *
+ * Run with: mvn -f benchmarks/pom.xml compile exec:exec -Djmh.args=UserAuthoritiesBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserAuthoritiesBenchmark {
+
+    @Param({"1", "3", "10"})
+    public int roleCount;
+
+    private User user;
+
+    @Setup
+    public void setUp() {
+        Set<String> roles = new LinkedHashSet<>();
+        roles.add("USER");
+        for (int i = 1; i < roleCount; i++) {
+            roles.add("ROLE" + i);
+        }
+        user = User.builder()
+                .username("benchmark-user")
+                .password("ignored")
+                .roles(roles)
+                .build();
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return user.getAuthorities();
+    }
+}
@@ -0,0 +1,32 @@
+package com.thehoodjunction.config;
+
+import com.thehoodjunction.repository.mongodb.ChatMessageRepository;
+import com.thehoodjunction.service.ChatHistoryWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.chat-history")
+@Data
+public class ChatHistoryConfig {
+    private boolean enabled = true;
+    // Messages waiting to be written; beyond this they are left out of the history
+    private int queueCapacity = 10_000;
+    private int batchSize = 500;
+    // Longest a message waits for its batch to fill before it is written
+    private Duration flushInterval = Duration.ofMillis(100);
+    private int defaultPageSize = 50;
+    private int maxPageSize = 200;
+
+    @Bean
+    @Profile("!reactive")
+    public ChatHistoryWriter chatHistoryWriter(ChatMessageRepository chatMessageRepository, MeterRegistry meterRegistry) {
+        return new ChatHistoryWriter(chatMessageRepository, queueCapacity, batchSize, flushInterval, meterRegistry);
+    }
+}
@@ -0,0 +1,86 @@
+package com.thehoodjunction.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thehoodjunction.repository.jpa.OutboxDeadLetterRepository;
+import com.thehoodjunction.repository.jpa.OutboxEventRepository;
+import com.thehoodjunction.repository.jpa.OutboxLaneRepository;
+import com.thehoodjunction.service.DomainEventPublisher;
+import com.thehoodjunction.service.OutboxRelay;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+/**
+ * Auth and OTP lifecycle events, written to the {@code outbox_events} table and relayed to Kafka;
+ * producer batching, compression and idempotence are set under {@code spring.kafka.producer}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.events")
+@Data
+public class DomainEventConfig {
+    private boolean enabled = true;
+    private String topic = "thehoodjunction.domain-events";
+    private int partitions = 6;
+    private short replicas = 1;
+    private Outbox outbox = new Outbox();
+    private OtpExpiryTracking otpExpiryTracking = new OtpExpiryTracking();
+
+    @Data
+    public static class Outbox {
+        // Events are spread over lanes by key; each lane is drained by one worker at a time.
+        // Changing this while events are waiting may reorder events of the same key.
+        private int lanes = 16;
+        // Relay threads per node
+        private int workers = 2;
+        private int batchSize = 500;
+        // How long an idle worker waits before looking for events again
+        private Duration pollInterval = Duration.ofMillis(100);
+        // Longest a batch may take to send and be acknowledged before it is rolled back and retried
+        private Duration sendTimeout = Duration.ofSeconds(10);
+        // How long a worker waits after a failed batch, e.g. while the broker is down
+        private Duration retryBackoff = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class OtpExpiryTracking {
+        // OTPs tracked until they expire; beyond this the oldest go without an OTP_EXPIRED event
+        private long maximumSize = 100_000;
+        // OTP_EXPIRED events waiting for their outbox insert; beyond this they are dropped and counted
+        private int queueCapacity = 10_000;
+    }
+
+    @Bean
+    public DomainEventPublisher domainEventPublisher(OutboxEventRepository outboxEventRepository,
+                                                     ObjectMapper objectMapper) {
+        return new DomainEventPublisher(enabled, outboxEventRepository, objectMapper, outbox.getLanes());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.events", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public OutboxRelay outboxRelay(OutboxLaneRepository outboxLaneRepository,
+                                   OutboxEventRepository outboxEventRepository,
+                                   OutboxDeadLetterRepository outboxDeadLetterRepository,
+                                   KafkaTemplate<String, Object> kafkaTemplate, ObjectMapper objectMapper,
+                                   TransactionTemplate transactionTemplate, MeterRegistry meterRegistry) {
+        return new OutboxRelay(outboxLaneRepository, outboxEventRepository, outboxDeadLetterRepository,
+                kafkaTemplate, objectMapper, transactionTemplate, topic, outbox, meterRegistry);
+    }
+
+    /**
+     * Created at startup by Spring Boot's KafkaAdmin if it does not exist yet
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "app.events", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public NewTopic domainEventTopic() {
+        return TopicBuilder.name(topic).partitions(partitions).replicas(replicas).build();
+    }
+}
@@ -1,8 +1,27 @@
 package com.thehoodjunction.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 @ConfigurationProperties(prefix = "msg91")
@@ -14,4 +33,161 @@ public class Msg91Config {
     private String otpTemplateId;
     private int otpLength;
     private int otpExpiryMinutes;
+    private String baseUrl = "https://api.msg91.com";
+    private Dispatch dispatch = new Dispatch();
+    private Http http = new Http();
+
+    /**
+     * Asynchronous OTP delivery
+     */
+    @Data
+    public static class Dispatch {
+        // Gateway calls running at the same time
+        private int maxConcurrency = 64;
+        // Deliveries accepted but not yet finished, including running ones; beyond this /otp/send returns 503
+        private int maxPending = 1000;
+        // direct calls the gateway from this node; queue hands OTPs to RabbitMQ for the SMS consumers
+        private Mode mode = Mode.DIRECT;
+        private Queue queue = new Queue();
+
+        public enum Mode {
+            DIRECT, QUEUE
+        }
+    }
+
+    /**
+     * RabbitMQ delivery, used when {@code dispatch.mode} is queue
+     */
+    @Data
+    public static class Queue {
+        // Run the SMS consumers on this node; API-only nodes can turn this off and leave sending to dedicated nodes
+        private boolean consume = true;
+        // Lane queues are named <exchange>.login and <exchange>.resend, their delay queues <exchange>.<lane>.retry
+        private String exchange = "sms.otp";
+        // First sends, which a user is waiting on to log in
+        private Lane login = new Lane(8, 5);
+        // Resends, kept apart so a burst of them cannot hold up first sends
+        private Lane resend = new Lane(2, 5);
+        // Deliveries tried per OTP, including the first, before it is marked failed
+        private int maxAttempts = 3;
+        // How long a failed delivery waits in the delay queue before it is tried again
+        private Duration retryDelay = Duration.ofSeconds(5);
+        // Longest /otp/send waits for the broker to confirm an OTP was queued
+        private Duration confirmTimeout = Duration.ofSeconds(5);
+        // Longest a consumer waits for the gateway before treating the attempt as failed
+        private Duration sendTimeout = Duration.ofSeconds(30);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Lane {
+        // Competing consumers on this node
+        private int consumers;
+        // Unacknowledged OTPs each consumer holds; low so slow gateway calls do not strand work on one consumer
+        private int prefetch;
+    }
+
+    /**
+     * Outbound HTTP client used for the SMS gateway
+     */
+    @Data
+    public static class Http {
+        // okhttp, or webclient for a fully non-blocking client (the default in the reactive profile)
+        private Client client = Client.OKHTTP;
+        private int maxIdleConnections = 16;
+        private Duration keepAlive = Duration.ofMinutes(5);
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        private Duration readTimeout = Duration.ofSeconds(5);
+        private Duration writeTimeout = Duration.ofSeconds(5);
+        // Upper bound for a whole call, including retries and redirects
+        private Duration callTimeout = Duration.ofSeconds(10);
+        // OkHttp only; the WebClient uses HTTP/1.1
+        private boolean http2 = true;
+
+        public enum Client {
+            OKHTTP, WEBCLIENT
+        }
+    }
+
+    /**
+     * HTTP client shared by every call to the SMS gateway
+     *
+     * @param meterRegistry Registry for client metrics
+     * @return Configured client
+     */
+    @Bean
+    public OkHttpClient msg91HttpClient(MeterRegistry meterRegistry) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(dispatch.getMaxConcurrency());
+        // Every call goes to the same host, so the per-host limit (5 by default) would be the real cap
+        dispatcher.setMaxRequestsPerHost(dispatch.getMaxConcurrency());
+        
+        ConnectionPool connectionPool = new ConnectionPool(
+                http.getMaxIdleConnections(), http.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS);
+        Msg91HttpMetrics.bindGauges(meterRegistry, dispatcher, connectionPool);
+        
+        // HTTP/2 is negotiated over TLS, so plain-HTTP gateways keep using HTTP/1.1
+        List<Protocol> protocols = http.isHttp2()
+                ? List.of(Protocol.HTTP_2, Protocol.HTTP_1_1)
+                : List.of(Protocol.HTTP_1_1);
+        
+        return new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(connectionPool)
+                .protocols(protocols)
+                .connectTimeout(http.getConnectTimeout())
+                .readTimeout(http.getReadTimeout())
+                .writeTimeout(http.getWriteTimeout())
+                .callTimeout(http.getCallTimeout())
+                .eventListener(new Msg91HttpMetrics(meterRegistry))
+                .build();
+    }
+
+    /**
+     * Non-blocking client for the SMS gateway on Reactor Netty, used when {@code msg91.http.client} is webclient.
+     * Connection and timeout limits match the OkHttp client; metrics are published as {@code reactor.netty.*}.
+     *
+     * @param webClientBuilder Builder with the application's codecs and observations
+     * @return Configured client
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "msg91.http", name = "client", havingValue = "webclient")
+    public WebClient msg91WebClient(WebClient.Builder webClientBuilder) {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("msg91")
+                .maxConnections(dispatch.getMaxConcurrency())
+                .pendingAcquireMaxCount(dispatch.getMaxPending())
+                .maxIdleTime(http.getKeepAlive())
+                .metrics(true)
+                .build();
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) http.getConnectTimeout().toMillis())
+                .responseTimeout(http.getCallTimeout())
+                // Tag by path only: the query string carries the auth key and the phone number
+                .metrics(true, uri -> uri.contains("?") ? uri.substring(0, uri.indexOf('?')) : uri);
+
+        return webClientBuilder
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
+    /**
+     * OTP endpoint with the parameters that are the same for every send already applied
+     *
+     * @return Base URL for sending OTPs
+     */
+    @Bean
+    public HttpUrl msg91OtpUrl() {
+        return otpUrl(baseUrl, otpTemplateId, authKey);
+    }
+
+    static HttpUrl otpUrl(String baseUrl, String otpTemplateId, String authKey) {
+        return HttpUrl.get(baseUrl)
+                .newBuilder()
+                .addPathSegments("api/v5/otp")
+                .addQueryParameter("template_id", otpTemplateId)
+                .addQueryParameter("authkey", authKey)
+                .build();
+    }
 }
@@ -0,0 +1,93 @@
+package com.thehoodjunction.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.okhttp3.OkHttpMetricsEventListener;
+import okhttp3.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+
+/**
+ * Client-side metrics for the MSG91 HTTP client.
+ * <ul>
+ *     <li>{@code msg91.http.requests}: latency per call, tagged by path, method and status</li>
+ *     <li>{@code msg91.http.connections.opened} and {@code msg91.http.connections.acquired}: their ratio shows
+ *     how often calls reuse a pooled connection</li>
+ *     <li>{@code msg91.http.calls.running}, {@code msg91.http.calls.queued} and {@code msg91.http.pool.*}: in-flight
+ *     calls and pool occupancy</li>
+ * </ul>
+ */
+class Msg91HttpMetrics extends EventListener {
+
+    private final OkHttpMetricsEventListener requests;
+    private final Counter connectionsOpened;
+    private final Counter connectionsAcquired;
+
+    Msg91HttpMetrics(MeterRegistry meterRegistry) {
+        this.requests = OkHttpMetricsEventListener.builder(meterRegistry, "msg91.http.requests")
+                // The query string carries the auth key and OTP, so only the path is recorded
+                .uriMapper(request -> request.url().encodedPath())
+                .build();
+        this.connectionsOpened = Counter.builder("msg91.http.connections.opened")
+                .description("New connections opened to the SMS gateway")
+                .register(meterRegistry);
+        this.connectionsAcquired = Counter.builder("msg91.http.connections.acquired")
+                .description("Connections acquired by calls, new or pooled")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Register gauges for the client's dispatcher and connection pool
+     *
+     * @param meterRegistry Registry
+     * @param dispatcher Client dispatcher
+     * @param connectionPool Client connection pool
+     */
+    static void bindGauges(MeterRegistry meterRegistry, Dispatcher dispatcher, ConnectionPool connectionPool) {
+        Gauge.builder("msg91.http.calls.running", dispatcher, Dispatcher::runningCallsCount)
+                .description("Calls currently executing")
+                .register(meterRegistry);
+        Gauge.builder("msg91.http.calls.queued", dispatcher, Dispatcher::queuedCallsCount)
+                .description("Calls waiting for a dispatcher slot")
+                .register(meterRegistry);
+        Gauge.builder("msg91.http.pool.connections", connectionPool, ConnectionPool::connectionCount)
+                .description("Open connections in the pool")
+                .register(meterRegistry);
+        Gauge.builder("msg91.http.pool.idle", connectionPool, ConnectionPool::idleConnectionCount)
+                .description("Idle connections in the pool")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void callStart(Call call) {
+        requests.callStart(call);
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        connectionsOpened.increment();
+    }
+
+    @Override
+    public void connectionAcquired(Call call, Connection connection) {
+        connectionsAcquired.increment();
+    }
+
+    @Override
+    public void responseHeadersEnd(Call call, Response response) {
+        requests.responseHeadersEnd(call, response);
+    }
+
+    @Override
+    public void callEnd(Call call) {
+        requests.callEnd(call);
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+        requests.callFailed(call, ioe);
+    }
+}
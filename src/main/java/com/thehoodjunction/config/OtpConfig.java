@@ -0,0 +1,62 @@
+package com.thehoodjunction.config;
+
+import com.thehoodjunction.service.OffloadingReactiveOtpStore;
+import com.thehoodjunction.service.OtpStore;
+import com.thehoodjunction.service.ReactiveOtpStore;
+import com.thehoodjunction.service.ReactiveRedisOtpStore;
+import lombok.Data;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.otp")
+@Data
+public class OtpConfig {
+    // Used when app.otp.store is unset; the bundled application.yml selects redis
+    private StoreType store = StoreType.JPA;
+    private String redisKeyPrefix = "otp:";
+    private long memoryMaximumSize = 100_000;
+    private Retention retention = new Retention();
+
+    public enum StoreType {
+        JPA, REDIS, MEMORY
+    }
+
+    /**
+     * Cleanup of the {@code otps} table; only applies to the jpa store.
+     */
+    @Data
+    public static class Retention {
+        private boolean enabled = true;
+        // How long expired OTPs are kept before they are purged
+        private Duration window = Duration.ofDays(1);
+        private int batchSize = 1000;
+        private int maxBatchesPerRun = 100;
+        private Duration purgeInterval = Duration.ofMinutes(5);
+        // Set when otps has been migrated to db/postgres/otps-partitioned.sql; old data is then dropped by partition
+        private boolean partitioned = false;
+        private int partitionsAhead = 3;
+    }
+
+    /**
+     * OTP store for the reactive endpoints: Redis through its reactive driver, the jpa store on the
+     * bounded elastic scheduler, and the in-memory store directly since it never blocks
+     */
+    @Bean
+    @Profile("reactive")
+    public ReactiveOtpStore reactiveOtpStore(OtpStore otpStore,
+                                             ObjectProvider<ReactiveStringRedisTemplate> reactiveStringRedisTemplate) {
+        return switch (store) {
+            case REDIS -> new ReactiveRedisOtpStore(reactiveStringRedisTemplate.getObject(), this);
+            case JPA -> new OffloadingReactiveOtpStore(otpStore, Schedulers.boundedElastic());
+            case MEMORY -> new OffloadingReactiveOtpStore(otpStore, Schedulers.immediate());
+        };
+    }
+}
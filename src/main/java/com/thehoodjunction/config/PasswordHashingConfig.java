@@ -0,0 +1,31 @@
+package com.thehoodjunction.config;
+
+import com.thehoodjunction.security.OffloadingPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.password-hashing")
+@Data
+public class PasswordHashingConfig {
+    // BCrypt work factor; stored hashes with a lower factor are re-hashed on the next successful login
+    private int strength = 10;
+    // Hashing threads; 0 uses one per available processor
+    private int threads = 0;
+    private int queueCapacity = 100;
+    private Duration timeout = Duration.ofSeconds(5);
+
+    @Bean
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new OffloadingPasswordEncoder(new BCryptPasswordEncoder(strength), poolSize, queueCapacity, timeout,
+                meterRegistry);
+    }
+}
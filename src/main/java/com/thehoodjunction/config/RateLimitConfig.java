@@ -0,0 +1,82 @@
+package com.thehoodjunction.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thehoodjunction.security.OtpRateLimitFilter;
+import com.thehoodjunction.security.OtpRateLimitWebFilter;
+import com.thehoodjunction.security.RateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.rate-limit")
+@Data
+public class RateLimitConfig {
+    private boolean enabled = true;
+    private Backend backend = Backend.MEMORY;
+    // Endpoints that trigger an SMS, relative to the context path
+    private List<String> paths = List.of("/otp/send", "/otp/resend");
+    private Limit perPhone = new Limit(5, Duration.ofMinutes(15));
+    private Limit perIp = new Limit(100, Duration.ofMinutes(1));
+    private Limit global = new Limit(50, Duration.ofSeconds(1));
+    private String redisKeyPrefix = "rate:";
+    private long memoryMaximumKeys = 100_000;
+
+    public enum Backend {
+        MEMORY, REDIS
+    }
+
+    /**
+     * Token bucket holding {@code capacity} tokens that refills completely over {@code refillPeriod}
+     */
+    @Data
+    public static class Limit {
+        private int capacity;
+        private Duration refillPeriod;
+
+        public Limit() {
+        }
+
+        public Limit(int capacity, Duration refillPeriod) {
+            this.capacity = capacity;
+            this.refillPeriod = refillPeriod;
+        }
+    }
+
+    /**
+     * Registered as a servlet filter ahead of Spring Security, so rejected requests cost no further work
+     */
+    @Bean
+    @Profile("!reactive")
+    public FilterRegistrationBean<OtpRateLimitFilter> otpRateLimitFilter(RateLimiter rateLimiter, ObjectMapper objectMapper,
+                                                                         MeterRegistry meterRegistry) {
+        FilterRegistrationBean<OtpRateLimitFilter> registration =
+                new FilterRegistrationBean<>(new OtpRateLimitFilter(rateLimiter, this, objectMapper, meterRegistry));
+        registration.setUrlPatterns(paths);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        registration.setEnabled(enabled);
+        return registration;
+    }
+
+    /**
+     * The same limits for the reactive stack; the Redis limiter blocks, so it runs on the bounded elastic scheduler
+     */
+    @Bean
+    @Profile("reactive")
+    @ConditionalOnProperty(prefix = "app.rate-limit", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public OtpRateLimitWebFilter otpRateLimitWebFilter(RateLimiter rateLimiter, ObjectMapper objectMapper,
+                                                       MeterRegistry meterRegistry) {
+        return new OtpRateLimitWebFilter(rateLimiter, this, objectMapper, meterRegistry,
+                backend == Backend.REDIS ? Schedulers.boundedElastic() : Schedulers.immediate());
+    }
+}
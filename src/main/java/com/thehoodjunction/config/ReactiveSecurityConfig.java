@@ -0,0 +1,94 @@
+package com.thehoodjunction.config;
+
+import com.thehoodjunction.security.JwtTokenProvider;
+import com.thehoodjunction.security.ReactiveJwtAuthenticationFilter;
+import com.thehoodjunction.security.TokenRevocationService;
+import com.thehoodjunction.service.UserService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
+import org.springframework.security.config.annotation.method.configuration.EnableReactiveMethodSecurity;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.web.cors.reactive.CorsConfigurationSource;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Security for the "reactive" profile, mirroring {@link SecurityConfig}.
+ * Users still live in JPA, so loading them and re-hashing passwords runs on the bounded elastic scheduler;
+ * password checks are already offloaded by the {@link PasswordEncoder}.
+ */
+@Configuration
+@EnableWebFluxSecurity
+@EnableReactiveMethodSecurity
+@Profile("reactive")
+public class ReactiveSecurityConfig {
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http,
+                                                         ReactiveJwtAuthenticationFilter jwtAuthenticationFilter) {
+        return http
+                .cors(cors -> cors.configurationSource(corsConfigurationSource()))
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+                .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+                .logout(ServerHttpSecurity.LogoutSpec::disable)
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .exceptionHandling(exception -> exception
+                        .authenticationEntryPoint(new HttpStatusServerEntryPoint(HttpStatus.UNAUTHORIZED)))
+                .authorizeExchange(auth -> auth
+                        .pathMatchers("/auth/**").permitAll()
+                        .pathMatchers("/otp/**").permitAll()
+                        .pathMatchers("/actuator/**").permitAll()
+                        .anyExchange().authenticated())
+                .addFilterAt(jwtAuthenticationFilter, SecurityWebFiltersOrder.AUTHENTICATION)
+                .build();
+    }
+
+    @Bean
+    public ReactiveJwtAuthenticationFilter reactiveJwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider,
+                                                                           TokenRevocationService tokenRevocationService,
+                                                                           ReactiveUserDetailsService userDetailsService) {
+        return new ReactiveJwtAuthenticationFilter(jwtTokenProvider, tokenRevocationService, userDetailsService);
+    }
+
+    @Bean
+    public ReactiveUserDetailsService reactiveUserDetailsService(UserService userService) {
+        return username -> Mono.fromCallable(() -> userService.loadUserByUsername(username))
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(UsernameNotFoundException.class, e -> Mono.empty());
+    }
+
+    @Bean
+    public ReactiveAuthenticationManager reactiveAuthenticationManager(ReactiveUserDetailsService userDetailsService,
+                                                                       UserService userService,
+                                                                       PasswordEncoder passwordEncoder) {
+        UserDetailsRepositoryReactiveAuthenticationManager authenticationManager =
+                new UserDetailsRepositoryReactiveAuthenticationManager(userDetailsService);
+        authenticationManager.setPasswordEncoder(passwordEncoder);
+        // Re-hashes passwords stored with an outdated work factor after a successful login
+        authenticationManager.setUserDetailsPasswordService((user, newPassword) ->
+                Mono.fromCallable(() -> userService.updatePassword(user, newPassword))
+                        .subscribeOn(Schedulers.boundedElastic()));
+        return authenticationManager;
+    }
+
+    @Bean
+    public CorsConfigurationSource corsConfigurationSource() {
+        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        source.registerCorsConfiguration("/**", SecurityConfig.corsConfiguration());
+        return source;
+    }
+}
@@ -0,0 +1,50 @@
+package com.thehoodjunction.config;
+
+import com.thehoodjunction.security.RedisTokenRevocationStore;
+import com.thehoodjunction.security.TokenRevocationService;
+import com.thehoodjunction.service.UserPrincipalCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Subscribes every node to user-cache invalidations and token revocations published through Redis.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.user-cache.redis", name = "enabled", havingValue = "true")
+@Slf4j
+public class RedisUserCacheConfig {
+
+    @Bean
+    public RedisMessageListenerContainer userCacheListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                    UserCacheConfig userCacheConfig,
+                                                                    UserPrincipalCache userPrincipalCache,
+                                                                    TokenRevocationService tokenRevocationService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+
+        container.addMessageListener((message, pattern) -> {
+            String username = new String(message.getBody(), StandardCharsets.UTF_8);
+            userPrincipalCache.invalidateLocal(username);
+        }, new ChannelTopic(userCacheConfig.getRedis().getInvalidationChannel()));
+
+        container.addMessageListener((message, pattern) -> {
+            try {
+                Map.Entry<String, Long> revocation =
+                        RedisTokenRevocationStore.decodeEvent(new String(message.getBody(), StandardCharsets.UTF_8));
+                tokenRevocationService.applyRevocation(revocation.getKey(), revocation.getValue());
+            } catch (RuntimeException e) {
+                log.warn("Ignoring malformed token revocation event", e);
+            }
+        }, new ChannelTopic(userCacheConfig.getRedis().getRevocationChannel()));
+
+        return container;
+    }
+}
@@ -0,0 +1,109 @@
+package com.thehoodjunction.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thehoodjunction.service.OtpStore;
+import com.thehoodjunction.service.SmsDeliveryQueue;
+import com.thehoodjunction.service.SmsDeliveryWorker;
+import com.thehoodjunction.service.SmsGateway;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * OTP delivery through RabbitMQ, enabled by {@code msg91.dispatch.mode: queue}.
+ * Each {@link SmsDeliveryQueue.Lane} is a durable queue on a direct exchange that dead-letters rejected OTPs to a
+ * delay queue; the delay queue holds them for {@code retry-delay} and dead-letters them back to the exchange under
+ * the same routing key. Spring Boot's RabbitAdmin declares all of this when it first connects.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "msg91.dispatch", name = "mode", havingValue = "queue")
+public class SmsDeliveryQueueConfig {
+
+    private final Msg91Config.Queue queue;
+
+    public SmsDeliveryQueueConfig(Msg91Config msg91Config) {
+        this.queue = msg91Config.getDispatch().getQueue();
+    }
+
+    /**
+     * @return Exchanges, lane queues, delay queues and their bindings
+     */
+    @Bean
+    public Declarables smsDeliveryTopology() {
+        String retryExchangeName = queue.getExchange() + ".retry";
+        DirectExchange exchange = new DirectExchange(queue.getExchange());
+        DirectExchange retryExchange = new DirectExchange(retryExchangeName);
+        List<Declarable> declarables = new ArrayList<>(List.of(exchange, retryExchange));
+        for (SmsDeliveryQueue.Lane lane : SmsDeliveryQueue.Lane.values()) {
+            Queue laneQueue = QueueBuilder.durable(lane.queueName(queue.getExchange()))
+                    .deadLetterExchange(retryExchangeName)
+                    .build();
+            Queue retryQueue = QueueBuilder.durable(lane.retryQueueName(queue.getExchange()))
+                    .ttl((int) queue.getRetryDelay().toMillis())
+                    .deadLetterExchange(queue.getExchange())
+                    .build();
+            declarables.add(laneQueue);
+            declarables.add(retryQueue);
+            declarables.add(BindingBuilder.bind(laneQueue).to(exchange).with(lane.getRoutingKey()));
+            declarables.add(BindingBuilder.bind(retryQueue).to(retryExchange).with(lane.getRoutingKey()));
+        }
+        return new Declarables(declarables);
+    }
+
+    @Bean
+    public SmsDeliveryQueue smsDeliveryQueue(RabbitTemplate rabbitTemplate, ObjectMapper objectMapper,
+                                             MeterRegistry meterRegistry) {
+        return new SmsDeliveryQueue(rabbitTemplate, objectMapper, queue, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "msg91.dispatch.queue", name = "consume", havingValue = "true", matchIfMissing = true)
+    public SmsDeliveryWorker smsDeliveryWorker(SmsGateway smsGateway, OtpStore otpStore, ObjectMapper objectMapper,
+                                               MeterRegistry meterRegistry) {
+        return new SmsDeliveryWorker(smsGateway, otpStore, objectMapper, queue, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "msg91.dispatch.queue", name = "consume", havingValue = "true", matchIfMissing = true)
+    public SimpleMessageListenerContainer loginSmsListenerContainer(ConnectionFactory connectionFactory,
+                                                                    SmsDeliveryWorker smsDeliveryWorker) {
+        return listenerContainer(connectionFactory, smsDeliveryWorker, SmsDeliveryQueue.Lane.LOGIN, queue.getLogin());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "msg91.dispatch.queue", name = "consume", havingValue = "true", matchIfMissing = true)
+    public SimpleMessageListenerContainer resendSmsListenerContainer(ConnectionFactory connectionFactory,
+                                                                     SmsDeliveryWorker smsDeliveryWorker) {
+        return listenerContainer(connectionFactory, smsDeliveryWorker, SmsDeliveryQueue.Lane.RESEND, queue.getResend());
+    }
+
+    /**
+     * Competing consumers for one lane; a rejected OTP is dead-lettered rather than requeued at the head of the lane
+     */
+    private SimpleMessageListenerContainer listenerContainer(ConnectionFactory connectionFactory,
+                                                             SmsDeliveryWorker smsDeliveryWorker,
+                                                             SmsDeliveryQueue.Lane lane, Msg91Config.Lane settings) {
+        SimpleMessageListenerContainer container = new SimpleMessageListenerContainer(connectionFactory);
+        container.setQueueNames(lane.queueName(queue.getExchange()));
+        container.setConcurrentConsumers(settings.getConsumers());
+        container.setPrefetchCount(settings.getPrefetch());
+        container.setDefaultRequeueRejected(false);
+        // The queues are declared by RabbitAdmin; keep consuming through broker restarts instead of stopping
+        container.setMissingQueuesFatal(false);
+        container.setMessageListener(smsDeliveryWorker);
+        return container;
+    }
+}
@@ -0,0 +1,99 @@
+package com.thehoodjunction.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thehoodjunction.service.Msg91SmsGateway;
+import com.thehoodjunction.service.ResilientSmsGateway;
+import com.thehoodjunction.service.SmsGateway;
+import com.thehoodjunction.service.WebClientSmsGateway;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.sms")
+@Data
+public class SmsGatewayConfig {
+    private Resilience resilience = new Resilience();
+    private Secondary secondary = new Secondary();
+
+    /**
+     * Circuit breaker, bulkhead, retries and failover applied to every gateway
+     */
+    @Data
+    public static class Resilience {
+        // Circuit breaker, evaluated over the last sliding-window-size calls
+        private int slidingWindowSize = 20;
+        private int minimumNumberOfCalls = 10;
+        private float failureRateThreshold = 50;
+        private Duration slowCallThreshold = Duration.ofSeconds(3);
+        private float slowCallRateThreshold = 80;
+        private Duration openStateDuration = Duration.ofSeconds(30);
+        private int permittedCallsInHalfOpenState = 3;
+        // Bulkhead: calls in flight per gateway; further calls fail fast
+        private int maxConcurrentCalls = 64;
+        // Retries with exponential backoff and full jitter
+        private int maxAttempts = 3;
+        private Duration initialBackoff = Duration.ofMillis(200);
+        private Duration maxBackoff = Duration.ofSeconds(2);
+        // Retry budget: retries allowed per request, and how many can be saved up
+        private double retryRatio = 0.1;
+        private int retryBudgetMaxTokens = 10;
+        // Also send through the secondary gateway when the primary has not answered by then; unset disables hedging
+        private Duration hedgeDelay;
+    }
+
+    /**
+     * Optional second MSG91-compatible endpoint used for failover
+     */
+    @Data
+    public static class Secondary {
+        private String baseUrl;
+        private String authKey;
+        private String otpTemplateId;
+    }
+
+    @Bean
+    public SmsGateway msg91SmsGateway(Msg91Config msg91Config, HttpUrl msg91OtpUrl, OkHttpClient msg91HttpClient,
+                                      ObjectProvider<WebClient> msg91WebClient, ObjectMapper objectMapper) {
+        return gateway("msg91", msg91OtpUrl, msg91Config, msg91HttpClient, msg91WebClient, objectMapper);
+    }
+
+    /**
+     * Failover gateway. Any other provider can be plugged in by defining an {@link SmsGateway} bean with this name.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "app.sms.secondary", name = "base-url")
+    public SmsGateway secondarySmsGateway(Msg91Config msg91Config, OkHttpClient msg91HttpClient,
+                                          ObjectProvider<WebClient> msg91WebClient, ObjectMapper objectMapper) {
+        HttpUrl otpUrl = Msg91Config.otpUrl(secondary.getBaseUrl(), secondary.getOtpTemplateId(), secondary.getAuthKey());
+        return gateway("secondary", otpUrl, msg91Config, msg91HttpClient, msg91WebClient, objectMapper);
+    }
+
+    // MSG91-compatible gateway on the client selected by msg91.http.client
+    private static SmsGateway gateway(String name, HttpUrl otpUrl, Msg91Config msg91Config, OkHttpClient okHttpClient,
+                                      ObjectProvider<WebClient> webClient, ObjectMapper objectMapper) {
+        if (msg91Config.getHttp().getClient() == Msg91Config.Http.Client.WEBCLIENT) {
+            return new WebClientSmsGateway(name, webClient.getObject(), otpUrl, objectMapper);
+        }
+        return new Msg91SmsGateway(name, okHttpClient, otpUrl, objectMapper);
+    }
+
+    @Bean
+    @Primary
+    public ResilientSmsGateway smsGateway(@Qualifier("msg91SmsGateway") SmsGateway msg91SmsGateway,
+                                          @Qualifier("secondarySmsGateway") ObjectProvider<SmsGateway> secondarySmsGateway,
+                                          MeterRegistry meterRegistry) {
+        return new ResilientSmsGateway(msg91SmsGateway, secondarySmsGateway.getIfAvailable(), resilience, meterRegistry);
+    }
+}
@@ -0,0 +1,30 @@
+package com.thehoodjunction.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.user-cache")
+@Data
+public class UserCacheConfig {
+    private boolean enabled = true;
+    private long maximumSize = 10_000;
+    private Duration ttl = Duration.ofMinutes(5);
+    private Redis redis = new Redis();
+
+    /**
+     * Shared tier behind the in-process cache, used when several nodes serve traffic.
+     */
+    @Data
+    public static class Redis {
+        private boolean enabled = false;
+        private Duration ttl = Duration.ofMinutes(30);
+        private String keyPrefix = "user-principal:";
+        private String invalidationChannel = "user-principal:invalidations";
+        private String revocationKeyPrefix = "token-revocation:";
+        private String revocationChannel = "token-revocation:events";
+    }
+}
@@ -0,0 +1,53 @@
+package com.thehoodjunction.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Virtual-thread mode is switched on with {@code spring.threads.virtual.enabled} and needs Java 21.
+ * Spring Boot then runs Tomcat requests, {@code @Async} methods and {@code @Scheduled} tasks on virtual threads;
+ * password hashing stays on its bounded platform pool because it is CPU-bound.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.virtual-threads")
+@Data
+@Slf4j
+public class VirtualThreadConfig {
+    // Record virtual threads that stay pinned to their carrier for at least pinning-threshold
+    private boolean pinningMonitor = true;
+    private Duration pinningThreshold = Duration.ofMillis(20);
+
+    @Bean
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    @ConditionalOnProperty(prefix = "app.virtual-threads", name = "pinning-monitor", havingValue = "true", matchIfMissing = true)
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(MeterRegistry meterRegistry) {
+        return new VirtualThreadPinningMonitor(pinningThreshold, meterRegistry);
+    }
+
+    /**
+     * Spring Boot quietly falls back to platform threads below Java 21, so say so
+     *
+     * @param event Ready event of the application
+     */
+    @EventListener
+    public void warnIfVirtualThreadsUnavailable(ApplicationReadyEvent event) {
+        Environment environment = event.getApplicationContext().getEnvironment();
+        boolean requested = environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+        if (requested && !Threading.VIRTUAL.isActive(environment)) {
+            log.warn("spring.threads.virtual.enabled is set but Java {} has no virtual threads; using platform threads",
+                    Runtime.version().feature());
+        }
+    }
+}
@@ -1,25 +1,251 @@
 package com.thehoodjunction.config;
 
+import com.thehoodjunction.security.StompAuthenticationInterceptor;
+import com.thehoodjunction.websocket.OutboundFlowControl;
+import com.thehoodjunction.websocket.RoomAccessInterceptor;
+import com.thehoodjunction.websocket.RoomSubscriptionRegistry;
+import com.thehoodjunction.websocket.StompPayloadCodec;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.simp.broker.BrokerAvailabilityEvent;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+
+import java.time.Duration;
 
 @Configuration
 @EnableWebSocketMessageBroker
+@ConfigurationProperties(prefix = "app.websocket")
+@Profile("!reactive")
+@Data
+@Slf4j
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+    // simple keeps subscriptions in this node's memory; relay shares them between nodes through RabbitMQ
+    private Broker broker = Broker.SIMPLE;
+    // STOMP heart-beats between the simple broker and clients; 0 disables. With the relay, RabbitMQ negotiates them
+    private Duration heartbeatSend = Duration.ofSeconds(10);
+    private Duration heartbeatReceive = Duration.ofSeconds(10);
+    // SockJS heart-beat frames keep idle connections open through proxies
+    private Duration sockJsHeartbeat = Duration.ofSeconds(25);
+    private Relay relay = new Relay();
+    // Threads handling frames from clients, and writing broker messages to them
+    private Channel inbound = new Channel();
+    private Channel outbound = new Channel();
+    // Per session: a send blocked for longer, or more than this much buffered behind it, closes the session
+    private Duration sendTimeLimit = Duration.ofSeconds(10);
+    private DataSize sendBufferSizeLimit = DataSize.ofKilobytes(512);
+    // Largest frame accepted from a client
+    private DataSize messageSizeLimit = DataSize.ofKilobytes(64);
+    private SlowConsumer slowConsumer = new SlowConsumer();
+    // Let raw WebSocket clients ask for CBOR payloads on CONNECT (simple broker only)
+    private boolean cbor = true;
+
+    private TaskScheduler messageBrokerTaskScheduler;
+    private OutboundFlowControl outboundFlowControl;
+    private StompAuthenticationInterceptor stompAuthenticationInterceptor;
+    private RoomAccessInterceptor roomAccessInterceptor;
+    private StompPayloadCodec stompPayloadCodec;
+
+    public enum Broker {
+        SIMPLE, RELAY
+    }
+
+    public enum SlowConsumerPolicy {
+        // Discard messages for the session until it catches up
+        DROP,
+        // Keep only the latest message per destination and deliver it once the session catches up
+        COALESCE,
+        // Close the session; the client reconnects and resubscribes
+        DISCONNECT
+    }
+
+    @Data
+    public static class Channel {
+        private int poolSize = 0; // 0 = two per CPU core
+        // Frames beyond this are rejected rather than queued without bound
+        private int queueCapacity = 10000;
+
+        int threads() {
+            return poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors() * 2;
+        }
+    }
+
+    @Data
+    public static class SlowConsumer {
+        private SlowConsumerPolicy policy = SlowConsumerPolicy.DROP;
+        // Broker messages a session may have waiting for delivery before the policy applies
+        private int maxPending = 100;
+    }
+
+    /**
+     * STOMP broker relay to RabbitMQ's STOMP plugin (rabbitmq_stomp)
+     */
+    @Data
+    public static class Relay {
+        private String host = "localhost";
+        private int port = 61613;
+        private String virtualHost = "/";
+        // Credentials used for each client session's connection to the broker
+        private String clientLogin = "guest";
+        private String clientPasscode = "guest";
+        // Credentials for the shared connection the server itself sends on
+        private String systemLogin = "guest";
+        private String systemPasscode = "guest";
+        // Heart-beats on the shared connection; a broker that goes quiet for longer is reconnected
+        private Duration systemHeartbeatSend = Duration.ofSeconds(10);
+        private Duration systemHeartbeatReceive = Duration.ofSeconds(10);
+        // Topics over which nodes resolve users connected elsewhere and share who is connected where
+        private String userDestinationBroadcast = "/topic/unresolved-user-destination";
+        private String userRegistryBroadcast = "/topic/simp-user-registry";
+    }
+
+    @Autowired
+    public void setMessageBrokerTaskScheduler(@Lazy TaskScheduler messageBrokerTaskScheduler) {
+        this.messageBrokerTaskScheduler = messageBrokerTaskScheduler;
+    }
+
+    @Autowired
+    public void setOutboundFlowControl(@Lazy OutboundFlowControl outboundFlowControl) {
+        this.outboundFlowControl = outboundFlowControl;
+    }
+
+    @Autowired
+    public void setStompAuthenticationInterceptor(@Lazy StompAuthenticationInterceptor stompAuthenticationInterceptor) {
+        this.stompAuthenticationInterceptor = stompAuthenticationInterceptor;
+    }
+
+    @Autowired
+    public void setRoomAccessInterceptor(@Lazy RoomAccessInterceptor roomAccessInterceptor) {
+        this.roomAccessInterceptor = roomAccessInterceptor;
+    }
+
+    @Autowired
+    public void setStompPayloadCodec(@Lazy StompPayloadCodec stompPayloadCodec) {
+        this.stompPayloadCodec = stompPayloadCodec;
+    }
+
+    /**
+     * Index the simple broker's subscriptions by destination so thousands of rooms resolve in one lookup each
+     */
+    @Bean
+    public static BeanPostProcessor roomSubscriptionRegistryPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof SimpleBrokerMessageHandler handler) {
+                    handler.setSubscriptionRegistry(new RoomSubscriptionRegistry());
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Let the broker's converters also encode CBOR. Spring Boot adds its converters after this configuration's
+     * configureMessageConverters runs, so the finished converter is wrapped instead
+     */
+    @Bean
+    public static BeanPostProcessor stompPayloadCodecPostProcessor(ObjectProvider<StompPayloadCodec> stompPayloadCodec) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof CompositeMessageConverter converter && beanName.equals("brokerMessageConverter")) {
+                    return stompPayloadCodec.getObject().withCbor(converter);
+                }
+                return bean;
+            }
+        };
+    }
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*")
-                .withSockJS();
+                .withSockJS()
+                .setHeartbeatTime(sockJsHeartbeat.toMillis());
+        registry.setErrorHandler(new StompAuthenticationInterceptor.ErrorHandler());
     }
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        registry.enableSimpleBroker("/topic", "/queue");
+        if (broker == Broker.RELAY) {
+            registry.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relay.getHost())
+                    .setRelayPort(relay.getPort())
+                    .setVirtualHost(relay.getVirtualHost())
+                    .setClientLogin(relay.getClientLogin())
+                    .setClientPasscode(relay.getClientPasscode())
+                    .setSystemLogin(relay.getSystemLogin())
+                    .setSystemPasscode(relay.getSystemPasscode())
+                    .setSystemHeartbeatSendInterval(relay.getSystemHeartbeatSend().toMillis())
+                    .setSystemHeartbeatReceiveInterval(relay.getSystemHeartbeatReceive().toMillis())
+                    // convertAndSendToUser reaches users whose session lives on another node
+                    .setUserDestinationBroadcast(relay.getUserDestinationBroadcast())
+                    .setUserRegistryBroadcast(relay.getUserRegistryBroadcast());
+        } else {
+            registry.enableSimpleBroker("/topic", "/queue")
+                    .setHeartbeatValue(new long[] {heartbeatSend.toMillis(), heartbeatReceive.toMillis()})
+                    .setTaskScheduler(messageBrokerTaskScheduler);
+        }
         registry.setApplicationDestinationPrefixes("/app");
     }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(inbound.threads())
+                .maxPoolSize(inbound.threads())
+                .queueCapacity(inbound.getQueueCapacity());
+        registration.interceptors(stompAuthenticationInterceptor, roomAccessInterceptor, stompPayloadCodec.inbound());
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(outbound.threads())
+                .maxPoolSize(outbound.threads())
+                .queueCapacity(outbound.getQueueCapacity());
+        registration.interceptors(outboundFlowControl, stompPayloadCodec);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit((int) sendTimeLimit.toMillis())
+                .setSendBufferSizeLimit((int) sendBufferSizeLimit.toBytes())
+                .setMessageSizeLimit((int) messageSizeLimit.toBytes())
+                .addDecoratorFactory(outboundFlowControl::decorate)
+                .addDecoratorFactory(stompPayloadCodec::decorate);
+    }
+
+    /**
+     * Messages sent while the relay has no broker connection fail, so make outages visible
+     *
+     * @param event Broker availability change
+     */
+    @EventListener
+    public void onBrokerAvailability(BrokerAvailabilityEvent event) {
+        if (event.isBrokerAvailable() || broker == Broker.SIMPLE) {
+            // The simple broker only becomes unavailable when the application stops
+            log.info("WebSocket message broker {} ({})", event.isBrokerAvailable() ? "available" : "stopped", broker);
+        } else {
+            log.warn("WebSocket message broker unavailable ({}); messages cannot be delivered until it reconnects", broker);
+        }
+    }
 }
@@ -2,12 +2,16 @@ package com.thehoodjunction.controller;
 
 import com.thehoodjunction.dto.AuthRequest;
 import com.thehoodjunction.dto.AuthResponse;
+import com.thehoodjunction.dto.DomainEvent;
 import com.thehoodjunction.dto.RegisterRequest;
 import com.thehoodjunction.model.User;
 import com.thehoodjunction.security.JwtTokenProvider;
+import com.thehoodjunction.security.UserPrincipal;
+import com.thehoodjunction.service.DomainEventPublisher;
 import com.thehoodjunction.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -19,14 +23,18 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("/auth")
 @RequiredArgsConstructor
+@Profile("!reactive")
 public class AuthController {
 
     private final AuthenticationManager authenticationManager;
     private final UserService userService;
     private final JwtTokenProvider jwtTokenProvider;
+    private final DomainEventPublisher domainEventPublisher;
 
     @PostMapping("/login")
     public ResponseEntity<AuthResponse> login(@Valid @RequestBody AuthRequest authRequest) {
@@ -38,8 +46,9 @@ public class AuthController {
         );
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
-        User user = (User) authentication.getPrincipal();
+        UserPrincipal user = (UserPrincipal) authentication.getPrincipal();
         String jwt = jwtTokenProvider.generateToken(user);
+        domainEventPublisher.publish(DomainEvent.Type.USER_LOGGED_IN, user.getUsername(), Map.of());
 
         AuthResponse response = AuthResponse.builder()
                 .token(jwt)
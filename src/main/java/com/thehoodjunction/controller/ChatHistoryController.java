@@ -0,0 +1,60 @@
+package com.thehoodjunction.controller;
+
+import com.thehoodjunction.dto.ChatHistoryResponse;
+import com.thehoodjunction.security.UserPrincipal;
+import com.thehoodjunction.service.ChatHistoryService;
+import com.thehoodjunction.service.HoodMembershipService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestController
+@RequestMapping("/chat")
+@RequiredArgsConstructor
+@Profile("!reactive")
+public class ChatHistoryController {
+
+    private final ChatHistoryService chatHistoryService;
+    private final HoodMembershipService hoodMembershipService;
+
+    /**
+     * Page through a room's history, newest page first, or catch up with {@code after}
+     *
+     * @param room {@code public} or {@code hood.{hoodId}}
+     * @param before Cursor of the oldest message the client has
+     * @param after Cursor of the newest message the client has
+     * @param limit Page size
+     */
+    @GetMapping("/rooms/{room}/messages")
+    public ResponseEntity<ChatHistoryResponse> getMessages(@PathVariable String room,
+                                                           @RequestParam(required = false) String before,
+                                                           @RequestParam(required = false) String after,
+                                                           @RequestParam(required = false) Integer limit,
+                                                           @AuthenticationPrincipal UserPrincipal principal) {
+        if (room.startsWith("hood.")) {
+            long hoodId = parseHoodId(room.substring("hood.".length()));
+            if (principal == null || !hoodMembershipService.isMember(principal.getId(), hoodId)) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Not a member of " + room);
+            }
+        } else if (!room.equals("public")) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown room " + room);
+        }
+        return ResponseEntity.ok(chatHistoryService.history(room, before, after, limit));
+    }
+
+    private static long parseHoodId(String hoodId) {
+        try {
+            return Long.parseLong(hoodId);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown room hood." + hoodId);
+        }
+    }
+}
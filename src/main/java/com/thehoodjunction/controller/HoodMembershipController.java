@@ -0,0 +1,69 @@
+package com.thehoodjunction.controller;
+
+import com.thehoodjunction.security.UserPrincipal;
+import com.thehoodjunction.service.HoodMembershipService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Set;
+
+/**
+ * Neighborhood memberships, which decide who may use each {@code /topic/hood.{hoodId}} room and read its history.
+ * Memberships are granted by admins; members may leave on their own.
+ */
+@RestController
+@RequestMapping("/hoods")
+@RequiredArgsConstructor
+@Profile("!reactive")
+public class HoodMembershipController {
+
+    private final HoodMembershipService hoodMembershipService;
+
+    /**
+     * @return Neighborhoods the current user belongs to
+     */
+    @GetMapping("/mine")
+    public ResponseEntity<Set<Long>> getMine(@AuthenticationPrincipal UserPrincipal principal) {
+        return ResponseEntity.ok(hoodMembershipService.hoodIds(principal.getId()));
+    }
+
+    /**
+     * Add a user to a neighborhood
+     *
+     * @param hoodId Neighborhood
+     * @param userId User
+     */
+    @PutMapping("/{hoodId}/members/{userId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> addMember(@PathVariable long hoodId, @PathVariable long userId) {
+        hoodMembershipService.join(userId, hoodId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Remove a user from a neighborhood; admins may remove anyone, other users only themselves
+     *
+     * @param hoodId Neighborhood
+     * @param userId User
+     */
+    @DeleteMapping("/{hoodId}/members/{userId}")
+    public ResponseEntity<Void> removeMember(@PathVariable long hoodId, @PathVariable long userId,
+                                             @AuthenticationPrincipal UserPrincipal principal) {
+        if (!Long.valueOf(userId).equals(principal.getId()) && !principal.getRoles().contains("ADMIN")) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Only admins may remove other members");
+        }
+        hoodMembershipService.leave(userId, hoodId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -7,6 +7,7 @@ import com.thehoodjunction.model.Otp;
 import com.thehoodjunction.service.Msg91Service;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -19,6 +20,7 @@ import java.time.LocalDateTime;
 @RestController
 @RequestMapping("/otp")
 @RequiredArgsConstructor
+@Profile("!reactive")
 public class OtpController {
 
     private final Msg91Service msg91Service;
@@ -4,7 +4,7 @@ import com.thehoodjunction.dto.OtpRequest;
 import com.thehoodjunction.dto.OtpResponse;
 import com.thehoodjunction.dto.OtpVerificationRequest;
 import com.thehoodjunction.model.Otp;
-import com.thehoodjunction.repository.jpa.OtpRepository;
+import com.thehoodjunction.service.OtpStore;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -15,7 +15,6 @@ import org.springframework.web.bind.annotation.*;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
 import java.util.Random;
 
 /**
@@ -29,7 +28,7 @@ import java.util.Random;
 @Slf4j
 public class OtpTestController {
 
-    private final OtpRepository otpRepository;
+    private final OtpStore otpStore;
     private final Random random = new Random();
 
     /**
@@ -42,7 +41,7 @@ public class OtpTestController {
         // Generate a random 6-digit OTP
         String otpValue = String.format("%06d", random.nextInt(1000000));
         
-        // Save OTP to database
+        // Save OTP to the configured store
         Otp otp = Otp.builder()
                 .phoneNumber(request.getPhoneNumber())
                 .otpValue(otpValue)
@@ -51,7 +50,7 @@ public class OtpTestController {
                 .used(false)
                 .build();
         
-        otpRepository.save(otp);
+        otpStore.save(otp);
         
         long expiresInSeconds = Duration.between(LocalDateTime.now(), otp.getExpiresAt()).getSeconds();
         
@@ -75,23 +74,7 @@ public class OtpTestController {
     public ResponseEntity<OtpResponse> verifyOtp(@Valid @RequestBody OtpVerificationRequest request) {
         log.info("Verifying OTP: {} for phone: {}", request.getOtp(), request.getPhoneNumber());
         
-        Optional<Otp> otpOptional = otpRepository.findByPhoneNumberAndOtpValueAndUsedFalse(
-                request.getPhoneNumber(), request.getOtp());
-        
-        boolean isValid = false;
-        
-        if (otpOptional.isPresent()) {
-            Otp otp = otpOptional.get();
-            
-            if (!otp.isExpired()) {
-                // Mark OTP as used
-                otp.setVerifiedAt(LocalDateTime.now());
-                otp.setUsed(true);
-                otpRepository.save(otp);
-                
-                isValid = true;
-            }
-        }
+        boolean isValid = otpStore.verifyAndConsume(request.getPhoneNumber(), request.getOtp());
         
         OtpResponse response = OtpResponse.builder()
                 .message(isValid ? "OTP verified successfully" : "Invalid OTP")
@@ -104,13 +87,11 @@ public class OtpTestController {
     }
     
     /**
-     * Get all OTPs for a phone number (for testing purposes only).
+     * Get the active OTP for a phone number (for testing purposes only).
      */
     @GetMapping("/list/{phoneNumber}")
     public ResponseEntity<List<Otp>> getOtpsForPhone(@PathVariable String phoneNumber) {
-        List<Otp> otps = otpRepository.findAll().stream()
-                .filter(otp -> otp.getPhoneNumber().equals(phoneNumber))
-                .toList();
+        List<Otp> otps = otpStore.findActive(phoneNumber).stream().toList();
         
         return ResponseEntity.ok(otps);
     }
@@ -0,0 +1,93 @@
+package com.thehoodjunction.controller;
+
+import com.thehoodjunction.dto.AuthRequest;
+import com.thehoodjunction.dto.AuthResponse;
+import com.thehoodjunction.dto.DomainEvent;
+import com.thehoodjunction.dto.RegisterRequest;
+import com.thehoodjunction.model.User;
+import com.thehoodjunction.security.JwtTokenProvider;
+import com.thehoodjunction.security.UserPrincipal;
+import com.thehoodjunction.service.DomainEventPublisher;
+import com.thehoodjunction.service.UserService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+
+/**
+ * WebFlux version of {@link AuthController} with the same requests and responses.
+ * Users are stored through JPA, so registration runs on the bounded elastic scheduler.
+ */
+@RestController
+@RequestMapping("/auth")
+@RequiredArgsConstructor
+@Profile("reactive")
+public class ReactiveAuthController {
+
+    private final ReactiveAuthenticationManager authenticationManager;
+    private final UserService userService;
+    private final JwtTokenProvider jwtTokenProvider;
+    private final DomainEventPublisher domainEventPublisher;
+
+    @PostMapping("/login")
+    public Mono<ResponseEntity<AuthResponse>> login(@Valid @RequestBody AuthRequest authRequest) {
+        return authenticationManager.authenticate(
+                        new UsernamePasswordAuthenticationToken(
+                                authRequest.getUsername(),
+                                authRequest.getPassword()
+                        )
+                )
+                // The servlet stack answers failed logins with 401 through its entry point
+                .onErrorMap(AuthenticationException.class,
+                        e -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Unauthorized: " + e.getMessage()))
+                // Recording the login is a JPA insert
+                .flatMap(authentication -> Mono.fromRunnable(() -> domainEventPublisher.publish(
+                                DomainEvent.Type.USER_LOGGED_IN, authentication.getName(), Map.of()))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .thenReturn(authentication))
+                .map(authentication -> {
+                    UserPrincipal user = (UserPrincipal) authentication.getPrincipal();
+                    String jwt = jwtTokenProvider.generateToken(user);
+
+                    return ResponseEntity.ok(AuthResponse.builder()
+                            .token(jwt)
+                            .username(user.getUsername())
+                            .email(user.getEmail())
+                            .fullName(user.getFullName())
+                            .build());
+                });
+    }
+
+    @PostMapping("/register")
+    public Mono<ResponseEntity<AuthResponse>> register(@Valid @RequestBody RegisterRequest registerRequest) {
+        User user = User.builder()
+                .username(registerRequest.getUsername())
+                .email(registerRequest.getEmail())
+                .password(registerRequest.getPassword())
+                .fullName(registerRequest.getFullName())
+                .roles(registerRequest.getRoles())
+                .build();
+
+        return Mono.fromCallable(() -> userService.createUser(user))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(savedUser -> ResponseEntity.status(HttpStatus.CREATED).body(AuthResponse.builder()
+                        .token(jwtTokenProvider.generateToken(savedUser))
+                        .username(savedUser.getUsername())
+                        .email(savedUser.getEmail())
+                        .fullName(savedUser.getFullName())
+                        .build()));
+    }
+}
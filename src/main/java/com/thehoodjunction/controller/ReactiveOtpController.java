@@ -0,0 +1,65 @@
+package com.thehoodjunction.controller;
+
+import com.thehoodjunction.dto.OtpRequest;
+import com.thehoodjunction.dto.OtpResponse;
+import com.thehoodjunction.dto.OtpVerificationRequest;
+import com.thehoodjunction.model.Otp;
+import com.thehoodjunction.service.ReactiveOtpService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * WebFlux version of {@link OtpController} with the same requests and responses
+ */
+@RestController
+@RequestMapping("/otp")
+@RequiredArgsConstructor
+@Profile("reactive")
+public class ReactiveOtpController {
+
+    private final ReactiveOtpService otpService;
+
+    @PostMapping("/send")
+    public Mono<ResponseEntity<OtpResponse>> sendOtp(@Valid @RequestBody OtpRequest request) {
+        return otpService.generateAndSendOtp(request.getPhoneNumber())
+                .map(otp -> sent(request.getPhoneNumber(), otp, "OTP sent successfully"));
+    }
+
+    @PostMapping("/verify")
+    public Mono<ResponseEntity<OtpResponse>> verifyOtp(@Valid @RequestBody OtpVerificationRequest request) {
+        return otpService.verifyOtp(request.getPhoneNumber(), request.getOtp())
+                .map(isValid -> ResponseEntity.ok(OtpResponse.builder()
+                        .message(isValid ? "OTP verified successfully" : "Invalid OTP")
+                        .success(isValid)
+                        .phoneNumber(request.getPhoneNumber())
+                        .expiresInSeconds(0)
+                        .build()));
+    }
+
+    @PostMapping("/resend")
+    public Mono<ResponseEntity<OtpResponse>> resendOtp(@Valid @RequestBody OtpRequest request) {
+        return otpService.resendOtp(request.getPhoneNumber())
+                .map(otp -> sent(request.getPhoneNumber(), otp, "OTP resent successfully"));
+    }
+
+    private static ResponseEntity<OtpResponse> sent(String phoneNumber, Otp otp, String message) {
+        long expiresInSeconds = Duration.between(LocalDateTime.now(), otp.getExpiresAt()).getSeconds();
+
+        return ResponseEntity.ok(OtpResponse.builder()
+                .message(message)
+                .success(true)
+                .phoneNumber(phoneNumber)
+                .expiresInSeconds(expiresInSeconds)
+                .build());
+    }
+}
@@ -0,0 +1,20 @@
+package com.thehoodjunction.dto;
+
+import com.thehoodjunction.websocket.WebSocketMessage;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatHistoryResponse {
+    // Oldest first
+    private List<WebSocketMessage> messages;
+    // Pass as "before" (or "after" when catching up) to get the next page; null once there are no more
+    private String nextCursor;
+}
@@ -0,0 +1,38 @@
+package com.thehoodjunction.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Auth and OTP lifecycle event published to the {@code app.events.topic} Kafka topic.
+ * Records are keyed by {@link #key}, so all events for one user or phone number land on one partition, in order.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DomainEvent {
+    // Unique per event, for consumers to drop duplicates
+    private String id;
+    private Type type;
+    // Username for user events, phone number for OTP events
+    private String key;
+    private Instant occurredAt;
+    @Builder.Default
+    private Map<String, String> attributes = new HashMap<>();
+
+    public enum Type {
+        USER_REGISTERED,
+        USER_LOGGED_IN,
+        OTP_SENT,
+        OTP_VERIFIED,
+        OTP_VERIFICATION_FAILED,
+        OTP_EXPIRED
+    }
+}
@@ -0,0 +1,38 @@
+package com.thehoodjunction.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * A chat message as stored in the history. {@code (timestamp, id)} orders messages within a room,
+ * and every history query is a range scan of the {@code (room, timestamp, _id)} index.
+ */
+@Document(collection = "chat_messages")
+@CompoundIndex(name = "room_timestamp_id", def = "{'room': 1, 'timestamp': 1, '_id': 1}")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatMessage {
+
+    @Id
+    private String id;
+
+    // "public" or "hood.{hoodId}"
+    private String room;
+
+    private String type;
+
+    private String content;
+
+    private String sender;
+
+    private Instant timestamp;
+}
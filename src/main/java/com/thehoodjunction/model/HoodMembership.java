@@ -0,0 +1,37 @@
+package com.thehoodjunction.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A user's membership of a neighborhood, which admits them to its chat room {@code /topic/hood.{hoodId}}.
+ */
+@Entity
+@Table(name = "hood_members", uniqueConstraints = {
+        // Also serves the per-user lookup made when a member subscribes to a room
+        @UniqueConstraint(name = "uk_hood_members_user_hood", columnNames = {"user_id", "hood_id"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HoodMembership {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "hood_id", nullable = false)
+    private Long hoodId;
+
+    @Column(name = "joined_at", nullable = false)
+    private LocalDateTime joinedAt;
+}
@@ -9,7 +9,12 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "otps")
+@Table(name = "otps", indexes = {
+        // Serves the latest-unused lookup per phone number used by verification and resend
+        @Index(name = "idx_otps_phone_used_created", columnList = "phone_number, used, created_at"),
+        // Serves the batched retention purge
+        @Index(name = "idx_otps_expires_at", columnList = "expires_at")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -20,23 +25,37 @@ public class Otp {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @Column(nullable = false)
+    @Column(name = "phone_number", nullable = false)
     private String phoneNumber;
     
     @Column(nullable = false)
     private String otpValue;
     
-    @Column(nullable = false)
+    @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
     
-    @Column(nullable = false)
+    @Column(name = "expires_at", nullable = false)
     private LocalDateTime expiresAt;
     
     private LocalDateTime verifiedAt;
     
     private boolean used;
     
+    @Enumerated(EnumType.STRING)
+    @Column(name = "delivery_status", length = 16)
+    @Builder.Default
+    private DeliveryStatus deliveryStatus = DeliveryStatus.PENDING;
+    
     public boolean isExpired() {
         return LocalDateTime.now().isAfter(expiresAt);
     }
+    
+    /**
+     * Outcome of handing the OTP to the SMS gateway, recorded after the request has returned
+     */
+    public enum DeliveryStatus {
+        PENDING,
+        SENT,
+        FAILED
+    }
 }
@@ -0,0 +1,63 @@
+package com.thehoodjunction.model;
+
+import com.thehoodjunction.dto.DomainEvent;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * An outbox event the relay could never send, such as an unreadable payload or a record Kafka rejects as too large.
+ * Kept for inspection and replay instead of blocking its lane.
+ */
+@Entity
+@Table(name = "outbox_dead_letters")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxDeadLetter {
+
+    // The id the event had in outbox_events
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private int lane;
+
+    @Column(name = "event_key", nullable = false)
+    private String eventKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private DomainEvent.Type type;
+
+    @Column(nullable = false, length = 4000)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    // Why the relay gave up on it
+    @Column(nullable = false, length = 1000)
+    private String error;
+
+    @Column(name = "failed_at", nullable = false)
+    private Instant failedAt;
+
+    public static OutboxDeadLetter of(OutboxEvent event, String error) {
+        return OutboxDeadLetter.builder()
+                .id(event.getId())
+                .lane(event.getLane())
+                .eventKey(event.getEventKey())
+                .type(event.getType())
+                .payload(event.getPayload())
+                .createdAt(event.getCreatedAt())
+                .error(error.length() > 1000 ? error.substring(0, 1000) : error)
+                .failedAt(Instant.now())
+                .build();
+    }
+}
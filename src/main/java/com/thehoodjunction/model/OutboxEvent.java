@@ -0,0 +1,47 @@
+package com.thehoodjunction.model;
+
+import com.thehoodjunction.dto.DomainEvent;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A domain event waiting to be relayed to Kafka, written in the same transaction as the change it describes.
+ */
+@Entity
+@Table(name = "outbox_events", indexes = {
+        // Serves the relay reading a lane's events in order
+        @Index(name = "idx_outbox_events_lane_id", columnList = "lane, id")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Derived from the event key, so one key's events are always relayed by one worker at a time
+    @Column(nullable = false)
+    private int lane;
+
+    @Column(name = "event_key", nullable = false)
+    private String eventKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private DomainEvent.Type type;
+
+    // The DomainEvent as JSON
+    @Column(nullable = false, length = 4000)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
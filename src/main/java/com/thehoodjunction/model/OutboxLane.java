@@ -0,0 +1,27 @@
+package com.thehoodjunction.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One lane of the outbox. A relay worker locks a lane's row while it relays that lane's events,
+ * so lanes are drained in parallel but each one by a single worker, in order.
+ */
+@Entity
+@Table(name = "outbox_lanes")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxLane {
+
+    @Id
+    private Integer lane;
+
+    // Lanes drained longest ago are claimed first
+    @Column(name = "drained_at", nullable = false)
+    private Instant drainedAt;
+}
@@ -41,13 +41,22 @@ public class User implements UserDetails {
     @ElementCollection(fetch = FetchType.EAGER)
     @CollectionTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id"))
     @Column(name = "role")
+    @Builder.Default
     private Set<String> roles = new HashSet<>();
 
+    @Builder.Default
     private boolean enabled = true;
+    @Builder.Default
     private boolean accountNonExpired = true;
+    @Builder.Default
     private boolean accountNonLocked = true;
+    @Builder.Default
     private boolean credentialsNonExpired = true;
 
+    // Bumped whenever previously issued tokens must stop being accepted
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long tokenVersion;
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return roles.stream()
@@ -0,0 +1,22 @@
+package com.thehoodjunction.repository.jpa;
+
+import com.thehoodjunction.model.HoodMembership;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Set;
+
+@Repository
+public interface HoodMembershipRepository extends JpaRepository<HoodMembership, Long> {
+    @Query("select m.hoodId from HoodMembership m where m.userId = :userId")
+    Set<Long> findHoodIdsByUserId(@Param("userId") Long userId);
+
+    boolean existsByUserIdAndHoodId(Long userId, Long hoodId);
+
+    @Modifying
+    @Query("delete from HoodMembership m where m.userId = :userId and m.hoodId = :hoodId")
+    int deleteByUserIdAndHoodId(@Param("userId") Long userId, @Param("hoodId") Long hoodId);
+}
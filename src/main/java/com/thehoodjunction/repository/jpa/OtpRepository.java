@@ -2,12 +2,32 @@ package com.thehoodjunction.repository.jpa;
 
 import com.thehoodjunction.model.Otp;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
 public interface OtpRepository extends JpaRepository<Otp, Long> {
-    Optional<Otp> findTopByPhoneNumberOrderByCreatedAtDesc(String phoneNumber);
-    Optional<Otp> findByPhoneNumberAndOtpValueAndUsedFalse(String phoneNumber, String otpValue);
+    Optional<Otp> findTopByPhoneNumberAndUsedFalseOrderByCreatedAtDesc(String phoneNumber);
+
+    @Modifying
+    @Query("update Otp o set o.used = true, o.verifiedAt = :verifiedAt where o.id = :id and o.used = false")
+    int markUsed(@Param("id") Long id, @Param("verifiedAt") LocalDateTime verifiedAt);
+
+    @Modifying
+    @Query("update Otp o set o.used = true where o.phoneNumber = :phoneNumber and o.used = false")
+    int markAllUsed(@Param("phoneNumber") String phoneNumber);
+
+    @Modifying
+    @Query("update Otp o set o.deliveryStatus = :status where o.id = :id")
+    int updateDeliveryStatus(@Param("id") Long id, @Param("status") Otp.DeliveryStatus status);
+
+    @Modifying
+    @Query(value = "delete from otps where id in (select id from otps where expires_at < :cutoff limit :batchSize)",
+            nativeQuery = true)
+    int deleteExpiredBefore(@Param("cutoff") LocalDateTime cutoff, @Param("batchSize") int batchSize);
 }
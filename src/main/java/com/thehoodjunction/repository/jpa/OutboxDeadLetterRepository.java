@@ -0,0 +1,9 @@
+package com.thehoodjunction.repository.jpa;
+
+import com.thehoodjunction.model.OutboxDeadLetter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutboxDeadLetterRepository extends JpaRepository<OutboxDeadLetter, Long> {
+}
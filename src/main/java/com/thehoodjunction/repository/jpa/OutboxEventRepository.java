@@ -0,0 +1,13 @@
+package com.thehoodjunction.repository.jpa;
+
+import com.thehoodjunction.model.OutboxEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    List<OutboxEvent> findByLaneOrderByIdAsc(int lane, Limit limit);
+}
@@ -0,0 +1,23 @@
+package com.thehoodjunction.repository.jpa;
+
+import com.thehoodjunction.model.OutboxLane;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OutboxLaneRepository extends JpaRepository<OutboxLane, Integer> {
+    // Lock lanes with events waiting, skipping lanes locked by other workers (FOR UPDATE SKIP LOCKED);
+    // a lock timeout of -2 is Hibernate's SKIP_LOCKED
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select l from OutboxLane l where exists (select 1 from OutboxEvent e where e.lane = l.lane) order by l.drainedAt")
+    List<OutboxLane> claimPending(Limit limit);
+}
@@ -0,0 +1,28 @@
+package com.thehoodjunction.repository.mongodb;
+
+import com.thehoodjunction.model.ChatMessage;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface ChatMessageRepository extends MongoRepository<ChatMessage, String> {
+    // Newest messages of a room, newest first
+    @Query(value = "{ 'room': ?0 }", sort = "{ 'timestamp': -1, '_id': -1 }")
+    List<ChatMessage> findLatest(String room, Limit limit);
+
+    // Messages older than (timestamp, id), newest first
+    @Query(value = "{ 'room': ?0, '$or': [ { 'timestamp': { '$lt': ?1 } }, { 'timestamp': ?1, '_id': { '$lt': ?2 } } ] }",
+            sort = "{ 'timestamp': -1, '_id': -1 }")
+    List<ChatMessage> findBefore(String room, Instant timestamp, ObjectId id, Limit limit);
+
+    // Messages newer than (timestamp, id), oldest first
+    @Query(value = "{ 'room': ?0, '$or': [ { 'timestamp': { '$gt': ?1 } }, { 'timestamp': ?1, '_id': { '$gt': ?2 } } ] }",
+            sort = "{ 'timestamp': 1, '_id': 1 }")
+    List<ChatMessage> findAfter(String room, Instant timestamp, ObjectId id, Limit limit);
+}
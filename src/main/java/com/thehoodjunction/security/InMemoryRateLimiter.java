@@ -0,0 +1,80 @@
+package com.thehoodjunction.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.thehoodjunction.config.RateLimitConfig;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Lock-free rate limiter for a single node.
+ * Each bucket is a single {@link AtomicLong} holding its theoretical arrival time (GCRA, equivalent to a token bucket)
+ * and is updated by compare-and-set. Buckets are dropped once idle for long enough to have refilled.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.rate-limit", name = "backend", havingValue = "memory", matchIfMissing = true)
+public class InMemoryRateLimiter implements RateLimiter {
+
+    private final Cache<String, AtomicLong> buckets;
+
+    public InMemoryRateLimiter(RateLimitConfig rateLimitConfig) {
+        Duration longestRefill = Stream.of(rateLimitConfig.getPerPhone(), rateLimitConfig.getPerIp(), rateLimitConfig.getGlobal())
+                .map(RateLimitConfig.Limit::getRefillPeriod)
+                .max(Duration::compareTo)
+                .orElseThrow();
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(rateLimitConfig.getMemoryMaximumKeys())
+                .expireAfterAccess(longestRefill)
+                .build();
+    }
+
+    @Override
+    public Decision tryAcquire(List<Bucket> requested) {
+        for (int i = 0; i < requested.size(); i++) {
+            Bucket bucket = requested.get(i);
+            long retryAfterNanos = take(bucket);
+            if (retryAfterNanos > 0) {
+                // All or nothing: give back what was already taken
+                for (int j = 0; j < i; j++) {
+                    giveBack(requested.get(j));
+                }
+                return Decision.reject(bucket.name(), Duration.ofNanos(retryAfterNanos));
+            }
+        }
+        return Decision.allow();
+    }
+
+    /**
+     * @return 0 if a token was taken, otherwise nanoseconds until one is available
+     */
+    private long take(Bucket bucket) {
+        AtomicLong theoreticalArrival = buckets.get(bucket.key(), key -> new AtomicLong(Long.MIN_VALUE));
+        long interval = bucket.interval().toNanos();
+        long burst = interval * bucket.limit().getCapacity();
+
+        while (true) {
+            long now = System.nanoTime();
+            long current = theoreticalArrival.get();
+            long next = Math.max(current == Long.MIN_VALUE ? now : current, now) + interval;
+            long wait = next - now - burst;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private void giveBack(Bucket bucket) {
+        AtomicLong theoreticalArrival = buckets.getIfPresent(bucket.key());
+        if (theoreticalArrival != null) {
+            theoreticalArrival.addAndGet(-bucket.interval().toNanos());
+        }
+    }
+}
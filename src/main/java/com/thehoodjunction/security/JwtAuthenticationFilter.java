@@ -7,6 +7,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -20,16 +21,22 @@ import java.io.IOException;
 
 @Component
 @Slf4j
+@Profile("!reactive")
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     @Autowired
     private JwtTokenProvider jwtTokenProvider;
     
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+    
     @Autowired
     private ApplicationContext applicationContext;
     
     private UserDetailsService userDetailsService;
 
+    private final WebAuthenticationDetailsSource authenticationDetailsSource = new WebAuthenticationDetailsSource();
+
     @Override
     protected void doFilterInternal(
             @NonNull HttpServletRequest request,
@@ -45,24 +52,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         try {
             final String jwt = authHeader.substring(7);
-            final String username = jwtTokenProvider.extractUsername(jwt);
+            // Parse and verify the token once; the claims are reused for validation below
+            final TokenClaims claims = jwtTokenProvider.parseToken(jwt);
+            final String username = claims.getUsername();
             
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                // Lazy load UserDetailsService to break circular dependency
-                if (userDetailsService == null) {
-                    userDetailsService = applicationContext.getBean(UserDetailsService.class);
-                }
-                
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                UserDetails userDetails = resolveUser(claims);
                 
-                if (jwtTokenProvider.isTokenValid(jwt, userDetails)) {
+                if (userDetails != null && jwtTokenProvider.isTokenValid(claims, userDetails)) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails,
                             null,
                             userDetails.getAuthorities()
                     );
                     
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    authToken.setDetails(authenticationDetailsSource.buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authToken);
                 }
             }
@@ -72,4 +76,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Stateless tokens are trusted as-is unless revoked; anything else falls back to loading the user.
+     */
+    private UserDetails resolveUser(TokenClaims claims) {
+        if (jwtTokenProvider.isStateless() && claims.hasIdentityClaims()) {
+            if (tokenRevocationService.isRevoked(claims.getUsername(), claims.getTokenVersion())) {
+                log.debug("Rejected revoked token for user {}", claims.getUsername());
+                return null;
+            }
+            return UserPrincipal.fromClaims(claims);
+        }
+        
+        // Lazy load UserDetailsService to break circular dependency
+        if (userDetailsService == null) {
+            userDetailsService = applicationContext.getBean(UserDetailsService.class);
+        }
+        
+        return userDetailsService.loadUserByUsername(claims.getUsername());
+    }
 }
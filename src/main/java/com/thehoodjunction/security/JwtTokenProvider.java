@@ -1,9 +1,11 @@
 package com.thehoodjunction.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
@@ -11,8 +13,10 @@ import org.springframework.stereotype.Component;
 import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Component
 public class JwtTokenProvider {
@@ -23,6 +27,55 @@ public class JwtTokenProvider {
     @Value("${spring.security.jwt.expiration}")
     private long jwtExpirationInMs;
 
+    @Value("${spring.security.jwt.stateless:false}")
+    private boolean stateless;
+
+    static final String USER_ID_CLAIM = "uid";
+    static final String ROLES_CLAIM = "roles";
+    static final String TOKEN_VERSION_CLAIM = "ver";
+
+    // Built once; both are immutable and safe to share between request threads
+    private Key signingKey;
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
+
+    /**
+     * Verify the token signature and expiry and return its claims.
+     *
+     * @param token Compact JWT
+     * @return The verified claims
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, tampered with or expired
+     */
+    public TokenClaims parseToken(String token) {
+        Claims claims = extractAllClaims(token);
+        Number userId = claims.get(USER_ID_CLAIM, Number.class);
+        Number tokenVersion = claims.get(TOKEN_VERSION_CLAIM, Number.class);
+        List<?> roles = claims.get(ROLES_CLAIM, List.class);
+        return TokenClaims.builder()
+                .username(claims.getSubject())
+                .issuedAt(claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null)
+                .expiresAt(claims.getExpiration() != null ? claims.getExpiration().toInstant() : null)
+                .userId(userId != null ? userId.longValue() : null)
+                .tokenVersion(tokenVersion != null ? tokenVersion.longValue() : null)
+                .roles(roles != null ? roles.stream().map(String::valueOf).collect(Collectors.toUnmodifiableSet()) : null)
+                .build();
+    }
+
+    /**
+     * Whether tokens carry identity claims and requests are authenticated from them
+     * without loading the user.
+     */
+    public boolean isStateless() {
+        return stateless;
+    }
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -37,25 +90,20 @@ public class JwtTokenProvider {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
+        return jwtParser
                 .parseClaimsJws(token)
                 .getBody();
     }
 
-    private Key getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
-
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
     public String generateToken(UserDetails userDetails) {
-        return generateToken(new HashMap<>(), userDetails);
+        Map<String, Object> claims = new HashMap<>();
+        if (stateless) {
+            UserPrincipal principal = UserPrincipal.from(userDetails);
+            claims.put(USER_ID_CLAIM, principal.getId());
+            claims.put(ROLES_CLAIM, List.copyOf(principal.getRoles()));
+            claims.put(TOKEN_VERSION_CLAIM, principal.getTokenVersion());
+        }
+        return generateToken(claims, userDetails);
     }
 
     public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
@@ -65,12 +113,15 @@ public class JwtTokenProvider {
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpirationInMs))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    public boolean isTokenValid(TokenClaims claims, UserDetails userDetails) {
+        return claims.getUsername().equals(userDetails.getUsername()) && !claims.isExpired();
+    }
+
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+        return isTokenValid(parseToken(token), userDetails);
     }
 }
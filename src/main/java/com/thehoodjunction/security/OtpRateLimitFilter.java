@@ -0,0 +1,132 @@
+package com.thehoodjunction.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thehoodjunction.config.RateLimitConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Throttles the endpoints that send an SMS, before any database or gateway work happens.
+ * Each request takes a token from its phone number's bucket, its client IP's bucket and a global bucket;
+ * if any of them is empty it is answered with 429 and a {@code Retry-After} header.
+ * The client IP is the request's remote address; behind a proxy set {@code server.forward-headers-strategy}.
+ */
+public class OtpRateLimitFilter extends OncePerRequestFilter {
+
+    private final OtpRateLimitPolicy policy;
+
+    public OtpRateLimitFilter(RateLimiter rateLimiter, RateLimitConfig rateLimitConfig,
+                              ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.policy = new OtpRateLimitPolicy(rateLimiter, rateLimitConfig, objectMapper, meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+        String phoneNumber = policy.readPhoneNumber(cachedRequest.getBody());
+
+        RateLimiter.Decision decision = policy.tryAcquire(phoneNumber, request.getRemoteAddr());
+        if (!decision.allowed()) {
+            long retryAfterSeconds = policy.reject(decision);
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getOutputStream().write(policy.rejectionBody(phoneNumber, retryAfterSeconds));
+            return;
+        }
+
+        filterChain.doFilter(cachedRequest, response);
+    }
+
+    /**
+     * Reads a small body up front so it can be inspected here and read again by the controller
+     */
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+        private final byte[] prefix;
+        private final boolean complete;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.prefix = request.getInputStream().readNBytes(OtpRateLimitPolicy.MAX_BODY_BYTES + 1);
+            this.complete = prefix.length <= OtpRateLimitPolicy.MAX_BODY_BYTES;
+            this.body = complete ? prefix : null;
+        }
+
+        byte[] getBody() {
+            return body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            ServletInputStream remainder = complete ? null : super.getInputStream();
+            ByteArrayInputStream buffered = new ByteArrayInputStream(prefix);
+            return new ServletInputStream() {
+                @Override
+                public int read() throws IOException {
+                    int next = buffered.read();
+                    return next != -1 || remainder == null ? next : remainder.read();
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return buffered.available() == 0 && (remainder == null || remainder.isFinished());
+                }
+
+                @Override
+                public boolean isReady() {
+                    return buffered.available() > 0 || remainder == null || remainder.isReady();
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    if (remainder != null) {
+                        // The container signals the rest of the body; the buffered prefix is read first
+                        remainder.setReadListener(readListener);
+                        return;
+                    }
+                    // The whole body is already in memory, so it can all be read right away
+                    try {
+                        if (buffered.available() > 0) {
+                            readListener.onDataAvailable();
+                        }
+                        readListener.onAllDataRead();
+                    } catch (IOException | RuntimeException e) {
+                        readListener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+    }
+}
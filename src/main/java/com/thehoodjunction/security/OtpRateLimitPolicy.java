@@ -0,0 +1,91 @@
+package com.thehoodjunction.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thehoodjunction.config.RateLimitConfig;
+import com.thehoodjunction.dto.OtpResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What the servlet and reactive OTP rate-limit filters have in common: which buckets a request draws from,
+ * and how a rejection is counted and described.
+ */
+class OtpRateLimitPolicy {
+
+    // OTP requests are tiny; anything larger is not parsed for a phone number
+    static final int MAX_BODY_BYTES = 4096;
+
+    private final RateLimiter rateLimiter;
+    private final RateLimitConfig rateLimitConfig;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    OtpRateLimitPolicy(RateLimiter rateLimiter, RateLimitConfig rateLimitConfig,
+                       ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.rateLimiter = rateLimiter;
+        this.rateLimitConfig = rateLimitConfig;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Take a token from the phone number's, the client IP's and the global bucket
+     *
+     * @param phoneNumber Normalised phone number, or null if the body had none
+     * @param clientIp Client address
+     * @return Whether the request may proceed
+     */
+    RateLimiter.Decision tryAcquire(String phoneNumber, String clientIp) {
+        List<RateLimiter.Bucket> buckets = new ArrayList<>(3);
+        if (phoneNumber != null) {
+            buckets.add(new RateLimiter.Bucket("phone", "otp:phone:" + phoneNumber, rateLimitConfig.getPerPhone()));
+        }
+        buckets.add(new RateLimiter.Bucket("ip", "otp:ip:" + clientIp, rateLimitConfig.getPerIp()));
+        buckets.add(new RateLimiter.Bucket("global", "otp:global", rateLimitConfig.getGlobal()));
+        return rateLimiter.tryAcquire(buckets);
+    }
+
+    String readPhoneNumber(byte[] body) {
+        if (body == null || body.length == 0 || body.length > MAX_BODY_BYTES) {
+            return null;
+        }
+        try {
+            JsonNode phoneNumber = objectMapper.readTree(body).get("phoneNumber");
+            // Formatting variants of the same number share one bucket
+            return phoneNumber != null && phoneNumber.isTextual()
+                    ? phoneNumber.asText().replaceAll("[^0-9+]", "")
+                    : null;
+        } catch (IOException e) {
+            // Malformed bodies still count against the IP and global buckets, and fail validation later
+            return null;
+        }
+    }
+
+    /**
+     * Count a rejection and work out when to retry
+     *
+     * @param decision Rejecting decision
+     * @return Seconds until a token is available, rounded up so clients never retry too early
+     */
+    long reject(RateLimiter.Decision decision) {
+        Counter.builder("otp.rate_limit.rejected")
+                .description("OTP requests rejected by the rate limiter")
+                .tag("bucket", decision.rejectedBy())
+                .register(meterRegistry)
+                .increment();
+        return Math.max(1, (decision.retryAfter().toMillis() + 999) / 1000);
+    }
+
+    byte[] rejectionBody(String phoneNumber, long retryAfterSeconds) throws IOException {
+        return objectMapper.writeValueAsBytes(OtpResponse.builder()
+                .message("Too many OTP requests, try again in " + retryAfterSeconds + " seconds")
+                .success(false)
+                .phoneNumber(phoneNumber)
+                .build());
+    }
+}
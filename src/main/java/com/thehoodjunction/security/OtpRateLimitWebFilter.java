@@ -0,0 +1,128 @@
+package com.thehoodjunction.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thehoodjunction.config.RateLimitConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+/**
+ * {@link OtpRateLimitFilter} for the reactive stack: the same buckets and 429 responses, applied to
+ * {@code app.rate-limit.paths} ahead of Spring Security.
+ */
+public class OtpRateLimitWebFilter implements WebFilter, Ordered {
+
+    // Same as the default spring.codec.max-in-memory-size, which the controller would enforce anyway
+    private static final int MAX_BUFFERED_BYTES = 256 * 1024;
+
+    private final OtpRateLimitPolicy policy;
+    private final List<String> paths;
+    private final Scheduler scheduler;
+
+    /**
+     * @param rateLimiter Limiter holding the buckets
+     * @param rateLimitConfig Limits and paths
+     * @param objectMapper Mapper for request and response bodies
+     * @param meterRegistry Registry for metrics
+     * @param scheduler Scheduler the limiter runs on; it must allow blocking if the limiter blocks
+     */
+    public OtpRateLimitWebFilter(RateLimiter rateLimiter, RateLimitConfig rateLimitConfig, ObjectMapper objectMapper,
+                                 MeterRegistry meterRegistry, Scheduler scheduler) {
+        this.policy = new OtpRateLimitPolicy(rateLimiter, rateLimitConfig, objectMapper, meterRegistry);
+        this.paths = rateLimitConfig.getPaths();
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (request.getMethod() != HttpMethod.POST || !paths.contains(request.getPath().pathWithinApplication().value())) {
+            return chain.filter(exchange);
+        }
+
+        return DataBufferUtils.join(request.getBody(), MAX_BUFFERED_BYTES)
+                .map(OtpRateLimitWebFilter::toBytes)
+                .defaultIfEmpty(new byte[0])
+                .flatMap(body -> {
+                    String phoneNumber = policy.readPhoneNumber(body);
+                    return Mono.fromCallable(() -> policy.tryAcquire(phoneNumber, clientIp(request)))
+                            .subscribeOn(scheduler)
+                            .flatMap(decision -> decision.allowed()
+                                    ? chain.filter(exchange.mutate().request(new CachedBodyRequest(request, body, exchange)).build())
+                                    : reject(exchange.getResponse(), phoneNumber, decision));
+                })
+                .onErrorResume(DataBufferLimitException.class, e -> {
+                    exchange.getResponse().setStatusCode(HttpStatus.PAYLOAD_TOO_LARGE);
+                    return exchange.getResponse().setComplete();
+                });
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 10;
+    }
+
+    private Mono<Void> reject(ServerHttpResponse response, String phoneNumber, RateLimiter.Decision decision) {
+        long retryAfterSeconds = policy.reject(decision);
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(Mono.fromCallable(() ->
+                response.bufferFactory().wrap(policy.rejectionBody(phoneNumber, retryAfterSeconds))));
+    }
+
+    private static String clientIp(ServerHttpRequest request) {
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        return remoteAddress != null && remoteAddress.getAddress() != null
+                ? remoteAddress.getAddress().getHostAddress()
+                : "unknown";
+    }
+
+    private static byte[] toBytes(DataBuffer buffer) {
+        try {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            return bytes;
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    /**
+     * Replays the body that was read to find the phone number
+     */
+    private static class CachedBodyRequest extends ServerHttpRequestDecorator {
+
+        private final byte[] body;
+        private final ServerWebExchange exchange;
+
+        CachedBodyRequest(ServerHttpRequest delegate, byte[] body, ServerWebExchange exchange) {
+            super(delegate);
+            this.body = body;
+            this.exchange = exchange;
+        }
+
+        @Override
+        public Flux<DataBuffer> getBody() {
+            return Flux.defer(() -> Flux.just(exchange.getResponse().bufferFactory().wrap(body)));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.thehoodjunction.security;
+
+import com.thehoodjunction.config.RateLimitConfig;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Token-bucket rate limiter.
+ * Selected with {@code app.rate-limit.backend}: {@code memory} keeps buckets in this node only,
+ * {@code redis} shares them between every node.
+ */
+public interface RateLimiter {
+
+    /**
+     * Take one token from every bucket, or from none of them if any bucket is empty
+     *
+     * @param buckets Buckets the request counts against
+     * @return Whether the request may proceed and, if not, when to retry
+     */
+    Decision tryAcquire(List<Bucket> buckets);
+
+    /**
+     * @param name Name used in metrics, e.g. {@code phone}
+     * @param key Storage key, unique per bucket
+     * @param limit Bucket size and refill rate
+     */
+    record Bucket(String name, String key, RateLimitConfig.Limit limit) {
+
+        /**
+         * @return Time for one token to refill
+         */
+        public Duration interval() {
+            return limit.getRefillPeriod().dividedBy(limit.getCapacity());
+        }
+    }
+
+    /**
+     * @param allowed Whether the tokens were taken
+     * @param rejectedBy Name of the empty bucket when rejected
+     * @param retryAfter How long until the request would be allowed
+     */
+    record Decision(boolean allowed, String rejectedBy, Duration retryAfter) {
+
+        private static final Decision ALLOWED = new Decision(true, null, Duration.ZERO);
+
+        public static Decision allow() {
+            return ALLOWED;
+        }
+
+        public static Decision reject(String rejectedBy, Duration retryAfter) {
+            return new Decision(false, rejectedBy, retryAfter);
+        }
+    }
+}
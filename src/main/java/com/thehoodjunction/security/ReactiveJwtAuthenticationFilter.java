@@ -0,0 +1,75 @@
+package com.thehoodjunction.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+/**
+ * {@link JwtAuthenticationFilter} for the reactive stack.
+ * Stateless tokens are checked against their claims and the revocation list without any I/O;
+ * otherwise the user is loaded through the {@link ReactiveUserDetailsService}.
+ */
+@Slf4j
+public class ReactiveJwtAuthenticationFilter implements WebFilter {
+
+    private final JwtTokenProvider jwtTokenProvider;
+    private final TokenRevocationService tokenRevocationService;
+    private final ReactiveUserDetailsService userDetailsService;
+
+    public ReactiveJwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider, TokenRevocationService tokenRevocationService,
+                                           ReactiveUserDetailsService userDetailsService) {
+        this.jwtTokenProvider = jwtTokenProvider;
+        this.tokenRevocationService = tokenRevocationService;
+        this.userDetailsService = userDetailsService;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return chain.filter(exchange);
+        }
+
+        return authenticate(authHeader.substring(7))
+                .map(Optional::of)
+                .onErrorResume(e -> {
+                    log.error("Could not set user authentication in security context", e);
+                    return Mono.empty();
+                })
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(authentication -> authentication
+                        .map(value -> chain.filter(exchange)
+                                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(value)))
+                        .orElseGet(() -> chain.filter(exchange)));
+    }
+
+    private Mono<Authentication> authenticate(String jwt) {
+        return Mono.fromCallable(() -> jwtTokenProvider.parseToken(jwt))
+                .filter(claims -> claims.getUsername() != null)
+                .flatMap(claims -> resolveUser(claims)
+                        .filter(userDetails -> jwtTokenProvider.isTokenValid(claims, userDetails)))
+                .map(userDetails -> new UsernamePasswordAuthenticationToken(
+                        userDetails, null, userDetails.getAuthorities()));
+    }
+
+    private Mono<UserDetails> resolveUser(TokenClaims claims) {
+        if (jwtTokenProvider.isStateless() && claims.hasIdentityClaims()) {
+            if (tokenRevocationService.isRevoked(claims.getUsername(), claims.getTokenVersion())) {
+                log.debug("Rejected revoked token for user {}", claims.getUsername());
+                return Mono.empty();
+            }
+            return Mono.just(UserPrincipal.fromClaims(claims));
+        }
+        return userDetailsService.findByUsername(claims.getUsername());
+    }
+}
@@ -0,0 +1,79 @@
+package com.thehoodjunction.security;
+
+import com.thehoodjunction.config.RateLimitConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rate limiter shared by every node through Redis.
+ * All buckets of a request are checked and updated by one script, using the Redis clock,
+ * so the check is atomic across nodes and unaffected by clock skew between them.
+ * If Redis is unreachable requests are let through rather than blocking OTP login entirely.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.rate-limit", name = "backend", havingValue = "redis")
+@RequiredArgsConstructor
+@Slf4j
+public class RedisRateLimiter implements RateLimiter {
+
+    // GCRA over every key; returns {0, 0} when allowed, or {index of the empty bucket, microseconds to wait}
+    private static final RedisScript<List> ACQUIRE = new DefaultRedisScript<>(
+            "local time = redis.call('TIME') " +
+            "local now = tonumber(time[1]) * 1000000 + tonumber(time[2]) " +
+            "local updated = {} " +
+            "for i, key in ipairs(KEYS) do " +
+            "  local interval = tonumber(ARGV[2 * i - 1]) " +
+            "  local burst = tonumber(ARGV[2 * i]) " +
+            "  local arrival = tonumber(redis.call('GET', key) or now) " +
+            "  if arrival < now then arrival = now end " +
+            "  local next = arrival + interval " +
+            "  if next - now > burst then return {i, next - now - burst} end " +
+            "  updated[i] = next " +
+            "end " +
+            "for i, key in ipairs(KEYS) do " +
+            // Formatted explicitly: Lua would otherwise store microsecond timestamps in exponent notation
+            "  redis.call('SET', key, string.format('%.0f', updated[i]), 'PX', math.ceil((updated[i] - now) / 1000)) " +
+            "end " +
+            "return {0, 0}",
+            List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final RateLimitConfig rateLimitConfig;
+
+    @Override
+    public Decision tryAcquire(List<Bucket> buckets) {
+        List<String> keys = new ArrayList<>(buckets.size());
+        List<String> args = new ArrayList<>(buckets.size() * 2);
+        for (Bucket bucket : buckets) {
+            long interval = bucket.interval().toNanos() / 1000;
+            keys.add(rateLimitConfig.getRedisKeyPrefix() + bucket.key());
+            args.add(String.valueOf(interval));
+            args.add(String.valueOf(interval * bucket.limit().getCapacity()));
+        }
+
+        List<?> result;
+        try {
+            result = redisTemplate.execute(ACQUIRE, keys, args.toArray());
+        } catch (DataAccessException e) {
+            log.warn("Rate limiter unavailable, allowing request: {}", e.getMessage());
+            return Decision.allow();
+        }
+
+        int rejected = result != null ? ((Number) result.get(0)).intValue() : 0;
+        if (rejected == 0) {
+            return Decision.allow();
+        }
+        long waitMicros = ((Number) result.get(1)).longValue();
+        return Decision.reject(buckets.get(rejected - 1).name(), Duration.ofNanos(waitMicros * 1000));
+    }
+}
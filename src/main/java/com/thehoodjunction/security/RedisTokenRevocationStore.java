@@ -0,0 +1,101 @@
+package com.thehoodjunction.security;
+
+import com.thehoodjunction.config.UserCacheConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shares token revocations between nodes.
+ * Each revocation is stored under its own key, expiring with the token lifetime, and announced
+ * on a channel so running nodes update their local view without polling.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.user-cache.redis", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class RedisTokenRevocationStore {
+
+    // Only ever raise the stored minimum version, even when two nodes race
+    private static final RedisScript<Long> RAISE_MINIMUM_VERSION = new DefaultRedisScript<>(
+            "local current = redis.call('GET', KEYS[1]) " +
+            "if current and tonumber(current) >= tonumber(ARGV[1]) then return 0 end " +
+            "redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2]) " +
+            "return 1",
+            Long.class);
+
+    private static final int SCAN_BATCH_SIZE = 500;
+
+    private final StringRedisTemplate redisTemplate;
+    private final UserCacheConfig userCacheConfig;
+
+    public void publish(String username, long minimumTokenVersion, long ttlMs) {
+        try {
+            redisTemplate.execute(RAISE_MINIMUM_VERSION, List.of(key(username)),
+                    String.valueOf(minimumTokenVersion), String.valueOf(ttlMs));
+            redisTemplate.convertAndSend(userCacheConfig.getRedis().getRevocationChannel(),
+                    encodeEvent(username, minimumTokenVersion));
+        } catch (DataAccessException e) {
+            log.warn("Could not publish token revocation for {}: {}", username, e.getMessage());
+        }
+    }
+
+    /**
+     * Load every revocation still live in Redis, used when a node starts
+     *
+     * @return Minimum accepted token version per username
+     */
+    public Map<String, Long> loadAll() {
+        String prefix = userCacheConfig.getRedis().getRevocationKeyPrefix();
+        List<String> keys = new ArrayList<>();
+        ScanOptions options = ScanOptions.scanOptions().match(prefix + "*").count(SCAN_BATCH_SIZE).build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            cursor.forEachRemaining(keys::add);
+        }
+
+        Map<String, Long> revocations = new HashMap<>();
+        if (keys.isEmpty()) {
+            return revocations;
+        }
+
+        List<String> values = redisTemplate.opsForValue().multiGet(keys);
+        for (int i = 0; i < keys.size(); i++) {
+            String value = values != null ? values.get(i) : null;
+            if (value != null) {
+                revocations.put(keys.get(i).substring(prefix.length()), Long.parseLong(value));
+            }
+        }
+        return revocations;
+    }
+
+    static String encodeEvent(String username, long minimumTokenVersion) {
+        return minimumTokenVersion + ":" + username;
+    }
+
+    /**
+     * Decode a revocation event published by {@link #publish}
+     *
+     * @param event Raw channel message
+     * @return Username mapped to its minimum accepted token version
+     */
+    public static Map.Entry<String, Long> decodeEvent(String event) {
+        int separator = event.indexOf(':');
+        return Map.entry(event.substring(separator + 1), Long.parseLong(event.substring(0, separator)));
+    }
+
+    private String key(String username) {
+        return userCacheConfig.getRedis().getRevocationKeyPrefix() + username;
+    }
+}
@@ -0,0 +1,106 @@
+package com.thehoodjunction.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Profile;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.StompSubProtocolErrorHandler;
+
+/**
+ * Authenticates STOMP sessions from the {@code Authorization: Bearer} header of the CONNECT frame.
+ * Browsers cannot set headers on the WebSocket handshake, so {@code /ws/**} stays open and the token is checked here,
+ * once per session. The resulting user is remembered for the session and attached to every later frame,
+ * so {@code @MessageMapping} methods and user destinations see the verified username without further lookups.
+ * A CONNECT without a valid token is answered with an ERROR frame and the session is closed.
+ */
+@Component
+@Profile("!reactive")
+@Slf4j
+public class StompAuthenticationInterceptor implements ChannelInterceptor {
+
+    private final JwtTokenProvider jwtTokenProvider;
+    private final TokenRevocationService tokenRevocationService;
+    private final UserDetailsService userDetailsService;
+
+    public StompAuthenticationInterceptor(JwtTokenProvider jwtTokenProvider,
+                                          TokenRevocationService tokenRevocationService,
+                                          @Lazy UserDetailsService userDetailsService) {
+        this.jwtTokenProvider = jwtTokenProvider;
+        this.tokenRevocationService = tokenRevocationService;
+        this.userDetailsService = userDetailsService;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.CONNECT) {
+            return message;
+        }
+
+        String authHeader = accessor.getFirstNativeHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            throw new BadCredentialsException("Missing bearer token on STOMP CONNECT");
+        }
+
+        UserDetails userDetails;
+        try {
+            TokenClaims claims = jwtTokenProvider.parseToken(authHeader.substring(7));
+            userDetails = claims.getUsername() != null ? resolveUser(claims) : null;
+            if (userDetails != null && !jwtTokenProvider.isTokenValid(claims, userDetails)) {
+                userDetails = null;
+            }
+        } catch (Exception e) {
+            log.debug("Rejected STOMP CONNECT token", e);
+            userDetails = null;
+        }
+        if (userDetails == null) {
+            throw new BadCredentialsException("Invalid or expired token");
+        }
+
+        // Remembered by the STOMP handler for the rest of the session
+        accessor.setUser(new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+        return message;
+    }
+
+    /**
+     * Stateless tokens are trusted as-is unless revoked; anything else loads the user through the principal cache.
+     */
+    private UserDetails resolveUser(TokenClaims claims) {
+        if (jwtTokenProvider.isStateless() && claims.hasIdentityClaims()) {
+            if (tokenRevocationService.isRevoked(claims.getUsername(), claims.getTokenVersion())) {
+                log.debug("Rejected revoked token for user {}", claims.getUsername());
+                return null;
+            }
+            return UserPrincipal.fromClaims(claims);
+        }
+        return userDetailsService.loadUserByUsername(claims.getUsername());
+    }
+
+    /**
+     * Reports authentication and access failures in the ERROR frame rather than the channel's generic delivery error
+     */
+    public static class ErrorHandler extends StompSubProtocolErrorHandler {
+
+        @Override
+        public Message<byte[]> handleClientMessageProcessingError(Message<byte[]> clientMessage, Throwable ex) {
+            for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+                if (cause instanceof AuthenticationException || cause instanceof AccessDeniedException) {
+                    return super.handleClientMessageProcessingError(clientMessage, cause);
+                }
+            }
+            return super.handleClientMessageProcessingError(clientMessage, ex);
+        }
+    }
+}
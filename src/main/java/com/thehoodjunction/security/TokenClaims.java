@@ -0,0 +1,33 @@
+package com.thehoodjunction.security;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * Immutable view of a verified JWT.
+ * Produced once per request by {@link JwtTokenProvider#parseToken(String)} so the
+ * signature is only checked a single time.
+ */
+@Value
+@Builder
+public class TokenClaims {
+    String username;
+    Instant issuedAt;
+    Instant expiresAt;
+
+    // Identity claims, only present on tokens issued in stateless mode
+    Long userId;
+    Set<String> roles;
+    Long tokenVersion;
+
+    public boolean isExpired() {
+        return expiresAt != null && expiresAt.isBefore(Instant.now());
+    }
+
+    public boolean hasIdentityClaims() {
+        return roles != null && tokenVersion != null;
+    }
+}
@@ -0,0 +1,135 @@
+package com.thehoodjunction.security;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks the minimum token version accepted per user.
+ * Used by stateless authentication in place of loading the user: a token whose
+ * version is lower than the recorded one was issued before a role change, password
+ * change or deletion and is rejected.
+ * With the Redis user cache enabled, revocations are shared with every node through {@link RedisTokenRevocationStore}.
+ * Stateless mode requires it: revocations held only in this node's memory would be lost on restart and never reach
+ * the other nodes, which would keep accepting the revoked tokens.
+ */
+@Component
+@Slf4j
+public class TokenRevocationService {
+
+    private final Map<String, Revocation> revocations = new ConcurrentHashMap<>();
+
+    @Value("${spring.security.jwt.expiration}")
+    private long jwtExpirationInMs;
+
+    @Value("${spring.security.jwt.stateless:false}")
+    private boolean stateless;
+
+    @Autowired(required = false)
+    private RedisTokenRevocationStore sharedStore;
+
+    @PostConstruct
+    void requireSharedStoreWhenStateless() {
+        if (stateless && sharedStore == null) {
+            throw new IllegalStateException("spring.security.jwt.stateless requires app.user-cache.redis.enabled, "
+                    + "so that token revocations survive restarts and reach every node");
+        }
+    }
+
+    /**
+     * Reject every token for the user whose version is lower than the given one.
+     * Inside a transaction this happens once it commits, so a rolled back change revokes nothing.
+     *
+     * @param username Username
+     * @param minimumTokenVersion Lowest token version that is still accepted
+     */
+    public void revokeBefore(String username, long minimumTokenVersion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    revokeNow(username, minimumTokenVersion);
+                }
+            });
+        } else {
+            revokeNow(username, minimumTokenVersion);
+        }
+    }
+
+    /**
+     * Record a revocation made on another node without publishing it again
+     *
+     * @param username Username
+     * @param minimumTokenVersion Lowest token version that is still accepted
+     */
+    public void applyRevocation(String username, long minimumTokenVersion) {
+        revocations.merge(username, new Revocation(minimumTokenVersion, System.currentTimeMillis()),
+                (existing, update) -> existing.minimumTokenVersion() >= update.minimumTokenVersion() ? existing : update);
+    }
+
+    /**
+     * Catch up on revocations made by other nodes before this one started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadSharedRevocations() {
+        if (sharedStore == null) {
+            return;
+        }
+        try {
+            Map<String, Long> shared = sharedStore.loadAll();
+            shared.forEach(this::applyRevocation);
+            log.info("Loaded {} token revocations from Redis", shared.size());
+        } catch (DataAccessException e) {
+            log.warn("Could not load token revocations from Redis: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reject every token ever issued for the user
+     *
+     * @param username Username
+     */
+    public void revokeAll(String username) {
+        revokeBefore(username, Long.MAX_VALUE);
+    }
+
+    public boolean isRevoked(String username, long tokenVersion) {
+        Revocation revocation = revocations.get(username);
+        return revocation != null && tokenVersion < revocation.minimumTokenVersion();
+    }
+
+    /**
+     * Forget revocations older than the token lifetime; every token they could reject has expired by then.
+     */
+    @Scheduled(fixedDelayString = "${spring.security.jwt.revocation-purge-interval-ms:600000}")
+    public void purgeExpired() {
+        long cutoff = System.currentTimeMillis() - jwtExpirationInMs;
+        int before = revocations.size();
+        revocations.values().removeIf(revocation -> revocation.recordedAt() < cutoff);
+        int purged = before - revocations.size();
+        if (purged > 0) {
+            log.debug("Purged {} expired token revocations", purged);
+        }
+    }
+
+    private void revokeNow(String username, long minimumTokenVersion) {
+        applyRevocation(username, minimumTokenVersion);
+        if (sharedStore != null) {
+            sharedStore.publish(username, minimumTokenVersion, jwtExpirationInMs);
+        }
+    }
+
+    private record Revocation(long minimumTokenVersion, long recordedAt) {
+    }
+}
@@ -0,0 +1,115 @@
+package com.thehoodjunction.security;
+
+import com.thehoodjunction.model.User;
+import lombok.Builder;
+import lombok.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable, detached snapshot of a user used as the security principal.
+ * Unlike the JPA {@link User} entity it is safe to share between threads and
+ * can be rebuilt from verified token claims without touching the database.
+ */
+@Value
+@Builder
+public class UserPrincipal implements UserDetails {
+
+    Long id;
+    String username;
+    String password;
+    String email;
+    String fullName;
+    Set<String> roles;
+    List<GrantedAuthority> authorities;
+    long tokenVersion;
+    boolean enabled;
+    boolean accountNonExpired;
+    boolean accountNonLocked;
+    boolean credentialsNonExpired;
+
+    public static UserPrincipal from(User user) {
+        return of(user.getId(), user.getUsername(), user.getPassword(), user.getEmail(), user.getFullName(),
+                user.getRoles(), user.getTokenVersion(), user.isEnabled(), user.isAccountNonExpired(),
+                user.isAccountNonLocked(), user.isCredentialsNonExpired());
+    }
+
+    public static UserPrincipal of(Long id, String username, String password, String email, String fullName,
+                                   Set<String> roles, long tokenVersion, boolean enabled, boolean accountNonExpired,
+                                   boolean accountNonLocked, boolean credentialsNonExpired) {
+        Set<String> roleSet = roles != null ? Set.copyOf(roles) : Set.of();
+        return UserPrincipal.builder()
+                .id(id)
+                .username(username)
+                .password(password)
+                .email(email)
+                .fullName(fullName)
+                .roles(roleSet)
+                .authorities(toAuthorities(roleSet))
+                .tokenVersion(tokenVersion)
+                .enabled(enabled)
+                .accountNonExpired(accountNonExpired)
+                .accountNonLocked(accountNonLocked)
+                .credentialsNonExpired(credentialsNonExpired)
+                .build();
+    }
+
+    public static UserPrincipal from(UserDetails userDetails) {
+        if (userDetails instanceof UserPrincipal principal) {
+            return principal;
+        }
+        if (userDetails instanceof User user) {
+            return from(user);
+        }
+        Set<String> roles = userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .map(authority -> authority.startsWith("ROLE_") ? authority.substring(5) : authority)
+                .collect(Collectors.toUnmodifiableSet());
+        return UserPrincipal.builder()
+                .username(userDetails.getUsername())
+                .password(userDetails.getPassword())
+                .roles(roles)
+                .authorities(toAuthorities(roles))
+                .enabled(userDetails.isEnabled())
+                .accountNonExpired(userDetails.isAccountNonExpired())
+                .accountNonLocked(userDetails.isAccountNonLocked())
+                .credentialsNonExpired(userDetails.isCredentialsNonExpired())
+                .build();
+    }
+
+    /**
+     * Build a principal from the identity claims of a verified token.
+     * The password is never part of a token, so the result cannot be used for password checks.
+     */
+    public static UserPrincipal fromClaims(TokenClaims claims) {
+        Set<String> roles = claims.getRoles() != null ? claims.getRoles() : Set.of();
+        return UserPrincipal.builder()
+                .id(claims.getUserId())
+                .username(claims.getUsername())
+                .roles(roles)
+                .authorities(toAuthorities(roles))
+                .tokenVersion(claims.getTokenVersion() != null ? claims.getTokenVersion() : 0L)
+                .enabled(true)
+                .accountNonExpired(true)
+                .accountNonLocked(true)
+                .credentialsNonExpired(true)
+                .build();
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    private static List<GrantedAuthority> toAuthorities(Set<String> roles) {
+        return roles.stream()
+                .map(role -> (GrantedAuthority) new SimpleGrantedAuthority("ROLE_" + role))
+                .toList();
+    }
+}
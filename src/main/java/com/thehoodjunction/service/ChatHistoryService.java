@@ -0,0 +1,166 @@
+package com.thehoodjunction.service;
+
+import com.thehoodjunction.config.ChatHistoryConfig;
+import com.thehoodjunction.dto.ChatHistoryResponse;
+import com.thehoodjunction.model.ChatMessage;
+import com.thehoodjunction.repository.mongodb.ChatMessageRepository;
+import com.thehoodjunction.websocket.WebSocketMessage;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Chat history per room ({@code public} or {@code hood.{hoodId}}).
+ * Broadcast messages get an id and server timestamp and are handed to the {@link ChatHistoryWriter}.
+ * Reads are keyset-paginated on {@code (timestamp, id)}: a cursor names the last message a client has,
+ * so each page is one index range scan however deep it is, and a client that reconnects asks for
+ * everything after the last message it saw instead of reloading the room.
+ */
+@Service
+@Profile("!reactive")
+@RequiredArgsConstructor
+public class ChatHistoryService {
+
+    private static final Comparator<ChatMessage> CHRONOLOGICAL =
+            Comparator.comparing(ChatMessage::getTimestamp).thenComparing(ChatMessage::getId);
+
+    private final ChatHistoryConfig chatHistoryConfig;
+    private final ChatMessageRepository chatMessageRepository;
+    private final ChatHistoryWriter chatHistoryWriter;
+
+    /**
+     * Stamp a message about to be broadcast and queue it for the history
+     *
+     * @param room Room the message is broadcast to
+     * @param message Message from the client; its id and timestamp are replaced
+     * @return The same message, ready to broadcast
+     */
+    public WebSocketMessage record(String room, WebSocketMessage message) {
+        // Millisecond precision, as stored by MongoDB, so cursors built from live messages match stored ones
+        Instant timestamp = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        ChatMessage chatMessage = ChatMessage.builder()
+                .id(ObjectId.get().toHexString())
+                .room(room)
+                .type(message.getType())
+                .content(message.getContent())
+                .sender(message.getSender())
+                .timestamp(timestamp)
+                .build();
+        if (chatHistoryConfig.isEnabled()) {
+            chatHistoryWriter.append(chatMessage);
+        }
+        message.setId(cursor(chatMessage));
+        message.setRoom(room);
+        message.setTimestamp(LocalDateTime.ofInstant(timestamp, ZoneId.systemDefault()));
+        return message;
+    }
+
+    /**
+     * One page of a room's history. With neither cursor, returns the latest messages
+     *
+     * @param room Room
+     * @param before Cursor: return messages older than this one
+     * @param after Cursor: return messages newer than this one, to catch up after a reconnect
+     * @param limit Page size, capped at {@code app.chat-history.max-page-size}
+     * @return Messages oldest first, with the cursor for the next page in the same direction
+     * @throws ResponseStatusException 400 for a malformed cursor or both cursors at once
+     */
+    public ChatHistoryResponse history(String room, String before, String after, Integer limit) {
+        if (before != null && after != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Use either before or after, not both");
+        }
+        int pageSize = Math.min(limit != null && limit > 0 ? limit : chatHistoryConfig.getDefaultPageSize(),
+                chatHistoryConfig.getMaxPageSize());
+
+        List<ChatMessage> page;
+        if (after != null) {
+            ChatMessage cursor = parseCursor(after);
+            page = merge(chatMessageRepository.findAfter(room, cursor.getTimestamp(), new ObjectId(cursor.getId()),
+                    Limit.of(pageSize)), room, message -> CHRONOLOGICAL.compare(message, cursor) > 0, pageSize, false);
+        } else if (before != null) {
+            ChatMessage cursor = parseCursor(before);
+            page = merge(chatMessageRepository.findBefore(room, cursor.getTimestamp(), new ObjectId(cursor.getId()),
+                    Limit.of(pageSize)), room, message -> CHRONOLOGICAL.compare(message, cursor) < 0, pageSize, true);
+        } else {
+            page = merge(chatMessageRepository.findLatest(room, Limit.of(pageSize)), room, message -> true,
+                    pageSize, true);
+        }
+
+        // A short page means the client has reached the end in that direction
+        String nextCursor = null;
+        if (page.size() == pageSize) {
+            nextCursor = cursor(after != null ? page.get(page.size() - 1) : page.get(0));
+        }
+        return ChatHistoryResponse.builder()
+                .messages(page.stream().map(ChatHistoryService::toWebSocketMessage).toList())
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * Add messages still in the write-behind buffer and keep the page nearest the cursor, oldest first
+     */
+    private List<ChatMessage> merge(List<ChatMessage> stored, String room, Predicate<ChatMessage> inRange,
+                                    int pageSize, boolean newest) {
+        Map<String, ChatMessage> byId = new LinkedHashMap<>();
+        stored.forEach(message -> byId.put(message.getId(), message));
+        chatHistoryWriter.unwritten(room).stream()
+                .filter(inRange)
+                .forEach(message -> byId.putIfAbsent(message.getId(), message));
+
+        List<ChatMessage> messages = new ArrayList<>(byId.values());
+        messages.sort(CHRONOLOGICAL);
+        if (messages.size() > pageSize) {
+            messages = newest
+                    ? messages.subList(messages.size() - pageSize, messages.size())
+                    : messages.subList(0, pageSize);
+        }
+        return messages;
+    }
+
+    static String cursor(ChatMessage message) {
+        return message.getTimestamp().toEpochMilli() + "-" + message.getId();
+    }
+
+    static ChatMessage parseCursor(String cursor) {
+        int separator = cursor.indexOf('-');
+        try {
+            String id = cursor.substring(separator + 1);
+            if (separator <= 0 || !ObjectId.isValid(id)) {
+                throw new IllegalArgumentException(cursor);
+            }
+            return ChatMessage.builder()
+                    .id(id)
+                    .timestamp(Instant.ofEpochMilli(Long.parseLong(cursor.substring(0, separator))))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    private static WebSocketMessage toWebSocketMessage(ChatMessage message) {
+        return WebSocketMessage.builder()
+                .id(cursor(message))
+                .room(message.getRoom())
+                .type(message.getType())
+                .content(message.getContent())
+                .sender(message.getSender())
+                .timestamp(LocalDateTime.ofInstant(message.getTimestamp(), ZoneId.systemDefault()))
+                .build();
+    }
+}
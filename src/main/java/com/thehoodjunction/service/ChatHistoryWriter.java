@@ -0,0 +1,166 @@
+package com.thehoodjunction.service;
+
+import com.thehoodjunction.model.ChatMessage;
+import com.thehoodjunction.repository.mongodb.ChatMessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind buffer for chat history. Messages are queued by the broadcasting thread and inserted into MongoDB
+ * in batches by a single background thread, so chat delivery never waits for the database.
+ * A batch is written once it holds {@code batch-size} messages or its first message has waited {@code flush-interval}.
+ * When the queue is full, or a batch fails to insert, those messages are dropped from the history
+ * (they have already been delivered live) and counted in {@code chat.history.dropped}.
+ * Messages not yet written are still visible through {@link #unwritten(String)} so history reads miss nothing.
+ */
+@Slf4j
+public class ChatHistoryWriter implements AutoCloseable {
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final BlockingQueue<ChatMessage> queue;
+    // Everything accepted but not yet inserted, whether still queued or in the batch being written
+    private final Set<ChatMessage> unwritten = ConcurrentHashMap.newKeySet();
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    private final Counter written;
+    private final Counter droppedOverflow;
+    private final Counter droppedFailure;
+    private final Timer batchTimer;
+
+    /**
+     * @param chatMessageRepository Target collection
+     * @param queueCapacity Messages that may wait to be written
+     * @param batchSize Most messages per insert
+     * @param flushInterval Longest a message waits for its batch to fill
+     * @param meterRegistry Registry for buffer metrics
+     */
+    public ChatHistoryWriter(ChatMessageRepository chatMessageRepository, int queueCapacity, int batchSize,
+                             Duration flushInterval, MeterRegistry meterRegistry) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+
+        Gauge.builder("chat.history.pending", unwritten, Set::size)
+                .description("Chat messages accepted but not yet written to MongoDB")
+                .register(meterRegistry);
+        this.written = Counter.builder("chat.history.written")
+                .description("Chat messages written to MongoDB")
+                .register(meterRegistry);
+        this.droppedOverflow = Counter.builder("chat.history.dropped")
+                .description("Chat messages left out of the history")
+                .tag("reason", "overflow")
+                .register(meterRegistry);
+        this.droppedFailure = Counter.builder("chat.history.dropped")
+                .description("Chat messages left out of the history")
+                .tag("reason", "failure")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("chat.history.batch")
+                .description("Time to insert one batch of chat messages")
+                .register(meterRegistry);
+
+        this.thread = new Thread(this::run, "chat-history-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queue a message for writing. Never blocks
+     *
+     * @param message Message with its id and timestamp already assigned
+     * @return False if the buffer was full and the message was dropped
+     */
+    public boolean append(ChatMessage message) {
+        unwritten.add(message);
+        if (!queue.offer(message)) {
+            unwritten.remove(message);
+            droppedOverflow.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param room Room
+     * @return Messages of the room that are not in MongoDB yet, in no particular order
+     */
+    public List<ChatMessage> unwritten(String room) {
+        List<ChatMessage> messages = new ArrayList<>();
+        for (ChatMessage message : unwritten) {
+            if (message.getRoom().equals(room)) {
+                messages.add(message);
+            }
+        }
+        return messages;
+    }
+
+    private void run() {
+        List<ChatMessage> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                ChatMessage first = queue.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushInterval.toNanos();
+                while (batch.size() < batchSize && running) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    ChatMessage next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<ChatMessage> batch) {
+        try {
+            batchTimer.record(() -> chatMessageRepository.insert(batch));
+            written.increment(batch.size());
+        } catch (RuntimeException e) {
+            droppedFailure.increment(batch.size());
+            log.warn("Could not write {} chat messages to history", batch.size(), e);
+        } finally {
+            batch.forEach(unwritten::remove);
+        }
+    }
+
+    /**
+     * Stop waiting for new messages and write out whatever is queued
+     */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        thread.join(Duration.ofSeconds(10).toMillis());
+        if (!queue.isEmpty()) {
+            log.warn("{} chat messages were not written to history before shutdown", queue.size());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.thehoodjunction.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thehoodjunction.dto.DomainEvent;
+import com.thehoodjunction.model.OutboxEvent;
+import com.thehoodjunction.repository.jpa.OutboxEventRepository;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Publishes {@link DomainEvent}s through the transactional outbox.
+ * Each event is inserted into {@code outbox_events} in the caller's transaction, if there is one, so it is recorded
+ * exactly when the change it describes is committed. {@link OutboxRelay} then sends it to Kafka in the background;
+ * publishing only ever costs the request a local insert.
+ */
+public class DomainEventPublisher {
+
+    private final boolean enabled;
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+    private final int lanes;
+
+    /**
+     * @param enabled Whether events are published at all; when false, {@link #publish} does nothing
+     * @param outboxEventRepository Outbox table
+     * @param objectMapper Mapper for the stored payload
+     * @param lanes Number of outbox lanes events are spread over by key
+     */
+    public DomainEventPublisher(boolean enabled, OutboxEventRepository outboxEventRepository,
+                                ObjectMapper objectMapper, int lanes) {
+        this.enabled = enabled;
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+        this.lanes = lanes;
+    }
+
+    /**
+     * Publish an event, as part of the current transaction if there is one. Blocks for a local insert.
+     *
+     * @param type Event type
+     * @param key Username or phone number the event is about; also the record key
+     * @param attributes Event details
+     */
+    public void publish(DomainEvent.Type type, String key, Map<String, String> attributes) {
+        if (!enabled) {
+            return;
+        }
+        DomainEvent event = DomainEvent.builder()
+                .id(UUID.randomUUID().toString())
+                .type(type)
+                .key(key)
+                .occurredAt(Instant.now())
+                .attributes(attributes)
+                .build();
+        try {
+            outboxEventRepository.save(OutboxEvent.builder()
+                    .lane(laneOf(key))
+                    .eventKey(key)
+                    .type(type)
+                    .payload(objectMapper.writeValueAsString(event))
+                    .createdAt(event.getOccurredAt())
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + type + " event", e);
+        }
+    }
+
+    int laneOf(String key) {
+        return Math.floorMod(key.hashCode(), lanes);
+    }
+}
@@ -0,0 +1,101 @@
+package com.thehoodjunction.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.thehoodjunction.config.UserCacheConfig;
+import com.thehoodjunction.model.HoodMembership;
+import com.thehoodjunction.repository.jpa.HoodMembershipRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Which neighborhoods each user belongs to, checked whenever a client subscribes or posts to a room.
+ * Each user's memberships are cached with the same size and TTL as {@code app.user-cache}, so a subscribe costs no
+ * query once the user is cached. Changes made on this node take effect immediately; other nodes see them within the TTL.
+ */
+@Service
+public class HoodMembershipService {
+
+    static final String CACHE_NAME = "hoodMemberships";
+
+    private final HoodMembershipRepository hoodMembershipRepository;
+    private final LoadingCache<Long, Set<Long>> cache;
+
+    public HoodMembershipService(HoodMembershipRepository hoodMembershipRepository, UserCacheConfig userCacheConfig,
+                                 MeterRegistry meterRegistry) {
+        this.hoodMembershipRepository = hoodMembershipRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(userCacheConfig.getMaximumSize())
+                .expireAfterWrite(userCacheConfig.getTtl())
+                .recordStats()
+                .build(userId -> Set.copyOf(hoodMembershipRepository.findHoodIdsByUserId(userId)));
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * @param userId User
+     * @param hoodId Neighborhood
+     * @return Whether the user may join the neighborhood's room
+     */
+    public boolean isMember(Long userId, long hoodId) {
+        return userId != null && cache.get(userId).contains(hoodId);
+    }
+
+    /**
+     * @param userId User
+     * @return Neighborhoods the user belongs to
+     */
+    public Set<Long> hoodIds(Long userId) {
+        return cache.get(userId);
+    }
+
+    /**
+     * Add a user to a neighborhood. Does nothing if they are already a member
+     *
+     * @param userId User
+     * @param hoodId Neighborhood
+     */
+    @Transactional
+    public void join(Long userId, long hoodId) {
+        if (!hoodMembershipRepository.existsByUserIdAndHoodId(userId, hoodId)) {
+            hoodMembershipRepository.save(HoodMembership.builder()
+                    .userId(userId)
+                    .hoodId(hoodId)
+                    .joinedAt(LocalDateTime.now())
+                    .build());
+        }
+        invalidate(userId);
+    }
+
+    /**
+     * Remove a user from a neighborhood. Subscriptions they already hold stay open until they reconnect
+     *
+     * @param userId User
+     * @param hoodId Neighborhood
+     */
+    @Transactional
+    public void leave(Long userId, long hoodId) {
+        hoodMembershipRepository.deleteByUserIdAndHoodId(userId, hoodId);
+        invalidate(userId);
+    }
+
+    // Evicted again after commit so a concurrent subscribe cannot re-cache the pre-commit memberships
+    private void invalidate(Long userId) {
+        cache.invalidate(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(userId);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.thehoodjunction.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.thehoodjunction.config.OtpConfig;
+import com.thehoodjunction.model.Otp;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * OTP store backed by a bounded, expiring in-process map.
+ * Each entry expires with its OTP, so nothing has to be swept. Only suitable for a single node.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.otp", name = "store", havingValue = "memory")
+public class InMemoryOtpStore implements OtpStore {
+
+    private final Cache<String, Otp> otps;
+
+    public InMemoryOtpStore(OtpConfig otpConfig) {
+        this.otps = Caffeine.newBuilder()
+                .maximumSize(otpConfig.getMemoryMaximumSize())
+                .expireAfter(new Expiry<String, Otp>() {
+                    @Override
+                    public long expireAfterCreate(String phoneNumber, Otp otp, long currentTime) {
+                        return remainingNanos(otp);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String phoneNumber, Otp otp, long currentTime, long currentDuration) {
+                        return remainingNanos(otp);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String phoneNumber, Otp otp, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public Otp save(Otp otp) {
+        otps.put(otp.getPhoneNumber(), copyOf(otp));
+        return otp;
+    }
+
+    @Override
+    public boolean verifyAndConsume(String phoneNumber, String otpValue) {
+        Otp otp = otps.getIfPresent(phoneNumber);
+        if (otp == null || otp.isExpired() || !otp.getOtpValue().equals(otpValue)) {
+            return false;
+        }
+        // Only the caller that removes the entry wins, so an OTP is consumed at most once
+        return otps.asMap().remove(phoneNumber, otp);
+    }
+
+    @Override
+    public Optional<Otp> findActive(String phoneNumber) {
+        return Optional.ofNullable(otps.getIfPresent(phoneNumber))
+                .filter(otp -> !otp.isExpired())
+                .map(InMemoryOtpStore::copyOf);
+    }
+
+    @Override
+    public void invalidate(String phoneNumber) {
+        otps.invalidate(phoneNumber);
+    }
+
+    @Override
+    public void updateDeliveryStatus(Otp otp, Otp.DeliveryStatus status) {
+        otps.asMap().computeIfPresent(otp.getPhoneNumber(), (phoneNumber, current) -> {
+            if (!isSameIssue(current, otp)) {
+                return current;
+            }
+            Otp updated = copyOf(current);
+            updated.setDeliveryStatus(status);
+            return updated;
+        });
+    }
+
+    private static boolean isSameIssue(Otp stored, Otp otp) {
+        return stored.getOtpValue().equals(otp.getOtpValue()) && stored.getCreatedAt().equals(otp.getCreatedAt());
+    }
+
+    private static long remainingNanos(Otp otp) {
+        return Math.max(0, Duration.between(LocalDateTime.now(), otp.getExpiresAt()).toNanos());
+    }
+
+    // Entries are never handed out, so callers cannot mutate what is stored
+    private static Otp copyOf(Otp otp) {
+        return Otp.builder()
+                .phoneNumber(otp.getPhoneNumber())
+                .otpValue(otp.getOtpValue())
+                .createdAt(otp.getCreatedAt())
+                .expiresAt(otp.getExpiresAt())
+                .used(otp.isUsed())
+                .deliveryStatus(otp.getDeliveryStatus())
+                .build();
+    }
+}
@@ -0,0 +1,83 @@
+package com.thehoodjunction.service;
+
+import com.thehoodjunction.model.Otp;
+import com.thehoodjunction.repository.jpa.OtpRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * OTP store backed by the relational {@code otps} table.
+ * Every lookup reads at most the latest unused row for a phone number through
+ * {@code idx_otps_phone_used_created}; the submitted value is compared in memory.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.otp", name = "store", havingValue = "jpa", matchIfMissing = true)
+@RequiredArgsConstructor
+public class JpaOtpStore implements OtpStore {
+
+    private final OtpRepository otpRepository;
+
+    @Override
+    public Otp save(Otp otp) {
+        return otpRepository.save(otp);
+    }
+
+    @Override
+    @Transactional
+    public boolean verifyAndConsume(String phoneNumber, String otpValue) {
+        Optional<Otp> otpOptional = otpRepository.findTopByPhoneNumberAndUsedFalseOrderByCreatedAtDesc(phoneNumber);
+
+        if (otpOptional.isPresent()) {
+            Otp otp = otpOptional.get();
+
+            if (otp.isExpired() || !matches(otp.getOtpValue(), otpValue)) {
+                return false;
+            }
+
+            // Conditional update, so only one concurrent verification can consume the OTP
+            return otpRepository.markUsed(otp.getId(), LocalDateTime.now()) == 1;
+        }
+
+        return false;
+    }
+
+    @Override
+    public Optional<Otp> findActive(String phoneNumber) {
+        return otpRepository.findTopByPhoneNumberAndUsedFalseOrderByCreatedAtDesc(phoneNumber)
+                .filter(otp -> !otp.isExpired());
+    }
+
+    @Override
+    @Transactional
+    public void invalidate(String phoneNumber) {
+        otpRepository.markAllUsed(phoneNumber);
+    }
+
+    @Override
+    @Transactional
+    public void updateDeliveryStatus(Otp otp, Otp.DeliveryStatus status) {
+        otpRepository.updateDeliveryStatus(otp.getId(), status);
+    }
+
+    @Override
+    public boolean expiredUnverified(Otp otp) {
+        // Rows replaced by a newer OTP are marked used too, but only verification sets verifiedAt
+        return otpRepository.findById(otp.getId()).map(stored -> stored.getVerifiedAt() == null).orElse(false);
+    }
+
+    @Override
+    public boolean isTransactional() {
+        return true;
+    }
+
+    private static boolean matches(String expected, String actual) {
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8), actual.getBytes(StandardCharsets.UTF_8));
+    }
+}
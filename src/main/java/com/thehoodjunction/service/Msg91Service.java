@@ -1,19 +1,14 @@
 package com.thehoodjunction.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.thehoodjunction.config.Msg91Config;
 import com.thehoodjunction.model.Otp;
-import com.thehoodjunction.repository.jpa.OtpRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import okhttp3.*;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.io.IOException;
 import java.time.LocalDateTime;
-import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -21,40 +16,21 @@ import java.util.Optional;
 public class Msg91Service {
 
     private final Msg91Config msg91Config;
-    private final OtpRepository otpRepository;
-    private final ObjectMapper objectMapper;
-    private final OkHttpClient httpClient = new OkHttpClient();
+    private final OtpStore otpStore;
+    private final OtpDispatcher otpDispatcher;
+    private final OtpLifecycleEvents otpLifecycleEvents;
+    private final TransactionTemplate transactionTemplate;
 
     /**
-     * Generate and send OTP to the provided phone number
+     * Generate and send OTP to the provided phone number.
+     * The OTP is stored and handed to {@link OtpDispatcher}; delivery completes after this returns
+     * and is recorded as the OTP's delivery status.
      * 
      * @param phoneNumber Phone number to send OTP to (with country code)
      * @return The generated OTP entity
      */
     public Otp generateAndSendOtp(String phoneNumber) {
-        // Generate OTP
-        String otpValue = generateOtp();
-        
-        // Save OTP to database
-        Otp otp = Otp.builder()
-                .phoneNumber(phoneNumber)
-                .otpValue(otpValue)
-                .createdAt(LocalDateTime.now())
-                .expiresAt(LocalDateTime.now().plusMinutes(msg91Config.getOtpExpiryMinutes()))
-                .used(false)
-                .build();
-        
-        otpRepository.save(otp);
-        
-        // Send OTP via MSG91
-        boolean sent = sendOtpViaMSG91(phoneNumber, otpValue);
-        
-        if (!sent) {
-            log.error("Failed to send OTP to {}", phoneNumber);
-            throw new RuntimeException("Failed to send OTP");
-        }
-        
-        return otp;
+        return send(phoneNumber, false);
     }
     
     /**
@@ -65,77 +41,42 @@ public class Msg91Service {
      * @return true if OTP is valid, false otherwise
      */
     public boolean verifyOtp(String phoneNumber, String otpValue) {
-        Optional<Otp> otpOptional = otpRepository.findByPhoneNumberAndOtpValueAndUsedFalse(phoneNumber, otpValue);
-        
-        if (otpOptional.isPresent()) {
-            Otp otp = otpOptional.get();
-            
-            if (otp.isExpired()) {
-                return false;
-            }
-            
-            // Mark OTP as used
-            otp.setVerifiedAt(LocalDateTime.now());
-            otp.setUsed(true);
-            otpRepository.save(otp);
-            
-            return true;
+        if (!otpStore.isTransactional()) {
+            // The store commits the consume itself, so a failed event must not turn a used OTP into an error
+            boolean valid = otpStore.verifyAndConsume(phoneNumber, otpValue);
+            otpLifecycleEvents.recordCommitted(phoneNumber, () -> otpLifecycleEvents.verified(phoneNumber, valid));
+            return valid;
         }
-        
-        return false;
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            boolean valid = otpStore.verifyAndConsume(phoneNumber, otpValue);
+            otpLifecycleEvents.verified(phoneNumber, valid);
+            return valid;
+        }));
     }
     
     /**
-     * Generate a random OTP
+     * Build a new, not yet stored OTP for a phone number
      * 
-     * @return Generated OTP
+     * @param phoneNumber Phone number the OTP is for
+     * @return OTP with a random value and the configured expiry
      */
-    private String generateOtp() {
-        return RandomStringUtils.randomNumeric(msg91Config.getOtpLength());
+    public Otp newOtp(String phoneNumber) {
+        return Otp.builder()
+                .phoneNumber(phoneNumber)
+                .otpValue(generateOtp())
+                .createdAt(LocalDateTime.now())
+                .expiresAt(LocalDateTime.now().plusMinutes(msg91Config.getOtpExpiryMinutes()))
+                .used(false)
+                .build();
     }
     
     /**
-     * Send OTP via MSG91 API
+     * Generate a random OTP
      * 
-     * @param phoneNumber Phone number to send OTP to
-     * @param otpValue OTP value to send
-     * @return true if OTP was sent successfully, false otherwise
+     * @return Generated OTP
      */
-    private boolean sendOtpViaMSG91(String phoneNumber, String otpValue) {
-        try {
-            // For sending OTP via MSG91
-            HttpUrl url = HttpUrl.parse("https://api.msg91.com/api/v5/otp")
-                    .newBuilder()
-                    .addQueryParameter("template_id", msg91Config.getOtpTemplateId())
-                    .addQueryParameter("mobile", phoneNumber)
-                    .addQueryParameter("authkey", msg91Config.getAuthKey())
-                    .addQueryParameter("otp", otpValue)
-                    .build();
-            
-            Request request = new Request.Builder()
-                    .url(url)
-                    .build();
-            
-            try (Response response = httpClient.newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    log.error("Error sending OTP: {}", response);
-                    return false;
-                }
-                
-                ResponseBody responseBody = response.body();
-                if (responseBody != null) {
-                    String responseString = responseBody.string();
-                    JsonNode jsonNode = objectMapper.readTree(responseString);
-                    String type = jsonNode.get("type").asText();
-                    return "success".equalsIgnoreCase(type);
-                }
-            }
-            
-            return false;
-        } catch (IOException e) {
-            log.error("Error sending OTP", e);
-            return false;
-        }
+    private String generateOtp() {
+        return RandomStringUtils.randomNumeric(msg91Config.getOtpLength());
     }
     
     /**
@@ -145,14 +86,42 @@ public class Msg91Service {
      * @return The new OTP entity
      */
     public Otp resendOtp(String phoneNumber) {
-        // Invalidate any existing OTPs
-        Optional<Otp> existingOtp = otpRepository.findTopByPhoneNumberOrderByCreatedAtDesc(phoneNumber);
-        existingOtp.ifPresent(otp -> {
-            otp.setUsed(true);
-            otpRepository.save(otp);
-        });
+        return send(phoneNumber, true);
+    }
+    
+    private Otp send(String phoneNumber, boolean resend) {
+        // Reserve the delivery first, so a rejected request keeps the previous OTP and records nothing
+        OtpDispatcher.Admission admission = otpDispatcher.admit();
+        Otp saved;
+        try {
+            // Save OTP to the configured store; with the jpa store, in the same transaction as its OTP_SENT event
+            if (otpStore.isTransactional()) {
+                saved = transactionTemplate.execute(status -> {
+                    Otp otp = issue(phoneNumber, resend);
+                    otpLifecycleEvents.sent(otp, resend);
+                    return otp;
+                });
+            } else {
+                Otp otp = issue(phoneNumber, resend);
+                otpLifecycleEvents.recordCommitted(phoneNumber, () -> otpLifecycleEvents.sent(otp, resend));
+                saved = otp;
+            }
+        } catch (RuntimeException e) {
+            admission.release();
+            throw e;
+        }
         
-        // Generate and send new OTP
-        return generateAndSendOtp(phoneNumber);
+        // Send OTP via MSG91 in the background, once the OTP is committed and can take its delivery status
+        otpDispatcher.dispatch(admission, saved, resend, otpStore::updateDeliveryStatus);
+        
+        return saved;
+    }
+
+    private Otp issue(String phoneNumber, boolean resend) {
+        if (resend) {
+            // Invalidate any existing OTPs
+            otpStore.invalidate(phoneNumber);
+        }
+        return otpStore.save(newOtp(phoneNumber));
     }
 }
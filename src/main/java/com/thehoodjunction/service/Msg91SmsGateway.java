@@ -0,0 +1,113 @@
+package com.thehoodjunction.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.*;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends OTPs through the MSG91 OTP API using OkHttp's asynchronous calls.
+ */
+public class Msg91SmsGateway implements SmsGateway {
+
+    private final String name;
+    private final OkHttpClient httpClient;
+    private final HttpUrl otpUrl;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @param name Name used in logs and metrics
+     * @param httpClient Shared HTTP client
+     * @param otpUrl OTP endpoint with the template and auth key applied
+     * @param objectMapper Mapper for response bodies
+     */
+    public Msg91SmsGateway(String name, OkHttpClient httpClient, HttpUrl otpUrl, ObjectMapper objectMapper) {
+        this.name = name;
+        this.httpClient = httpClient;
+        this.otpUrl = otpUrl;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public CompletableFuture<Void> sendOtp(String phoneNumber, String otpValue) {
+        HttpUrl url = otpUrl.newBuilder()
+                .addQueryParameter("mobile", phoneNumber)
+                .addQueryParameter("otp", otpValue)
+                .build();
+
+        Request request = new Request.Builder()
+                .url(url)
+                .build();
+
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        httpClient.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (response) {
+                    checkAccepted(response);
+                    result.complete(null);
+                } catch (SmsDeliveryException e) {
+                    result.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                result.completeExceptionally(new SmsDeliveryException(name + " call failed: " + e.getMessage(), e, true));
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    private void checkAccepted(Response response) {
+        if (!response.isSuccessful()) {
+            checkAccepted(name, response.code(), null, objectMapper);
+        }
+
+        String body;
+        try {
+            ResponseBody responseBody = response.body();
+            body = responseBody != null ? responseBody.string() : null;
+        } catch (IOException e) {
+            throw new SmsDeliveryException(name + " response could not be read", e, true);
+        }
+        checkAccepted(name, response.code(), body, objectMapper);
+    }
+
+    /**
+     * Throw unless an MSG91 response reports the OTP as accepted.
+     * Server errors and throttling are retryable; rejections of the request itself are not.
+     *
+     * @param name Gateway name used in the message
+     * @param code HTTP status code
+     * @param body Response body, or null
+     * @param objectMapper Mapper for the body
+     * @throws SmsDeliveryException if the OTP was not accepted
+     */
+    static void checkAccepted(String name, int code, String body, ObjectMapper objectMapper) {
+        if (code < 200 || code >= 300) {
+            throw new SmsDeliveryException(name + " answered HTTP " + code, code >= 500 || code == 429);
+        }
+
+        JsonNode json;
+        try {
+            json = body != null && !body.isEmpty() ? objectMapper.readTree(body) : null;
+        } catch (IOException e) {
+            throw new SmsDeliveryException(name + " response could not be read", e, true);
+        }
+
+        JsonNode type = json != null ? json.get("type") : null;
+        if (type == null || !"success".equalsIgnoreCase(type.asText())) {
+            // MSG91 answers 200 with type "error" for rejected requests, e.g. an invalid number
+            JsonNode message = json != null ? json.get("message") : null;
+            throw new SmsDeliveryException(name + " rejected the OTP: " + (message != null ? message.asText() : json), false);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.thehoodjunction.service;
+
+import com.thehoodjunction.model.Otp;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Adapts a blocking {@link OtpStore} to {@link ReactiveOtpStore} by running each call on the given scheduler.
+ * The jpa store needs a scheduler meant for blocking work, such as {@code Schedulers.boundedElastic()};
+ * the in-memory store never blocks and can run on {@code Schedulers.immediate()}.
+ */
+public class OffloadingReactiveOtpStore implements ReactiveOtpStore {
+
+    private final OtpStore otpStore;
+    private final Scheduler scheduler;
+
+    /**
+     * @param otpStore Store to delegate to
+     * @param scheduler Scheduler the store's calls run on
+     */
+    public OffloadingReactiveOtpStore(OtpStore otpStore, Scheduler scheduler) {
+        this.otpStore = otpStore;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public Mono<Otp> save(Otp otp) {
+        return Mono.fromCallable(() -> otpStore.save(otp)).subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<Boolean> verifyAndConsume(String phoneNumber, String otpValue) {
+        return Mono.fromCallable(() -> otpStore.verifyAndConsume(phoneNumber, otpValue)).subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<Void> invalidate(String phoneNumber) {
+        return Mono.<Void>fromRunnable(() -> otpStore.invalidate(phoneNumber)).subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<Void> updateDeliveryStatus(Otp otp, Otp.DeliveryStatus status) {
+        return Mono.<Void>fromRunnable(() -> otpStore.updateDeliveryStatus(otp, status)).subscribeOn(scheduler);
+    }
+}
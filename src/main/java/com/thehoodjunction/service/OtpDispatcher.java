@@ -0,0 +1,176 @@
+package com.thehoodjunction.service;
+
+import com.thehoodjunction.config.Msg91Config;
+import com.thehoodjunction.model.Otp;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+/**
+ * Delivers OTPs through the {@link SmsGateway} without blocking the request thread.
+ * The outcome is written back to the {@link OtpStore} as the OTP's delivery status. Admission is bounded:
+ * once {@code msg91.dispatch.max-pending} deliveries are outstanding, or while the gateway is known to be down,
+ * new ones are rejected with 503 instead of queueing. Callers reserve a slot with {@link #admit()} before they issue
+ * an OTP, so a rejected request leaves nothing stored or recorded.
+ * With {@code msg91.dispatch.mode: queue} OTPs are instead handed to the {@link SmsDeliveryQueue}, and the
+ * {@link SmsDeliveryWorker}s consuming it, on this node or dedicated ones, send them and record the status.
+ */
+@Component
+@Slf4j
+public class OtpDispatcher {
+
+    private final Msg91Config msg91Config;
+    private final OtpStore otpStore;
+    private final SmsGateway smsGateway;
+    private final SmsDeliveryQueue smsDeliveryQueue;
+    private final Semaphore pending;
+
+    public OtpDispatcher(Msg91Config msg91Config, OtpStore otpStore, SmsGateway smsGateway, MeterRegistry meterRegistry) {
+        this(msg91Config, otpStore, smsGateway, null, meterRegistry);
+    }
+
+    /**
+     * @param smsDeliveryQueue Queue to hand OTPs to, or null to call the gateway directly
+     */
+    @Autowired
+    public OtpDispatcher(Msg91Config msg91Config, OtpStore otpStore, SmsGateway smsGateway,
+                         @Nullable SmsDeliveryQueue smsDeliveryQueue, MeterRegistry meterRegistry) {
+        this.msg91Config = msg91Config;
+        this.otpStore = otpStore;
+        this.smsGateway = smsGateway;
+        this.smsDeliveryQueue = smsDeliveryQueue;
+        this.pending = new Semaphore(msg91Config.getDispatch().getMaxPending());
+        Gauge.builder("otp.dispatch.pending", this, OtpDispatcher::getPendingCount)
+                .description("OTP deliveries accepted but not yet finished")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reserve a delivery before issuing an OTP. In queue mode there is nothing to reserve: the queue's answer
+     * is only known once the OTP is handed to it.
+     *
+     * @return Reservation to pass to {@link #dispatch(Admission, Otp, boolean, BiConsumer)}, or to release if the
+     * OTP is not dispatched after all
+     * @throws ResponseStatusException 503 if the gateway is down or too many deliveries are outstanding
+     */
+    public Admission admit() {
+        if (smsDeliveryQueue != null) {
+            return new Admission(null);
+        }
+        if (!smsGateway.isAvailable()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "SMS gateway unavailable, try again shortly");
+        }
+        if (!pending.tryAcquire()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many OTPs being sent, try again shortly");
+        }
+        return new Admission(pending);
+    }
+
+    /**
+     * Admit and hand an OTP to the SMS gateway. Returns as soon as the call is started.
+     *
+     * @param otp Stored OTP to deliver
+     * @param resend Whether this replaces an earlier OTP; resends are queued behind first sends
+     * @throws ResponseStatusException 503 if the gateway or the queue is down, or too many deliveries are outstanding
+     */
+    public void dispatch(Otp otp, boolean resend) {
+        dispatch(admit(), otp, resend, otpStore::updateDeliveryStatus);
+    }
+
+    /**
+     * Hand an OTP to the SMS gateway, recording the outcome through the given callback.
+     * The callback may run on an I/O thread and must not block. In queue mode it only sees OTPs that could not be
+     * queued; the consumers record the outcome of the rest through the {@link OtpStore}.
+     *
+     * @param admission Reservation from {@link #admit()}, released once delivery finishes
+     * @param otp Stored OTP to deliver
+     * @param resend Whether this replaces an earlier OTP; resends are queued behind first sends
+     * @param statusRecorder Receives the OTP and its delivery status
+     * @throws ResponseStatusException 503 if the queue is down
+     */
+    public void dispatch(Admission admission, Otp otp, boolean resend,
+                         BiConsumer<Otp, Otp.DeliveryStatus> statusRecorder) {
+        if (smsDeliveryQueue != null) {
+            enqueue(otp, resend, statusRecorder);
+            return;
+        }
+
+        CompletableFuture<Void> delivery;
+        try {
+            delivery = smsGateway.sendOtp(otp.getPhoneNumber(), otp.getOtpValue());
+        } catch (RuntimeException e) {
+            delivery = CompletableFuture.failedFuture(e);
+        }
+
+        delivery.whenComplete((ignored, error) -> {
+            try {
+                recordOutcome(otp, error, statusRecorder);
+            } finally {
+                admission.release();
+            }
+        });
+    }
+
+    /**
+     * @return Deliveries accepted but not yet finished
+     */
+    public int getPendingCount() {
+        return msg91Config.getDispatch().getMaxPending() - pending.availablePermits();
+    }
+
+    /**
+     * A delivery reserved by {@link #admit()}
+     */
+    public static final class Admission {
+
+        private final Semaphore permits;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Admission(@Nullable Semaphore permits) {
+            this.permits = permits;
+        }
+
+        /**
+         * Give the reservation back; only the first call has an effect
+         */
+        public void release() {
+            if (permits != null && released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+
+    private void enqueue(Otp otp, boolean resend, BiConsumer<Otp, Otp.DeliveryStatus> statusRecorder) {
+        try {
+            smsDeliveryQueue.enqueue(otp, resend);
+        } catch (AmqpException e) {
+            log.error("Failed to queue OTP for {}: {}", otp.getPhoneNumber(), e.getMessage());
+            statusRecorder.accept(otp, Otp.DeliveryStatus.FAILED);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "SMS queue unavailable, try again shortly");
+        }
+    }
+
+    private void recordOutcome(Otp otp, Throwable error, BiConsumer<Otp, Otp.DeliveryStatus> statusRecorder) {
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            log.error("Failed to send OTP to {}: {}", otp.getPhoneNumber(), cause.getMessage());
+        }
+        try {
+            statusRecorder.accept(otp, error == null ? Otp.DeliveryStatus.SENT : Otp.DeliveryStatus.FAILED);
+        } catch (RuntimeException e) {
+            log.warn("Could not record OTP delivery status for {}", otp.getPhoneNumber(), e);
+        }
+    }
+}
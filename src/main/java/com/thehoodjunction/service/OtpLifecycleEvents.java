@@ -0,0 +1,154 @@
+package com.thehoodjunction.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.thehoodjunction.config.DomainEventConfig;
+import com.thehoodjunction.dto.DomainEvent;
+import com.thehoodjunction.model.Otp;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes OTP lifecycle events, keyed by phone number.
+ * No store reports when an OTP lapses, so each OTP sent from this node is tracked until its expiry:
+ * if it has not been verified or replaced by then, the store is asked whether it was verified, possibly on another
+ * node, and if not {@code OTP_EXPIRED} is published. Those checks and outbox inserts run on a dedicated thread rather
+ * than the cache's executor, the shared common pool.
+ * Events that could not be recorded without failing an already committed change are counted in
+ * {@code otp.events.unrecorded}.
+ */
+@Component
+@Slf4j
+public class OtpLifecycleEvents implements AutoCloseable {
+
+    private final DomainEventPublisher domainEventPublisher;
+    private final OtpStore otpStore;
+    // Phone number to the OTP last sent to it
+    private final Cache<String, Otp> outstanding;
+    private final ThreadPoolExecutor expiredEvents;
+    private final Counter unrecorded;
+
+    public OtpLifecycleEvents(DomainEventPublisher domainEventPublisher, OtpStore otpStore,
+                              DomainEventConfig domainEventConfig, MeterRegistry meterRegistry) {
+        this.domainEventPublisher = domainEventPublisher;
+        this.otpStore = otpStore;
+        this.unrecorded = Counter.builder("otp.events.unrecorded")
+                .description("OTP lifecycle events lost because the outbox insert failed")
+                .register(meterRegistry);
+        this.expiredEvents = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(domainEventConfig.getOtpExpiryTracking().getQueueCapacity()), runnable -> {
+                    Thread thread = new Thread(runnable, "otp-expired-events");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.outstanding = Caffeine.newBuilder()
+                .maximumSize(domainEventConfig.getOtpExpiryTracking().getMaximumSize())
+                .expireAfter(new Expiry<String, Otp>() {
+                    @Override
+                    public long expireAfterCreate(String phoneNumber, Otp otp, long currentTime) {
+                        return remainingNanos(otp.getExpiresAt());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String phoneNumber, Otp otp, long currentTime,
+                                                  long currentDuration) {
+                        return remainingNanos(otp.getExpiresAt());
+                    }
+
+                    @Override
+                    public long expireAfterRead(String phoneNumber, Otp otp, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                // Evict promptly so the event goes out at expiry rather than on the next cache access
+                .scheduler(Scheduler.systemScheduler())
+                .removalListener((String phoneNumber, Otp otp, RemovalCause cause) -> {
+                    if (cause == RemovalCause.EXPIRED) {
+                        expired(otp);
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * An OTP was stored and handed to the SMS gateway
+     *
+     * @param otp OTP sent
+     * @param resend Whether it replaces an OTP sent before
+     */
+    public void sent(Otp otp, boolean resend) {
+        outstanding.put(otp.getPhoneNumber(), otp);
+        domainEventPublisher.publish(DomainEvent.Type.OTP_SENT, otp.getPhoneNumber(), Map.of(
+                "expiresAt", otp.getExpiresAt().toString(),
+                "resend", String.valueOf(resend)));
+    }
+
+    /**
+     * An OTP was checked
+     *
+     * @param phoneNumber Phone number
+     * @param valid Whether it matched and was consumed
+     */
+    public void verified(String phoneNumber, boolean valid) {
+        if (valid) {
+            outstanding.invalidate(phoneNumber);
+        }
+        domainEventPublisher.publish(valid ? DomainEvent.Type.OTP_VERIFIED : DomainEvent.Type.OTP_VERIFICATION_FAILED,
+                phoneNumber, Map.of());
+    }
+
+    /**
+     * Record an event about a change the OTP store has already committed on its own, such as a consume in Redis.
+     * That change cannot be rolled back, so a failed outbox insert is logged and counted instead of failing the caller.
+     *
+     * @param phoneNumber Phone number the event is about
+     * @param record Call to {@link #sent} or {@link #verified}
+     */
+    public void recordCommitted(String phoneNumber, Runnable record) {
+        try {
+            record.run();
+        } catch (RuntimeException e) {
+            unrecorded.increment();
+            log.warn("Could not record OTP event for {}: {}", phoneNumber, e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        expiredEvents.shutdown();
+    }
+
+    private void expired(Otp otp) {
+        String phoneNumber = otp.getPhoneNumber();
+        try {
+            expiredEvents.execute(() -> recordCommitted(phoneNumber, () -> {
+                if (otpStore.expiredUnverified(otp)) {
+                    domainEventPublisher.publish(DomainEvent.Type.OTP_EXPIRED, phoneNumber,
+                            Map.of("expiresAt", String.valueOf(otp.getExpiresAt())));
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            unrecorded.increment();
+            log.warn("Dropping OTP_EXPIRED for {}: {} events already waiting", phoneNumber,
+                    expiredEvents.getQueue().size());
+        }
+    }
+
+    private static long remainingNanos(LocalDateTime expiresAt) {
+        return Math.max(0, Duration.between(LocalDateTime.now(), expiresAt).toNanos());
+    }
+}
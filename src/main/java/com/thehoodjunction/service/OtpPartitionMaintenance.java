@@ -0,0 +1,172 @@
+package com.thehoodjunction.service;
+
+import com.thehoodjunction.config.OtpConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Maintains daily partitions of a PostgreSQL range-partitioned {@code otps} table
+ * (see {@code db/postgres/otps-partitioned.sql}). It creates partitions ahead of time and drops
+ * whole partitions once all of their rows are past the retention window, so there are no row-level deletes.
+ * The {@code otps_default} partition catches rows outside the daily ranges, e.g. while the application was down
+ * longer than {@code partitions-ahead} days; it cannot be dropped, so its expired rows are purged in batches.
+ * PostgreSQL refuses to create a partition for a day the default partition holds rows for, so those rows are moved
+ * into the new partition first. Each step, and each partition, is attempted on its own so that one failure does not
+ * stop the others.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.otp.retention", name = "partitioned", havingValue = "true")
+@Slf4j
+public class OtpPartitionMaintenance {
+
+    private static final String PARTITION_PREFIX = "otps_p";
+    private static final String DEFAULT_PARTITION = "otps_default";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final String COLUMNS =
+            "id, phone_number, otp_value, created_at, expires_at, verified_at, used, delivery_status";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OtpConfig otpConfig;
+    private final Counter droppedCounter;
+    private final Counter purgedCounter;
+
+    public OtpPartitionMaintenance(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                   OtpConfig otpConfig, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.otpConfig = otpConfig;
+        this.droppedCounter = Counter.builder("otp.retention.partitions.dropped")
+                .description("OTP partitions dropped by the retention job")
+                .register(meterRegistry);
+        this.purgedCounter = Counter.builder("otp.retention.purged")
+                .description("OTP rows deleted by the retention job")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 5 * * * *")
+    public void maintainPartitions() {
+        attempt("purge " + DEFAULT_PARTITION, this::purgeDefaultPartition);
+        createUpcomingPartitions();
+        attempt("drop expired OTP partitions", this::dropExpiredPartitions);
+    }
+
+    private void createUpcomingPartitions() {
+        LocalDate today = LocalDate.now();
+        for (int day = 0; day <= otpConfig.getRetention().getPartitionsAhead(); day++) {
+            LocalDate from = today.plusDays(day);
+            attempt("create " + partitionName(from), () -> createPartition(from));
+        }
+    }
+
+    private void createPartition(LocalDate from) {
+        String partition = partitionName(from);
+        if (exists(partition)) {
+            return;
+        }
+        String create = String.format("CREATE TABLE %s PARTITION OF otps FOR VALUES FROM ('%s') TO ('%s')",
+                partition, from, from.plusDays(1));
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = from.plusDays(1).atStartOfDay();
+        if (!exists(DEFAULT_PARTITION) || !Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION + " WHERE created_at >= ? AND created_at < ?)",
+                Boolean.class, start, end))) {
+            jdbcTemplate.execute(create);
+            return;
+        }
+        // Detaching the default partition lets the new one be created while it still holds that day's rows
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("ALTER TABLE otps DETACH PARTITION " + DEFAULT_PARTITION);
+            jdbcTemplate.execute(create);
+            int moved = jdbcTemplate.update("INSERT INTO " + partition + " (" + COLUMNS + ") SELECT " + COLUMNS
+                    + " FROM " + DEFAULT_PARTITION + " WHERE created_at >= ? AND created_at < ?", start, end);
+            jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE created_at >= ? AND created_at < ?",
+                    start, end);
+            jdbcTemplate.execute("ALTER TABLE otps ATTACH PARTITION " + DEFAULT_PARTITION + " DEFAULT");
+            log.info("Moved {} OTPs from {} into {}", moved, DEFAULT_PARTITION, partition);
+        });
+    }
+
+    private boolean exists(String table) {
+        return jdbcTemplate.queryForObject("SELECT to_regclass(?)::text", String.class, table) != null;
+    }
+
+    private static void attempt(String step, Runnable action) {
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            log.warn("Could not {}: {}", step, e.getMessage());
+        }
+    }
+
+    // Each batch commits on its own, like the row-level purge of an unpartitioned table
+    private void purgeDefaultPartition() {
+        OtpConfig.Retention retention = otpConfig.getRetention();
+        if (!exists(DEFAULT_PARTITION)) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention.getWindow());
+        int total = 0;
+        for (int batch = 0; batch < retention.getMaxBatchesPerRun(); batch++) {
+            int count = jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE id IN (SELECT id FROM "
+                    + DEFAULT_PARTITION + " WHERE expires_at < ? LIMIT ?)", cutoff, retention.getBatchSize());
+            total += count;
+            purgedCounter.increment(count);
+            if (count < retention.getBatchSize()) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Purged {} OTPs expired before {} from {}", total, cutoff, DEFAULT_PARTITION);
+        }
+    }
+
+    private void dropExpiredPartitions() {
+        // A partition only holds OTPs created that day, which expire minutes later; keep it for the retention window
+        LocalDate oldestKept = LocalDate.now().minusDays(otpConfig.getRetention().getWindow().toDays() + 1);
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT child.relname FROM pg_inherits " +
+                "JOIN pg_class parent ON pg_inherits.inhparent = parent.oid " +
+                "JOIN pg_class child ON pg_inherits.inhrelid = child.oid " +
+                "WHERE parent.relname = 'otps'", String.class);
+
+        for (String partition : partitions) {
+            LocalDate day = partitionDay(partition);
+            if (day != null && day.isBefore(oldestKept)) {
+                jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition);
+                droppedCounter.increment();
+                log.info("Dropped OTP partition {}", partition);
+            }
+        }
+    }
+
+    private static String partitionName(LocalDate day) {
+        return PARTITION_PREFIX + day.format(PARTITION_SUFFIX);
+    }
+
+    private static LocalDate partitionDay(String partition) {
+        if (!partition.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.thehoodjunction.service;
+
+import com.thehoodjunction.config.OtpConfig;
+import com.thehoodjunction.repository.jpa.OtpRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+/**
+ * Purges OTPs from the {@code otps} table once they have been expired for longer than the retention window.
+ * Used OTPs are covered too, since every OTP expires a few minutes after it is issued.
+ * Rows are deleted in bounded batches, each in its own short transaction, so the job never holds long locks.
+ * Publishes {@code otp.retention.purged} and {@code otp.retention.duration}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.otp", name = "store", havingValue = "jpa", matchIfMissing = true)
+@Slf4j
+public class OtpRetentionJob {
+
+    private final OtpRepository otpRepository;
+    private final OtpConfig otpConfig;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter purgedCounter;
+    private final Timer purgeTimer;
+
+    public OtpRetentionJob(OtpRepository otpRepository, OtpConfig otpConfig,
+                           TransactionTemplate transactionTemplate, MeterRegistry meterRegistry) {
+        this.otpRepository = otpRepository;
+        this.otpConfig = otpConfig;
+        this.transactionTemplate = transactionTemplate;
+        this.purgedCounter = Counter.builder("otp.retention.purged")
+                .description("OTP rows deleted by the retention job")
+                .register(meterRegistry);
+        this.purgeTimer = Timer.builder("otp.retention.duration")
+                .description("Time taken by one retention run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "#{@otpConfig.retention.purgeInterval.toMillis()}")
+    public void purgeExpiredOtps() {
+        OtpConfig.Retention retention = otpConfig.getRetention();
+        // Partitioned tables are cleaned up by OtpPartitionMaintenance instead
+        if (!retention.isEnabled() || retention.isPartitioned()) {
+            return;
+        }
+        
+        purgeTimer.record(() -> {
+            LocalDateTime cutoff = LocalDateTime.now().minus(retention.getWindow());
+            int total = 0;
+            
+            for (int batch = 0; batch < retention.getMaxBatchesPerRun(); batch++) {
+                Integer deleted = transactionTemplate.execute(status ->
+                        otpRepository.deleteExpiredBefore(cutoff, retention.getBatchSize()));
+                int count = deleted != null ? deleted : 0;
+                total += count;
+                purgedCounter.increment(count);
+                
+                if (count < retention.getBatchSize()) {
+                    break;
+                }
+            }
+            
+            if (total > 0) {
+                log.info("Purged {} OTPs expired before {}", total, cutoff);
+            }
+        });
+    }
+}
@@ -0,0 +1,76 @@
+package com.thehoodjunction.service;
+
+import com.thehoodjunction.model.Otp;
+
+import java.util.Optional;
+
+/**
+ * Storage for issued OTPs.
+ * Selected with {@code app.otp.store}: {@code redis} keeps OTPs as expiring keys shared by every node,
+ * {@code memory} keeps them in an expiring in-process map for single-node or dev use, and {@code jpa}
+ * keeps the original {@code otps} table.
+ */
+public interface OtpStore {
+
+    /**
+     * Store a newly issued OTP
+     *
+     * @param otp OTP to store; its expiry defines how long it stays valid
+     * @return The stored OTP
+     */
+    Otp save(Otp otp);
+
+    /**
+     * Check an OTP and, if it matches an active one, consume it so it cannot be used again.
+     * Check and consume happen atomically, so concurrent attempts with the same OTP succeed at most once.
+     *
+     * @param phoneNumber Phone number
+     * @param otpValue OTP value to verify
+     * @return true if the OTP was valid and has now been consumed
+     */
+    boolean verifyAndConsume(String phoneNumber, String otpValue);
+
+    /**
+     * Find the OTP currently waiting to be verified for a phone number
+     *
+     * @param phoneNumber Phone number
+     * @return The latest unused, unexpired OTP
+     */
+    Optional<Otp> findActive(String phoneNumber);
+
+    /**
+     * Invalidate any active OTP for a phone number
+     *
+     * @param phoneNumber Phone number
+     */
+    void invalidate(String phoneNumber);
+
+    /**
+     * Record the delivery outcome of an issued OTP.
+     * Does nothing if the OTP has since been consumed, replaced or expired.
+     *
+     * @param otp OTP as returned by {@link #save}
+     * @param status Delivery outcome
+     */
+    void updateDeliveryStatus(Otp otp, Otp.DeliveryStatus status);
+
+    /**
+     * Check, once an OTP's expiry has passed, whether it lapsed without being verified on any node.
+     * Stores shared between nodes answer from their own records; a node-local store has nothing more to add
+     * than the node that issued the OTP already knows.
+     *
+     * @param otp OTP as returned by {@link #save}
+     * @return false if the OTP was verified
+     */
+    default boolean expiredUnverified(Otp otp) {
+        return true;
+    }
+
+    /**
+     * @return Whether writes join the caller's database transaction, so an OTP's events can be recorded atomically
+     * with it; other stores commit each write on their own
+     */
+    default boolean isTransactional() {
+        return false;
+    }
+}
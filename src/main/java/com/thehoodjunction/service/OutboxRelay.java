@@ -0,0 +1,298 @@
+package com.thehoodjunction.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thehoodjunction.config.DomainEventConfig;
+import com.thehoodjunction.dto.DomainEvent;
+import com.thehoodjunction.model.OutboxDeadLetter;
+import com.thehoodjunction.model.OutboxEvent;
+import com.thehoodjunction.model.OutboxLane;
+import com.thehoodjunction.repository.jpa.OutboxDeadLetterRepository;
+import com.thehoodjunction.repository.jpa.OutboxEventRepository;
+import com.thehoodjunction.repository.jpa.OutboxLaneRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.InvalidRecordException;
+import org.apache.kafka.common.errors.RecordBatchTooLargeException;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.errors.SerializationException;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Relays the transactional outbox to Kafka.
+ * Each worker thread repeatedly claims a lane with waiting events, locking its {@code outbox_lanes} row with
+ * {@code FOR UPDATE SKIP LOCKED} so other workers, on this node or another, move on to other lanes. It sends up to
+ * {@code batch-size} of the lane's events in order, waits for the broker to acknowledge them, and deletes them in the
+ * same transaction. If a send fails, or the batch is not acknowledged within {@code send-timeout}, the worker stops
+ * sending, the transaction rolls back and the whole batch is sent again later, so events are delivered at least once;
+ * consumers drop duplicates by event id. Events that can never be sent, because their payload is unreadable or Kafka
+ * rejects the record itself (e.g. too large), are moved to {@code outbox_dead_letters} instead, so they do not hold up
+ * the rest of their lane. Workers sleep for {@code poll-interval} when no lane has events waiting, and for
+ * {@code retry-backoff} after a failed batch.
+ */
+@Slf4j
+public class OutboxRelay implements AutoCloseable {
+
+    private final OutboxLaneRepository outboxLaneRepository;
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxDeadLetterRepository outboxDeadLetterRepository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final String topic;
+    private final DomainEventConfig.Outbox outbox;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    private final Counter relayed;
+    private final Counter failures;
+    private final Counter deadLettered;
+    private final Timer batchTimer;
+
+    /**
+     * @param outboxLaneRepository Lanes, locked while drained
+     * @param outboxEventRepository Outbox table
+     * @param outboxDeadLetterRepository Events moved aside because they can never be sent
+     * @param kafkaTemplate Template using the configured producer
+     * @param objectMapper Mapper the payloads were stored with
+     * @param transactionTemplate Transaction each batch is claimed, sent and deleted in
+     * @param topic Topic events are sent to
+     * @param outbox Relay settings
+     * @param meterRegistry Registry for relay metrics
+     */
+    public OutboxRelay(OutboxLaneRepository outboxLaneRepository, OutboxEventRepository outboxEventRepository,
+                       OutboxDeadLetterRepository outboxDeadLetterRepository,
+                       KafkaTemplate<String, Object> kafkaTemplate, ObjectMapper objectMapper,
+                       TransactionTemplate transactionTemplate, String topic, DomainEventConfig.Outbox outbox,
+                       MeterRegistry meterRegistry) {
+        this.outboxLaneRepository = outboxLaneRepository;
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxDeadLetterRepository = outboxDeadLetterRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.topic = topic;
+        this.outbox = outbox;
+
+        this.relayed = Counter.builder("outbox.relayed")
+                .description("Outbox events sent to Kafka and deleted")
+                .register(meterRegistry);
+        this.failures = Counter.builder("outbox.relay.failures")
+                .description("Outbox batches rolled back to be sent again")
+                .register(meterRegistry);
+        this.deadLettered = Counter.builder("outbox.dead-lettered")
+                .description("Outbox events moved to outbox_dead_letters because they can never be sent")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("outbox.relay.batch")
+                .description("Time to claim, send and delete one batch of outbox events")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Create any missing lanes and start the workers
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        createLanes();
+        running = true;
+        for (int i = 0; i < outbox.getWorkers(); i++) {
+            Thread worker = new Thread(this::run, "outbox-relay-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    /**
+     * Claim one lane and relay a batch of its events
+     *
+     * @return Events relayed; 0 if no lane had events waiting
+     */
+    int drainOnce() {
+        Drained drained = batchTimer.record(() -> transactionTemplate.execute(status -> {
+            List<OutboxLane> claimed = outboxLaneRepository.claimPending(Limit.of(1));
+            if (claimed.isEmpty()) {
+                return Drained.NONE;
+            }
+            OutboxLane lane = claimed.get(0);
+            lane.setDrainedAt(Instant.now());
+            List<OutboxEvent> batch = outboxEventRepository.findByLaneOrderByIdAsc(lane.getLane(),
+                    Limit.of(outbox.getBatchSize()));
+            Map<OutboxEvent, String> rejected = send(batch);
+            rejected.forEach((event, error) -> {
+                log.error("Moving outbox event {} ({} for {}) to outbox_dead_letters: {}", event.getId(),
+                        event.getType(), event.getEventKey(), error);
+                outboxDeadLetterRepository.save(OutboxDeadLetter.of(event, error));
+            });
+            outboxEventRepository.deleteAllInBatch(batch);
+            return new Drained(batch.size() - rejected.size(), rejected.size());
+        }));
+        if (drained == null) {
+            return 0;
+        }
+        relayed.increment(drained.relayed());
+        deadLettered.increment(drained.deadLettered());
+        return drained.relayed();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) {
+            worker.interrupt();
+            worker.join(outbox.getSendTimeout().toMillis());
+        }
+    }
+
+    private void run() {
+        while (running) {
+            Duration pause = outbox.getPollInterval();
+            try {
+                if (drainOnce() > 0) {
+                    continue;
+                }
+            } catch (PessimisticLockingFailureException e) {
+                // Databases without SKIP LOCKED, such as H2, make a worker wait for a lane another worker holds
+                log.debug("Outbox lane busy: {}", e.getMessage());
+            } catch (RuntimeException e) {
+                failures.increment();
+                log.warn("Could not relay outbox events, retrying in {}: {}", outbox.getRetryBackoff(), e.getMessage());
+                pause = outbox.getRetryBackoff();
+            }
+            try {
+                Thread.sleep(pause.toMillis());
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Send in outbox order; the idempotent producer keeps each key's events in that order.
+     * Stops at the first failed send or once {@code send-timeout} has passed, since a send may itself block for up to
+     * the producer's {@code max.block.ms} while the broker is unreachable.
+     *
+     * @return Events that can never be sent, with the reason
+     */
+    private Map<OutboxEvent, String> send(List<OutboxEvent> batch) {
+        long deadline = System.nanoTime() + outbox.getSendTimeout().toNanos();
+        Map<OutboxEvent, String> rejected = Collections.synchronizedMap(new LinkedHashMap<>());
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<CompletableFuture<?>> sends = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            if (failure.get() != null) {
+                throw sendFailed(failure.get());
+            }
+            if (System.nanoTime() - deadline > 0) {
+                throw timedOut();
+            }
+            DomainEvent domainEvent;
+            try {
+                domainEvent = objectMapper.readValue(event.getPayload(), DomainEvent.class);
+            } catch (JsonProcessingException e) {
+                rejected.put(event, "Unreadable payload: " + e.getOriginalMessage());
+                continue;
+            }
+            CompletableFuture<?> send;
+            try {
+                send = kafkaTemplate.send(topic, event.getEventKey(), domainEvent);
+            } catch (RuntimeException e) {
+                if (!isPermanent(e)) {
+                    throw sendFailed(e);
+                }
+                rejected.put(event, String.valueOf(e.getMessage()));
+                continue;
+            }
+            sends.add(send.whenComplete((result, e) -> {
+                if (e != null && isPermanent(e)) {
+                    rejected.put(event, String.valueOf(rootCause(e).getMessage()));
+                } else if (e != null) {
+                    failure.compareAndSet(null, e);
+                }
+            }));
+        }
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                    .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            // Each failure has been sorted into rejected or failure already
+        } catch (TimeoutException e) {
+            throw timedOut();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while relaying outbox events", e);
+        }
+        if (failure.get() != null) {
+            throw sendFailed(failure.get());
+        }
+        return rejected;
+    }
+
+    // Errors caused by the record itself, which no retry can fix; anything else, such as the broker being down, is retried
+    private static boolean isPermanent(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RecordTooLargeException || cause instanceof RecordBatchTooLargeException
+                    || cause instanceof InvalidRecordException || cause instanceof SerializationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Throwable rootCause(Throwable e) {
+        Throwable cause = e;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private static IllegalStateException sendFailed(Throwable e) {
+        return new IllegalStateException("Kafka rejected an outbox event: " + rootCause(e).getMessage(), e);
+    }
+
+    private IllegalStateException timedOut() {
+        return new IllegalStateException("Kafka did not acknowledge outbox events within " + outbox.getSendTimeout());
+    }
+
+    private void createLanes() {
+        for (int lane = 0; lane < outbox.getLanes(); lane++) {
+            if (outboxLaneRepository.existsById(lane)) {
+                continue;
+            }
+            try {
+                outboxLaneRepository.save(new OutboxLane(lane, Instant.EPOCH));
+            } catch (DataIntegrityViolationException e) {
+                // Created by another node starting at the same time
+            }
+        }
+    }
+
+    private record Drained(int relayed, int deadLettered) {
+        static final Drained NONE = new Drained(0, 0);
+    }
+}
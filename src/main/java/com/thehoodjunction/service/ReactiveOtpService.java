@@ -0,0 +1,83 @@
+package com.thehoodjunction.service;
+
+import com.thehoodjunction.model.Otp;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Reactive counterpart of {@link Msg91Service} for the "reactive" profile.
+ * OTPs are stored through the {@link ReactiveOtpStore} and delivered by the same {@link OtpDispatcher},
+ * with the delivery status written back without blocking.
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveOtpService {
+
+    private final Msg91Service msg91Service;
+    private final ReactiveOtpStore reactiveOtpStore;
+    private final OtpDispatcher otpDispatcher;
+    private final OtpLifecycleEvents otpLifecycleEvents;
+
+    /**
+     * Generate, store and send an OTP; completes once it is stored and delivery has started
+     *
+     * @param phoneNumber Phone number to send OTP to (with country code)
+     * @return The stored OTP, or a 503 error if it cannot be sent right now
+     */
+    public Mono<Otp> generateAndSendOtp(String phoneNumber) {
+        return send(phoneNumber, false);
+    }
+
+    /**
+     * Verify the OTP provided by the user
+     *
+     * @param phoneNumber Phone number
+     * @param otpValue OTP value to verify
+     * @return true if OTP is valid, false otherwise
+     */
+    public Mono<Boolean> verifyOtp(String phoneNumber, String otpValue) {
+        return reactiveOtpStore.verifyAndConsume(phoneNumber, otpValue)
+                .flatMap(valid -> Mono.fromRunnable(() -> otpLifecycleEvents.recordCommitted(phoneNumber,
+                                () -> otpLifecycleEvents.verified(phoneNumber, valid)))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .thenReturn(valid));
+    }
+
+    /**
+     * Invalidate any active OTP and send a new one
+     *
+     * @param phoneNumber Phone number to resend OTP to
+     * @return The new OTP
+     */
+    public Mono<Otp> resendOtp(String phoneNumber) {
+        return send(phoneNumber, true);
+    }
+
+    private Mono<Otp> send(String phoneNumber, boolean resend) {
+        // Reserve the delivery first, so a rejected request keeps the previous OTP and records nothing
+        return Mono.fromCallable(otpDispatcher::admit)
+                .flatMap(admission -> (resend ? reactiveOtpStore.invalidate(phoneNumber) : Mono.<Void>empty())
+                        .then(Mono.fromSupplier(() -> msg91Service.newOtp(phoneNumber)))
+                        .flatMap(reactiveOtpStore::save)
+                        // Recording the event is a JPA insert into the outbox, separate from the store's own commit
+                        .flatMap(saved -> Mono.fromRunnable(() -> otpLifecycleEvents.recordCommitted(phoneNumber,
+                                        () -> otpLifecycleEvents.sent(saved, resend)))
+                                .subscribeOn(Schedulers.boundedElastic())
+                                .thenReturn(saved))
+                        .doOnError(e -> admission.release())
+                        .doOnCancel(admission::release)
+                        .doOnNext(saved -> otpDispatcher.dispatch(admission, saved, resend,
+                                this::recordDeliveryStatus)));
+    }
+
+    private void recordDeliveryStatus(Otp otp, Otp.DeliveryStatus status) {
+        reactiveOtpStore.updateDeliveryStatus(otp, status).subscribe(null,
+                e -> log.warn("Could not record OTP delivery status for {}", otp.getPhoneNumber(), e));
+    }
+}
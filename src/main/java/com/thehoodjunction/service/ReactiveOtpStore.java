@@ -0,0 +1,45 @@
+package com.thehoodjunction.service;
+
+import com.thehoodjunction.model.Otp;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking view of the OTP storage, used by the reactive endpoints.
+ * With {@code app.otp.store=redis} it talks to Redis through the reactive driver; the other stores are
+ * adapted from their {@link OtpStore}. Semantics are the same as {@link OtpStore}.
+ */
+public interface ReactiveOtpStore {
+
+    /**
+     * Store a newly issued OTP
+     *
+     * @param otp OTP to store; its expiry defines how long it stays valid
+     * @return The stored OTP
+     */
+    Mono<Otp> save(Otp otp);
+
+    /**
+     * Check an OTP and, if it matches an active one, consume it so it cannot be used again
+     *
+     * @param phoneNumber Phone number
+     * @param otpValue OTP value to verify
+     * @return true if the OTP was valid and has now been consumed
+     */
+    Mono<Boolean> verifyAndConsume(String phoneNumber, String otpValue);
+
+    /**
+     * Invalidate any active OTP for a phone number
+     *
+     * @param phoneNumber Phone number
+     */
+    Mono<Void> invalidate(String phoneNumber);
+
+    /**
+     * Record the delivery outcome of an issued OTP.
+     * Does nothing if the OTP has since been consumed, replaced or expired.
+     *
+     * @param otp OTP as returned by {@link #save}
+     * @param status Delivery outcome
+     */
+    Mono<Void> updateDeliveryStatus(Otp otp, Otp.DeliveryStatus status);
+}
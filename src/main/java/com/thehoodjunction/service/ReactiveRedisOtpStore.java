@@ -0,0 +1,63 @@
+package com.thehoodjunction.service;
+
+import com.thehoodjunction.config.OtpConfig;
+import com.thehoodjunction.model.Otp;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * {@link RedisOtpStore} on the reactive Redis driver: the same keys and scripts, without blocking a thread per call.
+ */
+public class ReactiveRedisOtpStore implements ReactiveOtpStore {
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final OtpConfig otpConfig;
+
+    public ReactiveRedisOtpStore(ReactiveStringRedisTemplate redisTemplate, OtpConfig otpConfig) {
+        this.redisTemplate = redisTemplate;
+        this.otpConfig = otpConfig;
+    }
+
+    @Override
+    public Mono<Otp> save(Otp otp) {
+        long ttlMs = Duration.between(LocalDateTime.now(), otp.getExpiresAt()).toMillis();
+        if (ttlMs <= 0) {
+            return Mono.just(otp);
+        }
+        return redisTemplate.execute(RedisOtpStore.SAVE, List.of(key(otp.getPhoneNumber())),
+                        List.of(otp.getOtpValue(), String.valueOf(RedisOtpStore.toEpochMilli(otp.getCreatedAt())),
+                                String.valueOf(ttlMs)))
+                .then(Mono.just(otp));
+    }
+
+    @Override
+    public Mono<Boolean> verifyAndConsume(String phoneNumber, String otpValue) {
+        return redisTemplate.execute(RedisOtpStore.VERIFY_AND_CONSUME,
+                        List.of(key(phoneNumber), RedisOtpStore.verifiedKey(otpConfig, phoneNumber)),
+                        List.of(otpValue, String.valueOf(RedisOtpStore.VERIFIED_RETENTION.toMillis())))
+                .next()
+                .map(consumed -> consumed == 1L)
+                .defaultIfEmpty(false);
+    }
+
+    @Override
+    public Mono<Void> invalidate(String phoneNumber) {
+        return redisTemplate.delete(key(phoneNumber)).then();
+    }
+
+    @Override
+    public Mono<Void> updateDeliveryStatus(Otp otp, Otp.DeliveryStatus status) {
+        return redisTemplate.execute(RedisOtpStore.UPDATE_DELIVERY_STATUS, List.of(key(otp.getPhoneNumber())),
+                        List.of(otp.getOtpValue(), String.valueOf(RedisOtpStore.toEpochMilli(otp.getCreatedAt())),
+                                status.name()))
+                .then();
+    }
+
+    private String key(String phoneNumber) {
+        return otpConfig.getRedisKeyPrefix() + phoneNumber;
+    }
+}
@@ -0,0 +1,141 @@
+package com.thehoodjunction.service;
+
+import com.thehoodjunction.config.OtpConfig;
+import com.thehoodjunction.model.Otp;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OTP store backed by Redis.
+ * Each phone number has one hash that expires with its OTP through the native key TTL, so
+ * nothing accumulates and issuing a new OTP replaces the previous one. Verification runs as a
+ * script, making compare-and-consume a single atomic step across every node. The script leaves a marker
+ * naming the OTP it consumed, kept a little past that OTP's expiry, so any node can tell a verified OTP from
+ * one that expired.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.otp", name = "store", havingValue = "redis")
+@RequiredArgsConstructor
+public class RedisOtpStore implements OtpStore {
+
+    static final String VALUE_FIELD = "value";
+    static final String CREATED_AT_FIELD = "createdAt";
+    static final String DELIVERY_STATUS_FIELD = "deliveryStatus";
+    // How long after its expiry a verified OTP is still known to have been verified
+    static final Duration VERIFIED_RETENTION = Duration.ofMinutes(5);
+
+    static final RedisScript<Long> SAVE = new DefaultRedisScript<>(
+            "redis.call('DEL', KEYS[1]) " +
+            "redis.call('HSET', KEYS[1], 'value', ARGV[1], 'createdAt', ARGV[2]) " +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[3]) " +
+            "return 1",
+            Long.class);
+
+    static final RedisScript<Long> VERIFY_AND_CONSUME = new DefaultRedisScript<>(
+            "local fields = redis.call('HMGET', KEYS[1], 'value', 'createdAt') " +
+            "if not fields[1] or fields[1] ~= ARGV[1] then return 0 end " +
+            "local ttl = redis.call('PTTL', KEYS[1]) " +
+            "redis.call('DEL', KEYS[1]) " +
+            "redis.call('SET', KEYS[2], fields[2], 'PX', math.max(ttl, 0) + tonumber(ARGV[2])) " +
+            "return 1",
+            Long.class);
+
+    // Only touch the hash if it still holds the same issue of the OTP
+    static final RedisScript<Long> UPDATE_DELIVERY_STATUS = new DefaultRedisScript<>(
+            "local fields = redis.call('HMGET', KEYS[1], 'value', 'createdAt') " +
+            "if fields[1] ~= ARGV[1] or fields[2] ~= ARGV[2] then return 0 end " +
+            "redis.call('HSET', KEYS[1], 'deliveryStatus', ARGV[3]) " +
+            "return 1",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final OtpConfig otpConfig;
+
+    @Override
+    public Otp save(Otp otp) {
+        long ttlMs = Duration.between(LocalDateTime.now(), otp.getExpiresAt()).toMillis();
+        if (ttlMs <= 0) {
+            return otp;
+        }
+        redisTemplate.execute(SAVE, List.of(key(otp.getPhoneNumber())),
+                otp.getOtpValue(), String.valueOf(toEpochMilli(otp.getCreatedAt())), String.valueOf(ttlMs));
+        return otp;
+    }
+
+    @Override
+    public boolean verifyAndConsume(String phoneNumber, String otpValue) {
+        Long consumed = redisTemplate.execute(VERIFY_AND_CONSUME,
+                List.of(key(phoneNumber), verifiedKey(otpConfig, phoneNumber)), otpValue,
+                String.valueOf(VERIFIED_RETENTION.toMillis()));
+        return consumed != null && consumed == 1L;
+    }
+
+    @Override
+    public Optional<Otp> findActive(String phoneNumber) {
+        String key = key(phoneNumber);
+        HashOperations<String, String, String> hashOperations = redisTemplate.opsForHash();
+        Map<String, String> fields = hashOperations.entries(key);
+        Long ttlMs = redisTemplate.getExpire(key, TimeUnit.MILLISECONDS);
+        if (fields.isEmpty() || ttlMs == null || ttlMs <= 0) {
+            return Optional.empty();
+        }
+        
+        return Optional.of(Otp.builder()
+                .phoneNumber(phoneNumber)
+                .otpValue(fields.get(VALUE_FIELD))
+                .createdAt(fromEpochMilli(Long.parseLong(fields.get(CREATED_AT_FIELD))))
+                .expiresAt(LocalDateTime.now().plus(Duration.ofMillis(ttlMs)))
+                .used(false)
+                .deliveryStatus(fields.containsKey(DELIVERY_STATUS_FIELD)
+                        ? Otp.DeliveryStatus.valueOf(fields.get(DELIVERY_STATUS_FIELD))
+                        : Otp.DeliveryStatus.PENDING)
+                .build());
+    }
+
+    @Override
+    public void invalidate(String phoneNumber) {
+        redisTemplate.delete(key(phoneNumber));
+    }
+
+    @Override
+    public boolean expiredUnverified(Otp otp) {
+        return !String.valueOf(toEpochMilli(otp.getCreatedAt()))
+                .equals(redisTemplate.opsForValue().get(verifiedKey(otpConfig, otp.getPhoneNumber())));
+    }
+
+    @Override
+    public void updateDeliveryStatus(Otp otp, Otp.DeliveryStatus status) {
+        redisTemplate.execute(UPDATE_DELIVERY_STATUS, List.of(key(otp.getPhoneNumber())),
+                otp.getOtpValue(), String.valueOf(toEpochMilli(otp.getCreatedAt())), status.name());
+    }
+
+    private String key(String phoneNumber) {
+        return otpConfig.getRedisKeyPrefix() + phoneNumber;
+    }
+
+    static String verifiedKey(OtpConfig otpConfig, String phoneNumber) {
+        return otpConfig.getRedisKeyPrefix() + "verified:" + phoneNumber;
+    }
+
+    static long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime fromEpochMilli(long epochMilli) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), ZoneId.systemDefault());
+    }
+}
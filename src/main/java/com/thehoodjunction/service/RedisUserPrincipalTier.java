@@ -0,0 +1,93 @@
+package com.thehoodjunction.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thehoodjunction.config.UserCacheConfig;
+import com.thehoodjunction.security.UserPrincipal;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Redis tier shared by every node behind {@link UserPrincipalCache}.
+ * Evictions are published on a channel so each node can drop its near-cache entry.
+ * Redis failures are logged and treated as misses; the database stays the source of truth.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.user-cache.redis", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class RedisUserPrincipalTier {
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final UserCacheConfig userCacheConfig;
+
+    /**
+     * Read a principal from Redis
+     *
+     * @param username Username
+     * @return The cached principal, or null on a miss or when Redis is unavailable
+     */
+    public UserPrincipal get(String username) {
+        try {
+            String json = redisTemplate.opsForValue().get(key(username));
+            return json != null ? objectMapper.readValue(json, CachedPrincipal.class).toPrincipal() : null;
+        } catch (DataAccessException | JsonProcessingException e) {
+            log.warn("Could not read user principal {} from Redis: {}", username, e.getMessage());
+            return null;
+        }
+    }
+
+    public void put(UserPrincipal principal) {
+        try {
+            String json = objectMapper.writeValueAsString(CachedPrincipal.of(principal));
+            redisTemplate.opsForValue().set(key(principal.getUsername()), json, userCacheConfig.getRedis().getTtl());
+        } catch (DataAccessException | JsonProcessingException e) {
+            log.warn("Could not write user principal {} to Redis: {}", principal.getUsername(), e.getMessage());
+        }
+    }
+
+    /**
+     * Delete the shared entry and tell every node to evict its near-cache copy
+     *
+     * @param username Username to evict
+     */
+    public void evict(String username) {
+        try {
+            redisTemplate.delete(key(username));
+            redisTemplate.convertAndSend(userCacheConfig.getRedis().getInvalidationChannel(), username);
+        } catch (DataAccessException e) {
+            log.warn("Could not evict user principal {} from Redis: {}", username, e.getMessage());
+        }
+    }
+
+    private String key(String username) {
+        return userCacheConfig.getRedis().getKeyPrefix() + username;
+    }
+
+    /**
+     * Wire form of a principal; authorities are derived from roles when read back.
+     */
+    record CachedPrincipal(Long id, String username, String password, String email, String fullName,
+                           Set<String> roles, long tokenVersion, boolean enabled, boolean accountNonExpired,
+                           boolean accountNonLocked, boolean credentialsNonExpired) {
+
+        static CachedPrincipal of(UserPrincipal principal) {
+            return new CachedPrincipal(principal.getId(), principal.getUsername(), principal.getPassword(),
+                    principal.getEmail(), principal.getFullName(), principal.getRoles(), principal.getTokenVersion(),
+                    principal.isEnabled(), principal.isAccountNonExpired(), principal.isAccountNonLocked(),
+                    principal.isCredentialsNonExpired());
+        }
+
+        UserPrincipal toPrincipal() {
+            return UserPrincipal.of(id, username, password, email, fullName, roles, tokenVersion,
+                    enabled, accountNonExpired, accountNonLocked, credentialsNonExpired);
+        }
+    }
+}
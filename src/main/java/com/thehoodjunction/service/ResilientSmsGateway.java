@@ -0,0 +1,263 @@
+package com.thehoodjunction.service;
+
+import com.thehoodjunction.config.SmsGatewayConfig;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Guards SMS gateways so a degraded provider fails fast instead of tying up resources:
+ * <ul>
+ *     <li>a circuit breaker per gateway opens on failures or slow calls and rejects calls while open</li>
+ *     <li>a bulkhead per gateway caps concurrent calls and rejects the excess</li>
+ *     <li>transient failures are retried with jittered exponential backoff, limited by a {@link RetryBudget}</li>
+ *     <li>when the primary gives up, or has not answered within the hedge delay, the secondary is tried</li>
+ * </ul>
+ * Breaker and bulkhead state is published as {@code resilience4j.*} metrics; retries, failovers and hedges as
+ * {@code sms.gateway.*}.
+ */
+@Slf4j
+public class ResilientSmsGateway implements SmsGateway {
+
+    private final GuardedGateway primary;
+    private final GuardedGateway secondary;
+    private final SmsGatewayConfig.Resilience config;
+    private final RetryBudget retryBudget;
+    private final Counter retries;
+    private final Counter retriesDenied;
+    private final Counter failovers;
+    private final Counter hedges;
+
+    /**
+     * @param primary Gateway used first
+     * @param secondary Failover gateway, or null
+     * @param config Resilience settings
+     * @param meterRegistry Registry for metrics
+     */
+    public ResilientSmsGateway(SmsGateway primary, SmsGateway secondary,
+                               SmsGatewayConfig.Resilience config, MeterRegistry meterRegistry) {
+        this.config = config;
+
+        CircuitBreakerRegistry circuitBreakers = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .slidingWindowSize(config.getSlidingWindowSize())
+                .minimumNumberOfCalls(config.getMinimumNumberOfCalls())
+                .failureRateThreshold(config.getFailureRateThreshold())
+                .slowCallDurationThreshold(config.getSlowCallThreshold())
+                .slowCallRateThreshold(config.getSlowCallRateThreshold())
+                .waitDurationInOpenState(config.getOpenStateDuration())
+                .permittedNumberOfCallsInHalfOpenState(config.getPermittedCallsInHalfOpenState())
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                // A rejected number says nothing about the gateway's health
+                .ignoreException(e -> e instanceof SmsDeliveryException delivery && !delivery.isRetryable())
+                .build());
+        BulkheadRegistry bulkheads = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(config.getMaxConcurrentCalls())
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+
+        this.primary = new GuardedGateway(primary, circuitBreakers, bulkheads);
+        this.secondary = secondary != null ? new GuardedGateway(secondary, circuitBreakers, bulkheads) : null;
+        this.retryBudget = new RetryBudget(config.getRetryRatio(), config.getRetryBudgetMaxTokens());
+
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakers).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheads).bindTo(meterRegistry);
+        this.retries = Counter.builder("sms.gateway.retries")
+                .description("Gateway calls retried after a transient failure")
+                .register(meterRegistry);
+        this.retriesDenied = Counter.builder("sms.gateway.retries.denied")
+                .description("Retries skipped because the retry budget was spent")
+                .register(meterRegistry);
+        this.failovers = Counter.builder("sms.gateway.failovers")
+                .description("Messages sent through the secondary gateway after the primary failed")
+                .register(meterRegistry);
+        this.hedges = Counter.builder("sms.gateway.hedges")
+                .description("Messages also sent through the secondary gateway because the primary was slow")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public CompletableFuture<Void> sendOtp(String phoneNumber, String otpValue) {
+        retryBudget.recordRequest();
+        if (secondary == null) {
+            return sendWithRetries(primary, phoneNumber, otpValue);
+        }
+
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        AtomicInteger outstanding = new AtomicInteger(1);
+        AtomicBoolean secondaryStarted = new AtomicBoolean();
+
+        Runnable startSecondary = () -> {
+            if (secondaryStarted.compareAndSet(false, true)) {
+                outstanding.incrementAndGet();
+                sendWithRetries(secondary, phoneNumber, otpValue)
+                        .whenComplete((ignored, error) -> settle(result, outstanding, error));
+            }
+        };
+
+        sendWithRetries(primary, phoneNumber, otpValue).whenComplete((ignored, error) -> {
+            if (error != null && isWorthFailover(error) && !secondaryStarted.get()) {
+                log.warn("{} failed, failing over to {}: {}", primary.getName(), secondary.getName(), error.getMessage());
+                failovers.increment();
+                startSecondary.run();
+            }
+            settle(result, outstanding, error);
+        });
+
+        Duration hedgeDelay = config.getHedgeDelay();
+        if (hedgeDelay != null) {
+            CompletableFuture.delayedExecutor(hedgeDelay.toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+                if (!result.isDone() && !secondaryStarted.get()) {
+                    hedges.increment();
+                    startSecondary.run();
+                }
+            });
+        }
+        return result;
+    }
+
+    /**
+     * @return false only when every gateway's circuit breaker is open
+     */
+    @Override
+    public boolean isAvailable() {
+        return primary.isAvailable() || (secondary != null && secondary.isAvailable());
+    }
+
+    @Override
+    public String getName() {
+        return secondary != null ? primary.getName() + "+" + secondary.getName() : primary.getName();
+    }
+
+    // The first success wins; the result only fails once every attempt has failed
+    private static void settle(CompletableFuture<Void> result, AtomicInteger outstanding, Throwable error) {
+        if (error == null) {
+            result.complete(null);
+        } else if (outstanding.decrementAndGet() == 0) {
+            result.completeExceptionally(error);
+        }
+    }
+
+    private CompletableFuture<Void> sendWithRetries(GuardedGateway gateway, String phoneNumber, String otpValue) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        attempt(gateway, phoneNumber, otpValue, 1, result);
+        return result;
+    }
+
+    private void attempt(GuardedGateway gateway, String phoneNumber, String otpValue, int attempt,
+                         CompletableFuture<Void> result) {
+        gateway.send(phoneNumber, otpValue).whenComplete((ignored, failure) -> {
+            if (failure == null) {
+                result.complete(null);
+                return;
+            }
+
+            Throwable error = unwrap(failure);
+            if (attempt >= config.getMaxAttempts() || !isRetryable(error)) {
+                result.completeExceptionally(error);
+                return;
+            }
+            if (!retryBudget.tryAcquireRetry()) {
+                retriesDenied.increment();
+                result.completeExceptionally(error);
+                return;
+            }
+
+            retries.increment();
+            log.debug("Retrying {} after attempt {}: {}", gateway.getName(), attempt, error.getMessage());
+            CompletableFuture.delayedExecutor(backoff(attempt).toMillis(), TimeUnit.MILLISECONDS)
+                    .execute(() -> attempt(gateway, phoneNumber, otpValue, attempt + 1, result));
+        });
+    }
+
+    // Exponential backoff with full jitter, so retries from many requests do not arrive together
+    private Duration backoff(int attempt) {
+        long ceiling = Math.min(config.getMaxBackoff().toMillis(),
+                config.getInitialBackoff().toMillis() << Math.min(attempt - 1, 20));
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+
+    private static boolean isRetryable(Throwable error) {
+        return (error instanceof SmsDeliveryException delivery && delivery.isRetryable())
+                || error instanceof BulkheadFullException;
+    }
+
+    // Another provider may well accept what this one could not deliver, but not a rejected number
+    private static boolean isWorthFailover(Throwable error) {
+        return !(error instanceof SmsDeliveryException delivery) || delivery.isRetryable();
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * A gateway behind its own circuit breaker and bulkhead
+     */
+    private static class GuardedGateway {
+
+        private final SmsGateway gateway;
+        private final CircuitBreaker circuitBreaker;
+        private final Bulkhead bulkhead;
+
+        GuardedGateway(SmsGateway gateway, CircuitBreakerRegistry circuitBreakers, BulkheadRegistry bulkheads) {
+            this.gateway = gateway;
+            this.circuitBreaker = circuitBreakers.circuitBreaker(gateway.getName());
+            this.bulkhead = bulkheads.bulkhead(gateway.getName());
+        }
+
+        CompletableFuture<Void> send(String phoneNumber, String otpValue) {
+            if (!circuitBreaker.tryAcquirePermission()) {
+                return CompletableFuture.failedFuture(CallNotPermittedException.createCallNotPermittedException(circuitBreaker));
+            }
+            if (!bulkhead.tryAcquirePermission()) {
+                circuitBreaker.releasePermission();
+                return CompletableFuture.failedFuture(BulkheadFullException.createBulkheadFullException(bulkhead));
+            }
+
+            long start = System.nanoTime();
+            CompletableFuture<Void> call;
+            try {
+                call = gateway.sendOtp(phoneNumber, otpValue);
+            } catch (RuntimeException e) {
+                call = CompletableFuture.failedFuture(e);
+            }
+
+            return call.whenComplete((ignored, failure) -> {
+                bulkhead.onComplete();
+                long duration = System.nanoTime() - start;
+                if (failure == null) {
+                    circuitBreaker.onSuccess(duration, TimeUnit.NANOSECONDS);
+                } else {
+                    circuitBreaker.onError(duration, TimeUnit.NANOSECONDS, unwrap(failure));
+                }
+            });
+        }
+
+        boolean isAvailable() {
+            CircuitBreaker.State state = circuitBreaker.getState();
+            return state != CircuitBreaker.State.OPEN && state != CircuitBreaker.State.FORCED_OPEN;
+        }
+
+        String getName() {
+            return gateway.getName();
+        }
+    }
+}
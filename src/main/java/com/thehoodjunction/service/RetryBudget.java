@@ -0,0 +1,40 @@
+package com.thehoodjunction.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps retries at a fraction of requests, so that retries cannot multiply the load on a dependency that is
+ * already failing. Every request deposits {@code ratio} of a token, up to {@code maxTokens}; every retry spends one.
+ */
+public class RetryBudget {
+
+    // Balance is kept in thousandths of a token so deposits can be fractional
+    private static final long SCALE = 1000;
+
+    private final long deposit;
+    private final long capacity;
+    private final AtomicLong balance;
+
+    /**
+     * @param ratio Retries allowed per request once the initial tokens are spent
+     * @param maxTokens Retries that can be saved up for a burst, also the starting balance
+     */
+    public RetryBudget(double ratio, int maxTokens) {
+        this.deposit = Math.round(ratio * SCALE);
+        this.capacity = maxTokens * SCALE;
+        this.balance = new AtomicLong(capacity);
+    }
+
+    public void recordRequest() {
+        balance.updateAndGet(current -> Math.min(capacity, current + deposit));
+    }
+
+    /**
+     * Spend one token on a retry
+     *
+     * @return true if the retry may go ahead
+     */
+    public boolean tryAcquireRetry() {
+        return balance.getAndUpdate(current -> current >= SCALE ? current - SCALE : current) >= SCALE;
+    }
+}
@@ -0,0 +1,24 @@
+package com.thehoodjunction.service;
+
+import lombok.Getter;
+
+/**
+ * An SMS gateway did not accept a message.
+ * Retryable failures are transient (timeouts, connection errors, 5xx); the rest, such as an invalid number,
+ * will fail the same way on every attempt.
+ */
+@Getter
+public class SmsDeliveryException extends RuntimeException {
+
+    private final boolean retryable;
+
+    public SmsDeliveryException(String message, boolean retryable) {
+        super(message);
+        this.retryable = retryable;
+    }
+
+    public SmsDeliveryException(String message, Throwable cause, boolean retryable) {
+        super(message, cause);
+        this.retryable = retryable;
+    }
+}
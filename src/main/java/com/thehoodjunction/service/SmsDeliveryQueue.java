@@ -0,0 +1,103 @@
+package com.thehoodjunction.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thehoodjunction.config.Msg91Config;
+import com.thehoodjunction.model.Otp;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+/**
+ * Hands OTPs to RabbitMQ for the {@link SmsDeliveryWorker}s to send.
+ * First sends and resends go to separate lane queues with their own consumers, so resend bursts cannot delay logins.
+ * Messages are persistent and each publish waits for the broker's confirm, so an OTP accepted by /otp/send survives
+ * a broker restart. Requires {@code spring.rabbitmq.publisher-confirm-type: simple}.
+ */
+public class SmsDeliveryQueue {
+
+    /**
+     * Delivery lanes, each a durable queue bound to the SMS exchange under its routing key
+     */
+    public enum Lane {
+        LOGIN("login"),
+        RESEND("resend");
+
+        private final String routingKey;
+
+        Lane(String routingKey) {
+            this.routingKey = routingKey;
+        }
+
+        public String getRoutingKey() {
+            return routingKey;
+        }
+
+        /**
+         * @param exchange SMS exchange name
+         * @return Queue the lane's consumers read from
+         */
+        public String queueName(String exchange) {
+            return exchange + "." + routingKey;
+        }
+
+        /**
+         * @param exchange SMS exchange name
+         * @return Queue failed deliveries wait in before going back to the lane
+         */
+        public String retryQueueName(String exchange) {
+            return queueName(exchange) + ".retry";
+        }
+    }
+
+    private final RabbitTemplate rabbitTemplate;
+    private final ObjectMapper objectMapper;
+    private final Msg91Config.Queue queue;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @param rabbitTemplate Template on a connection factory with simple publisher confirms
+     * @param objectMapper Mapper OTPs are written with
+     * @param queue Queue settings
+     * @param meterRegistry Registry for queue metrics
+     */
+    public SmsDeliveryQueue(RabbitTemplate rabbitTemplate, ObjectMapper objectMapper, Msg91Config.Queue queue,
+                            MeterRegistry meterRegistry) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.objectMapper = objectMapper;
+        this.queue = queue;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Queue an OTP for delivery and wait for the broker to confirm it
+     *
+     * @param otp Stored OTP to deliver
+     * @param resend Whether this replaces an earlier OTP, which puts it on the resend lane
+     * @throws org.springframework.amqp.AmqpException if the broker is unreachable or does not confirm in time
+     */
+    public void enqueue(Otp otp, boolean resend) {
+        Lane lane = resend ? Lane.RESEND : Lane.LOGIN;
+        Message message = toMessage(otp);
+        rabbitTemplate.invoke(operations -> {
+            operations.send(queue.getExchange(), lane.getRoutingKey(), message);
+            operations.waitForConfirmsOrDie(queue.getConfirmTimeout().toMillis());
+            return null;
+        });
+        meterRegistry.counter("otp.queue.enqueued", "lane", lane.getRoutingKey()).increment();
+    }
+
+    private Message toMessage(Otp otp) {
+        try {
+            return MessageBuilder.withBody(objectMapper.writeValueAsBytes(otp))
+                    .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                    .setDeliveryMode(MessageDeliveryMode.PERSISTENT)
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not write OTP for " + otp.getPhoneNumber(), e);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.thehoodjunction.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thehoodjunction.config.Msg91Config;
+import com.thehoodjunction.model.Otp;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageListener;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Consumes the SMS lane queues and sends each OTP through the {@link SmsGateway}.
+ * A consumer waits for its gateway call, so how many OTPs a node sends at once is set by the lanes' consumer counts.
+ * A failed attempt is rejected without requeueing; the lane dead-letters it to its delay queue, which returns it
+ * after {@code retry-delay}. Attempts are counted from the message's {@code x-death} header, and once
+ * {@code max-attempts} have failed the OTP is marked failed and acknowledged. Failures the gateway reports as not
+ * retryable, such as an invalid number, mark the OTP failed at once. OTPs that expire while waiting are dropped
+ * without being sent.
+ */
+@Slf4j
+public class SmsDeliveryWorker implements MessageListener {
+
+    private final SmsGateway smsGateway;
+    private final OtpStore otpStore;
+    private final ObjectMapper objectMapper;
+    private final Msg91Config.Queue queue;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @param smsGateway Gateway the OTPs are sent through
+     * @param otpStore Store the delivery status is recorded in
+     * @param objectMapper Mapper the OTPs were queued with
+     * @param queue Queue settings
+     * @param meterRegistry Registry for queue metrics
+     */
+    public SmsDeliveryWorker(SmsGateway smsGateway, OtpStore otpStore, ObjectMapper objectMapper,
+                             Msg91Config.Queue queue, MeterRegistry meterRegistry) {
+        this.smsGateway = smsGateway;
+        this.otpStore = otpStore;
+        this.objectMapper = objectMapper;
+        this.queue = queue;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void onMessage(Message message) {
+        Otp otp;
+        try {
+            otp = objectMapper.readValue(message.getBody(), Otp.class);
+        } catch (IOException e) {
+            // Retrying cannot fix it; acknowledge so it does not cycle through the delay queue
+            log.error("Dropping unreadable SMS delivery: {}", e.getMessage());
+            return;
+        }
+        String lane = message.getMessageProperties().getReceivedRoutingKey();
+        deliver(otp, attempt(message), lane != null ? lane : "unknown");
+    }
+
+    /**
+     * @param otp OTP to send
+     * @param attempt 1 for the first delivery
+     * @param lane Routing key of the lane it arrived on
+     * @throws AmqpRejectAndDontRequeueException if the attempt failed and another is due
+     */
+    void deliver(Otp otp, int attempt, String lane) {
+        if (otp.isExpired()) {
+            log.warn("OTP for {} expired before it could be sent", otp.getPhoneNumber());
+            record(otp, Otp.DeliveryStatus.FAILED, "expired", lane);
+            return;
+        }
+        try {
+            smsGateway.sendOtp(otp.getPhoneNumber(), otp.getOtpValue())
+                    .get(queue.getSendTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException | RuntimeException e) {
+            Throwable error = unwrap(e);
+            String reason = error != e ? error.getMessage() : e.toString();
+            if (error instanceof SmsDeliveryException delivery && !delivery.isRetryable()) {
+                // Another pass through the delay queue would fail the same way
+                log.error("OTP to {} rejected, not retrying: {}", otp.getPhoneNumber(), reason);
+                record(otp, Otp.DeliveryStatus.FAILED, "rejected", lane);
+                return;
+            }
+            if (attempt < queue.getMaxAttempts()) {
+                log.warn("Attempt {} to send OTP to {} failed, retrying in {}: {}", attempt, otp.getPhoneNumber(),
+                        queue.getRetryDelay(), reason);
+                meterRegistry.counter("otp.queue.delivered", "lane", lane, "outcome", "retried").increment();
+                throw new AmqpRejectAndDontRequeueException("OTP delivery attempt " + attempt + " failed");
+            }
+            log.error("Failed to send OTP to {} after {} attempts: {}", otp.getPhoneNumber(), attempt, reason);
+            record(otp, Otp.DeliveryStatus.FAILED, "failed", lane);
+            return;
+        } catch (InterruptedException e) {
+            // Shutting down; the broker redelivers the unacknowledged message
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while sending OTP", e);
+        }
+        record(otp, Otp.DeliveryStatus.SENT, "sent", lane);
+    }
+
+    /**
+     * @param message Delivered message
+     * @return 1 plus the times it was rejected by a lane and came back through a delay queue
+     */
+    static int attempt(Message message) {
+        List<Map<String, ?>> deaths = message.getMessageProperties().getXDeathHeader();
+        long rejections = 0;
+        if (deaths != null) {
+            for (Map<String, ?> death : deaths) {
+                if ("rejected".equals(String.valueOf(death.get("reason"))) && death.get("count") instanceof Number count) {
+                    rejections += count.longValue();
+                }
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, rejections + 1);
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        Throwable error = e;
+        while ((error instanceof ExecutionException || error instanceof CompletionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    private void record(Otp otp, Otp.DeliveryStatus status, String outcome, String lane) {
+        meterRegistry.counter("otp.queue.delivered", "lane", lane, "outcome", outcome).increment();
+        try {
+            otpStore.updateDeliveryStatus(otp, status);
+        } catch (RuntimeException e) {
+            log.warn("Could not record OTP delivery status for {}", otp.getPhoneNumber(), e);
+        }
+    }
+}
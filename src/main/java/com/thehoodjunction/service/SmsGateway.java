@@ -0,0 +1,31 @@
+package com.thehoodjunction.service;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An SMS provider that can deliver OTPs.
+ * The gateway injected by default is {@link ResilientSmsGateway}, which guards MSG91 and an optional secondary provider.
+ */
+public interface SmsGateway {
+
+    /**
+     * Send an OTP without blocking the caller
+     *
+     * @param phoneNumber Phone number to send OTP to (with country code)
+     * @param otpValue OTP value to send
+     * @return Completes once the provider has accepted the message, or exceptionally with {@link SmsDeliveryException}
+     */
+    CompletableFuture<Void> sendOtp(String phoneNumber, String otpValue);
+
+    /**
+     * @return false while the gateway is known to be failing, so callers can reject work up front
+     */
+    default boolean isAvailable() {
+        return true;
+    }
+
+    /**
+     * @return Name used in logs and metrics
+     */
+    String getName();
+}
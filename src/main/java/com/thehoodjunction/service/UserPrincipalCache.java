@@ -0,0 +1,110 @@
+package com.thehoodjunction.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.thehoodjunction.config.UserCacheConfig;
+import com.thehoodjunction.security.UserPrincipal;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Function;
+
+/**
+ * Bounded, TTL-evicting cache of user principals keyed by username.
+ * Holds immutable {@link UserPrincipal} snapshots rather than JPA entities so
+ * cached values can be shared across threads and outlive the persistence context.
+ * Hit, miss and eviction counts are published as {@code cache.*} metrics with {@code cache=userPrincipals}.
+ * When {@link RedisUserPrincipalTier} is enabled this is the near cache in front of a shared Redis tier.
+ */
+@Component
+public class UserPrincipalCache {
+
+    static final String CACHE_NAME = "userPrincipals";
+
+    private final UserCacheConfig userCacheConfig;
+    private final Cache<String, UserPrincipal> cache;
+    private final RedisUserPrincipalTier sharedTier;
+
+    public UserPrincipalCache(UserCacheConfig userCacheConfig, MeterRegistry meterRegistry,
+                              ObjectProvider<RedisUserPrincipalTier> sharedTier) {
+        this.userCacheConfig = userCacheConfig;
+        this.sharedTier = sharedTier.getIfAvailable();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(userCacheConfig.getMaximumSize())
+                .expireAfterWrite(userCacheConfig.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Get the principal for a username, loading it on a miss
+     *
+     * @param username Username
+     * @param loader Loads the principal, returning null when the user does not exist
+     * @return The principal, or null if the loader returned null
+     */
+    public UserPrincipal get(String username, Function<String, UserPrincipal> loader) {
+        if (!userCacheConfig.isEnabled()) {
+            return loader.apply(username);
+        }
+        return cache.get(username, name -> loadThroughSharedTier(name, loader));
+    }
+
+    private UserPrincipal loadThroughSharedTier(String username, Function<String, UserPrincipal> loader) {
+        if (sharedTier == null) {
+            return loader.apply(username);
+        }
+        
+        UserPrincipal principal = sharedTier.get(username);
+        if (principal == null) {
+            principal = loader.apply(username);
+            if (principal != null) {
+                sharedTier.put(principal);
+            }
+        }
+        return principal;
+    }
+
+    /**
+     * Evict a username. When called inside a transaction the entry is evicted again
+     * after commit so a concurrent read cannot re-cache the pre-commit state.
+     *
+     * @param username Username to evict
+     */
+    public void invalidate(String username) {
+        evictEverywhere(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictEverywhere(username);
+                }
+            });
+        }
+    }
+
+    /**
+     * Evict only this node's near-cache entry, e.g. on an invalidation published by another node
+     *
+     * @param username Username to evict
+     */
+    public void invalidateLocal(String username) {
+        cache.invalidate(username);
+    }
+
+    private void evictEverywhere(String username) {
+        cache.invalidate(username);
+        if (sharedTier != null) {
+            sharedTier.evict(username);
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
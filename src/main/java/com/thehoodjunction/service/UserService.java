@@ -1,9 +1,13 @@
 package com.thehoodjunction.service;
 
+import com.thehoodjunction.dto.DomainEvent;
 import com.thehoodjunction.model.User;
 import com.thehoodjunction.repository.jpa.UserRepository;
+import com.thehoodjunction.security.TokenRevocationService;
+import com.thehoodjunction.security.UserPrincipal;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -12,22 +16,51 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
-public class UserService implements UserDetailsService {
+public class UserService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final TokenRevocationService tokenRevocationService;
+    private final UserPrincipalCache userPrincipalCache;
+    private final DomainEventPublisher domainEventPublisher;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
+        UserPrincipal principal = userPrincipalCache.get(username, name -> userRepository.findByUsername(name)
+                .map(UserPrincipal::from)
+                .orElse(null));
+        
+        if (principal == null) {
+            throw new UsernameNotFoundException("User not found with username: " + username);
+        }
+        
+        return principal;
+    }
+
+    /**
+     * Store a re-hashed password, called after a successful login when the stored hash uses an outdated work factor.
+     * The password itself is unchanged, so issued tokens stay valid.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        User entity = userRepository.findByUsername(user.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + user.getUsername()));
+        entity.setPassword(newPassword);
+        userRepository.save(entity);
+        userPrincipalCache.invalidate(entity.getUsername());
+        return UserPrincipal.from(entity);
     }
 
+    /**
+     * Create a user, recording {@code USER_REGISTERED} in the outbox in the same transaction
+     */
     @Transactional
     public User createUser(User user) {
         if (userRepository.existsByUsername(user.getUsername())) {
@@ -46,7 +79,10 @@ public class UserService implements UserDetailsService {
             user.setRoles(roles);
         }
         
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        domainEventPublisher.publish(DomainEvent.Type.USER_REGISTERED, savedUser.getUsername(),
+                Map.of("roles", String.join(",", savedUser.getRoles())));
+        return savedUser;
     }
 
     public List<User> getAllUsers() {
@@ -61,13 +97,25 @@ public class UserService implements UserDetailsService {
         return userRepository.findByUsername(username);
     }
 
+    /**
+     * Update a user. Bumps the token version so tokens issued before the update,
+     * which may carry stale roles, are no longer accepted.
+     */
     @Transactional
     public User updateUser(User user) {
-        return userRepository.save(user);
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        User savedUser = userRepository.save(user);
+        userPrincipalCache.invalidate(savedUser.getUsername());
+        tokenRevocationService.revokeBefore(savedUser.getUsername(), savedUser.getTokenVersion());
+        return savedUser;
     }
 
     @Transactional
     public void deleteUser(Long id) {
+        userRepository.findById(id).ifPresent(user -> {
+            userPrincipalCache.invalidate(user.getUsername());
+            tokenRevocationService.revokeAll(user.getUsername());
+        });
         userRepository.deleteById(id);
     }
 }
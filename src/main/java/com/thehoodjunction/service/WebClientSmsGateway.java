@@ -0,0 +1,57 @@
+package com.thehoodjunction.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.HttpUrl;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends OTPs through the MSG91 OTP API on a non-blocking {@link WebClient}, so no thread waits on the provider.
+ * Responses are judged exactly as in {@link Msg91SmsGateway}.
+ */
+public class WebClientSmsGateway implements SmsGateway {
+
+    private final String name;
+    private final WebClient webClient;
+    private final HttpUrl otpUrl;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @param name Name used in logs and metrics
+     * @param webClient Shared client
+     * @param otpUrl OTP endpoint with the template and auth key applied
+     * @param objectMapper Mapper for response bodies
+     */
+    public WebClientSmsGateway(String name, WebClient webClient, HttpUrl otpUrl, ObjectMapper objectMapper) {
+        this.name = name;
+        this.webClient = webClient;
+        this.otpUrl = otpUrl;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public CompletableFuture<Void> sendOtp(String phoneNumber, String otpValue) {
+        HttpUrl url = otpUrl.newBuilder()
+                .addQueryParameter("mobile", phoneNumber)
+                .addQueryParameter("otp", otpValue)
+                .build();
+
+        return webClient.get()
+                .uri(url.uri())
+                .exchangeToMono(response -> response.bodyToMono(String.class)
+                        .defaultIfEmpty("")
+                        .doOnNext(body -> Msg91SmsGateway.checkAccepted(name, response.statusCode().value(), body,
+                                objectMapper)))
+                .onErrorMap(WebClientRequestException.class,
+                        e -> new SmsDeliveryException(name + " call failed: " + e.getMessage(), e, true))
+                .then()
+                .toFuture();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,271 @@
+package com.thehoodjunction.websocket;
+
+import com.thehoodjunction.config.WebSocketConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounds how many broker messages each WebSocket session may have waiting for delivery.
+ * Messages are counted when the broker hands them to the outbound channel and released once written to the socket,
+ * so the count covers both the outbound executor's queue and the session's send buffer.
+ * A session over {@code app.websocket.slow-consumer.max-pending} is handled by the configured
+ * {@link WebSocketConfig.SlowConsumerPolicy} instead of holding memory and outbound threads for everyone else.
+ * <ul>
+ *     <li>{@code websocket.sessions.pending}: broker messages waiting for delivery across all sessions</li>
+ *     <li>{@code websocket.frames.dropped}: messages not delivered, tagged by reason</li>
+ *     <li>{@code websocket.fanout.latency}: time from the broker to the socket, tagged by destination</li>
+ * </ul>
+ */
+@Component
+@Profile("!reactive")
+@Slf4j
+public class OutboundFlowControl implements ChannelInterceptor {
+
+    private static final byte[] MESSAGE_FRAME = "MESSAGE\n".getBytes(StandardCharsets.UTF_8);
+
+    private final WebSocketConfig.SlowConsumerPolicy policy;
+    private final int maxPending;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+    private final Map<String, Timer> fanoutLatency = new ConcurrentHashMap<>();
+    private final Map<String, Counter> dropped = new ConcurrentHashMap<>();
+
+    public OutboundFlowControl(WebSocketConfig webSocketConfig, MeterRegistry meterRegistry) {
+        this.policy = webSocketConfig.getSlowConsumer().getPolicy();
+        this.maxPending = webSocketConfig.getSlowConsumer().getMaxPending();
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("websocket.sessions.pending", this, OutboundFlowControl::getPendingCount)
+                .description("Broker messages waiting for delivery to WebSocket sessions")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Wrap the STOMP handler so every session's writes are tracked
+     *
+     * @param handler Handler to decorate
+     * @return Decorated handler
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                SessionState state = new SessionState(session);
+                sessions.put(session.getId(), state);
+                super.afterConnectionEstablished(state.trackedSession);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessions.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        if (accessor.getMessageType() != SimpMessageType.MESSAGE) {
+            return message;
+        }
+        SessionState state = accessor.getSessionId() != null ? sessions.get(accessor.getSessionId()) : null;
+        if (state == null) {
+            return message;
+        }
+
+        String destination = destination(accessor);
+        if (state.pending.incrementAndGet() <= maxPending) {
+            state.inFlight.addLast(new InFlight(destinationTag(destination), System.nanoTime()));
+            return message;
+        }
+        state.pending.decrementAndGet();
+
+        switch (policy) {
+            case COALESCE -> {
+                Message<?> replaced;
+                synchronized (state.coalesced) {
+                    state.channel = channel;
+                    replaced = state.coalesced.put(destination, message);
+                }
+                if (replaced != null) {
+                    countDropped("coalesced");
+                }
+                if (state.pending.get() <= maxPending / 2) {
+                    // The backlog drained while this message was being set aside
+                    releaseCoalesced(state);
+                }
+            }
+            case DISCONNECT -> {
+                countDropped("disconnected");
+                if (state.closing.compareAndSet(false, true)) {
+                    log.warn("Closing WebSocket session {}: {} messages waiting for delivery", state.session.getId(),
+                            maxPending);
+                    try {
+                        state.session.close(CloseStatus.SESSION_NOT_RELIABLE);
+                    } catch (IOException e) {
+                        log.debug("Could not close slow WebSocket session {}", state.session.getId(), e);
+                    }
+                }
+            }
+            default -> countDropped("dropped");
+        }
+        return null;
+    }
+
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        if (ex == null) {
+            return;
+        }
+        // The outbound executor rejected the message, so it will never reach the socket
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        SessionState state = accessor.getSessionId() != null ? sessions.get(accessor.getSessionId()) : null;
+        if (accessor.getMessageType() == SimpMessageType.MESSAGE && state != null) {
+            state.inFlight.pollLast();
+            state.pending.decrementAndGet();
+            countDropped("rejected");
+        }
+    }
+
+    /**
+     * @return Broker messages waiting for delivery across all sessions
+     */
+    public int getPendingCount() {
+        int count = 0;
+        for (SessionState state : sessions.values()) {
+            count += state.pending.get();
+        }
+        return count;
+    }
+
+    private void delivered(SessionState state) {
+        InFlight inFlight = state.inFlight.pollFirst();
+        if (inFlight != null) {
+            // Outbound threads may reorder a session's messages, so this pairs each write with the oldest pending one
+            fanoutLatency.computeIfAbsent(inFlight.destination(), destination -> Timer.builder("websocket.fanout.latency")
+                            .description("Time from the broker to the WebSocket for each subscriber")
+                            .tag("destination", destination)
+                            .register(meterRegistry))
+                    .record(System.nanoTime() - inFlight.startNanos(), TimeUnit.NANOSECONDS);
+        }
+        if (state.pending.decrementAndGet() <= maxPending / 2) {
+            releaseCoalesced(state);
+        }
+    }
+
+    private void releaseCoalesced(SessionState state) {
+        MessageChannel channel;
+        Message<?>[] latest;
+        synchronized (state.coalesced) {
+            if (state.coalesced.isEmpty()) {
+                return;
+            }
+            channel = state.channel;
+            latest = state.coalesced.values().toArray(new Message<?>[0]);
+            state.coalesced.clear();
+        }
+        for (Message<?> message : latest) {
+            channel.send(message);
+        }
+    }
+
+    private void countDropped(String reason) {
+        dropped.computeIfAbsent(reason, key -> Counter.builder("websocket.frames.dropped")
+                        .description("Broker messages not delivered to a slow or overloaded WebSocket session")
+                        .tag("reason", key)
+                        .register(meterRegistry))
+                .increment();
+    }
+
+    /**
+     * Destination for coalescing. User destinations are reported as subscribed to
+     */
+    static String destination(SimpMessageHeaderAccessor accessor) {
+        String destination = accessor.getFirstNativeHeader(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION);
+        if (destination == null) {
+            destination = accessor.getDestination();
+        }
+        return destination != null ? destination : "none";
+    }
+
+    /**
+     * Destination for metric tags: rooms such as {@code /topic/hood.42} share one tag per prefix
+     */
+    static String destinationTag(String destination) {
+        int dot = destination.indexOf('.');
+        return dot < 0 ? destination : destination.substring(0, dot);
+    }
+
+    private static boolean isMessageFrame(WebSocketMessage<?> message) {
+        if (message instanceof TextMessage text) {
+            return text.getPayload().startsWith("MESSAGE\n");
+        }
+        if (message.getPayload() instanceof ByteBuffer buffer && buffer.remaining() >= MESSAGE_FRAME.length) {
+            for (int i = 0; i < MESSAGE_FRAME.length; i++) {
+                if (buffer.get(buffer.position() + i) != MESSAGE_FRAME[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private record InFlight(String destination, long startNanos) {
+    }
+
+    private class SessionState {
+        final WebSocketSession session;
+        final WebSocketSession trackedSession;
+        final AtomicInteger pending = new AtomicInteger();
+        final ConcurrentLinkedDeque<InFlight> inFlight = new ConcurrentLinkedDeque<>();
+        final AtomicBoolean closing = new AtomicBoolean();
+        // Latest undelivered message per destination while the session is over its limit
+        final Map<String, Message<?>> coalesced = new LinkedHashMap<>();
+        MessageChannel channel;
+
+        SessionState(WebSocketSession session) {
+            this.session = session;
+            this.trackedSession = new WebSocketSessionDecorator(session) {
+                @Override
+                public void sendMessage(WebSocketMessage<?> message) throws IOException {
+                    try {
+                        super.sendMessage(message);
+                    } finally {
+                        if (isMessageFrame(message)) {
+                            delivered(SessionState.this);
+                        }
+                    }
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.thehoodjunction.websocket;
+
+import com.thehoodjunction.security.UserPrincipal;
+import com.thehoodjunction.service.HoodMembershipService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+
+import java.security.Principal;
+
+/**
+ * Decides what clients may subscribe to, by allowlist: {@code /topic/public}, the rooms of neighborhoods they
+ * belong to ({@code /topic/hood.{hoodId}}), and their own {@code /user/...} destinations. Anything else under the
+ * broker prefixes is refused; with the relay that includes the topics nodes use to share user destinations and the
+ * user registry, which would otherwise expose every user's messages and sessions.
+ * Subscriptions must name one destination: a pattern such as {@code /topic/**}, or RabbitMQ's
+ * {@code *}/{@code #} wildcards with the relay, would receive every room without a membership check.
+ * Clients may only SEND to {@code /app} destinations, so every broadcast passes through a controller
+ * that stamps the verified sender and checks membership, rather than going straight to a topic.
+ */
+@Component
+@Profile("!reactive")
+@RequiredArgsConstructor
+public class RoomAccessInterceptor implements ChannelInterceptor {
+
+    public static final String ROOM_PREFIX = "/topic/hood.";
+
+    private static final String PUBLIC_TOPIC = "/topic/public";
+    // Resolved by Spring to the session's own queues
+    private static final String USER_PREFIX = "/user/";
+
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+    private final HoodMembershipService hoodMembershipService;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getDestination() == null) {
+            return message;
+        }
+
+        String destination = accessor.getDestination();
+        if (accessor.getCommand() == StompCommand.SEND && !destination.startsWith("/app/")) {
+            throw new AccessDeniedException("Messages must be sent to /app destinations");
+        }
+        if (accessor.getCommand() != StompCommand.SUBSCRIBE) {
+            return message;
+        }
+        if (isPattern(destination)) {
+            throw new AccessDeniedException("Pattern subscriptions are not allowed on " + destination);
+        }
+        if (destination.equals(PUBLIC_TOPIC) || destination.startsWith(USER_PREFIX)) {
+            return message;
+        }
+        if (!destination.startsWith(ROOM_PREFIX)) {
+            throw new AccessDeniedException("Cannot subscribe to " + destination);
+        }
+        if (!isMember(accessor.getUser(), destination.substring(ROOM_PREFIX.length()))) {
+            throw new AccessDeniedException("Not a member of " + destination);
+        }
+        return message;
+    }
+
+    // Ant patterns for the simple broker, AMQP topic wildcards for the relay
+    private boolean isPattern(String destination) {
+        return pathMatcher.isPattern(destination) || destination.indexOf('#') >= 0;
+    }
+
+    /**
+     * @param user Session user
+     * @param hoodId Neighborhood id as it appears in the destination
+     * @return Whether the user belongs to the neighborhood; false for anything that is not a plain id, such as patterns
+     */
+    public boolean isMember(Principal user, String hoodId) {
+        if (!(user instanceof Authentication authentication)
+                || !(authentication.getPrincipal() instanceof UserPrincipal principal)) {
+            return false;
+        }
+        try {
+            return hoodMembershipService.isMember(principal.getId(), Long.parseLong(hoodId));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
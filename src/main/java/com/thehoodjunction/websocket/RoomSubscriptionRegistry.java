@@ -0,0 +1,123 @@
+package com.thehoodjunction.websocket;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.broker.AbstractSubscriptionRegistry;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.PathMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Subscription registry for the simple broker, indexed by exact destination.
+ * Spring's default registry caches a bounded number of destinations and scans every subscription on a miss,
+ * which thrashes once there are thousands of rooms such as {@code /topic/hood.42}. Here each destination maps
+ * directly to its subscribers, so resolving a broadcast is one hash lookup and the result is a read-only view,
+ * not a copy. Updates lock only the hash bin of the destination or session they touch, so subscribes to
+ * different rooms do not contend. Pattern subscriptions (e.g. {@code /queue/alerts.*}) are still supported but
+ * are matched against every message; {@link RoomAccessInterceptor} rejects them on {@code /topic}. STOMP
+ * selector headers are not supported.
+ */
+public class RoomSubscriptionRegistry extends AbstractSubscriptionRegistry {
+
+    private static final MultiValueMap<String, String> NO_SUBSCRIPTIONS =
+            CollectionUtils.unmodifiableMultiValueMap(new LinkedMultiValueMap<>());
+
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+    // destination -> session id -> subscription ids
+    private final Map<String, Map<String, List<String>>> byDestination = new ConcurrentHashMap<>();
+    // Same shape, for destinations containing wildcards
+    private final Map<String, Map<String, List<String>>> byPattern = new ConcurrentHashMap<>();
+    // session id -> subscription id -> destination, for unsubscribe and disconnect
+    private final Map<String, Map<String, String>> bySession = new ConcurrentHashMap<>();
+
+    @Override
+    protected void addSubscriptionInternal(String sessionId, String subscriptionId, String destination,
+                                           Message<?> message) {
+        String previous = bySession.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>())
+                .put(subscriptionId, destination);
+        if (previous != null) {
+            remove(previous, sessionId, subscriptionId);
+        }
+        index(destination).compute(destination, (key, sessions) -> {
+            Map<String, List<String>> subscribers = sessions != null ? sessions : new ConcurrentHashMap<>();
+            subscribers.merge(sessionId, List.of(subscriptionId), RoomSubscriptionRegistry::concat);
+            return subscribers;
+        });
+    }
+
+    @Override
+    protected void removeSubscriptionInternal(String sessionId, String subscriptionId, Message<?> message) {
+        Map<String, String> subscriptions = bySession.get(sessionId);
+        String destination = subscriptions != null ? subscriptions.remove(subscriptionId) : null;
+        if (destination != null) {
+            remove(destination, sessionId, subscriptionId);
+        }
+    }
+
+    @Override
+    public void unregisterAllSubscriptions(String sessionId) {
+        Map<String, String> subscriptions = bySession.remove(sessionId);
+        if (subscriptions != null) {
+            subscriptions.forEach((subscriptionId, destination) -> remove(destination, sessionId, subscriptionId));
+        }
+    }
+
+    @Override
+    protected MultiValueMap<String, String> findSubscriptionsInternal(String destination, Message<?> message) {
+        Map<String, List<String>> subscribers = byDestination.get(destination);
+        if (byPattern.isEmpty()) {
+            return subscribers != null
+                    ? CollectionUtils.unmodifiableMultiValueMap(CollectionUtils.toMultiValueMap(subscribers))
+                    : NO_SUBSCRIPTIONS;
+        }
+
+        MultiValueMap<String, String> result = new LinkedMultiValueMap<>();
+        if (subscribers != null) {
+            subscribers.forEach(result::addAll);
+        }
+        byPattern.forEach((pattern, sessions) -> {
+            if (pathMatcher.match(pattern, destination)) {
+                sessions.forEach(result::addAll);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @return Number of destinations with at least one subscriber
+     */
+    public int getDestinationCount() {
+        return byDestination.size() + byPattern.size();
+    }
+
+    private Map<String, Map<String, List<String>>> index(String destination) {
+        return pathMatcher.isPattern(destination) ? byPattern : byDestination;
+    }
+
+    private void remove(String destination, String sessionId, String subscriptionId) {
+        index(destination).computeIfPresent(destination, (key, sessions) -> {
+            sessions.computeIfPresent(sessionId, (id, subscriptionIds) -> without(subscriptionIds, subscriptionId));
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+
+    // Lists are replaced rather than modified so readers never see one change underneath them
+    private static List<String> concat(List<String> subscriptionIds, List<String> added) {
+        List<String> result = new ArrayList<>(subscriptionIds.size() + added.size());
+        result.addAll(subscriptionIds);
+        result.addAll(added);
+        return List.copyOf(result);
+    }
+
+    private static List<String> without(List<String> subscriptionIds, String removed) {
+        List<String> result = new ArrayList<>(subscriptionIds);
+        result.remove(removed);
+        return result.isEmpty() ? null : List.copyOf(result);
+    }
+}
@@ -0,0 +1,283 @@
+package com.thehoodjunction.websocket;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.thehoodjunction.config.WebSocketConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.converter.SmartMessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * CBOR payloads for clients that ask for them. A client sends {@code accept:application/cbor} on CONNECT and then
+ * receives broker messages as {@code application/cbor} in binary WebSocket frames, with timestamps as epoch
+ * milliseconds instead of ISO strings. It may also SEND with {@code content-type:application/cbor}.
+ * Other clients keep getting JSON.
+ * While any session has negotiated CBOR, each broadcast is encoded once for all of them, next to the JSON,
+ * with a serializer resolved once per payload type; each session's message then just takes the encoding it asked for.
+ * Only raw WebSocket sessions on the simple broker can negotiate CBOR: SockJS carries text only, and the relay
+ * would not carry the second encoding between nodes.
+ */
+@Component
+@Profile("!reactive")
+@Slf4j
+public class StompPayloadCodec implements ChannelInterceptor {
+
+    public static final MimeType APPLICATION_CBOR = new MimeType("application", "cbor");
+    // CONNECT header listing the payload types the client accepts
+    static final String ACCEPT_HEADER = "accept";
+    // Internal header carrying the CBOR encoding of a broadcast; only native headers are written to the wire
+    static final String CBOR_PAYLOAD_HEADER = "cborPayload";
+
+    private final boolean enabled;
+    private final ObjectMapper cborMapper;
+    private final Map<Class<?>, ObjectWriter> cborWriters = new ConcurrentHashMap<>();
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger binarySessions = new AtomicInteger();
+
+    public StompPayloadCodec(WebSocketConfig webSocketConfig, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.enabled = webSocketConfig.isCbor() && webSocketConfig.getBroker() == WebSocketConfig.Broker.SIMPLE;
+        // Same modules and settings as the JSON side, except for timestamps
+        this.cborMapper = objectMapper.copyWith(new CBORFactory())
+                .registerModule(new SimpleModule("EpochMillis")
+                        .addSerializer(LocalDateTime.class, new EpochMillisSerializer())
+                        .addDeserializer(LocalDateTime.class, new EpochMillisDeserializer()));
+        Gauge.builder("websocket.sessions.binary", binarySessions, AtomicInteger::get)
+                .description("WebSocket sessions receiving CBOR payloads")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Add CBOR to the broker's message converters: broadcasts converted to JSON also carry their CBOR encoding,
+     * and frames sent as {@code application/cbor} are read
+     *
+     * @param brokerMessageConverter Converters configured by Spring Boot
+     * @return Converters with CBOR support
+     */
+    public CompositeMessageConverter withCbor(CompositeMessageConverter brokerMessageConverter) {
+        if (!enabled) {
+            return brokerMessageConverter;
+        }
+        List<MessageConverter> converters = new ArrayList<>(brokerMessageConverter.getConverters());
+        for (int i = 0; i < converters.size(); i++) {
+            if (converters.get(i) instanceof MappingJackson2MessageConverter json) {
+                converters.set(i, new DualEncodingConverter(json));
+                converters.add(i + 1, new MappingJackson2MessageConverter(cborMapper, APPLICATION_CBOR));
+                return new CompositeMessageConverter(converters);
+            }
+        }
+        log.warn("No JSON message converter to pair CBOR with; WebSocket clients will only get JSON");
+        return brokerMessageConverter;
+    }
+
+    /**
+     * Wrap the STOMP handler so sessions that negotiate CBOR are written binary frames
+     *
+     * @param handler Handler to decorate
+     * @return Decorated handler
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                if (!enabled || session instanceof SockJsSession) {
+                    super.afterConnectionEstablished(session);
+                    return;
+                }
+                SessionState state = new SessionState(session);
+                sessions.put(session.getId(), state);
+                super.afterConnectionEstablished(state.binarySession);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                SessionState state = sessions.remove(session.getId());
+                if (state != null && state.binary) {
+                    binarySessions.decrementAndGet();
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    /**
+     * Inbound: record the payload type negotiated on CONNECT
+     */
+    public ChannelInterceptor inbound() {
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+                if (accessor == null || accessor.getCommand() != StompCommand.CONNECT) {
+                    return message;
+                }
+                SessionState state = sessions.get(accessor.getSessionId());
+                String accept = accessor.getFirstNativeHeader(ACCEPT_HEADER);
+                if (state != null && !state.binary && accept != null && acceptsCbor(accept)) {
+                    state.binary = true;
+                    binarySessions.incrementAndGet();
+                }
+                return message;
+            }
+        };
+    }
+
+    /**
+     * Outbound: give sessions that negotiated CBOR the encoding made for them
+     */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (!(message.getHeaders().get(CBOR_PAYLOAD_HEADER) instanceof byte[] cbor)
+                || SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return message;
+        }
+        SessionState state = sessions.get(SimpMessageHeaderAccessor.getSessionId(message.getHeaders()));
+        if (state == null || !state.binary) {
+            return message;
+        }
+        MessageHeaderAccessor accessor = MessageHeaderAccessor.getMutableAccessor(message);
+        accessor.removeHeader(CBOR_PAYLOAD_HEADER);
+        accessor.setContentType(APPLICATION_CBOR);
+        return MessageBuilder.createMessage(cbor, accessor.getMessageHeaders());
+    }
+
+    /**
+     * @return The CBOR encoding, or null if the payload cannot be encoded and is left to JSON
+     */
+    byte[] toCbor(Object payload) {
+        try {
+            return cborWriters.computeIfAbsent(payload.getClass(), cborMapper::writerFor).writeValueAsBytes(payload);
+        } catch (IOException e) {
+            log.warn("Could not encode {} as CBOR", payload.getClass().getSimpleName(), e);
+            return null;
+        }
+    }
+
+    private static boolean acceptsCbor(String accept) {
+        return MimeTypeUtils.parseMimeTypes(accept).stream().anyMatch(APPLICATION_CBOR::equalsTypeAndSubtype);
+    }
+
+    /**
+     * The broker's JSON converter, adding the CBOR encoding as an internal header while any session wants it
+     */
+    private class DualEncodingConverter implements SmartMessageConverter {
+        private final MappingJackson2MessageConverter json;
+
+        DualEncodingConverter(MappingJackson2MessageConverter json) {
+            this.json = json;
+        }
+
+        @Override
+        public Object fromMessage(Message<?> message, Class<?> targetClass) {
+            return json.fromMessage(message, targetClass);
+        }
+
+        @Override
+        public Object fromMessage(Message<?> message, Class<?> targetClass, Object conversionHint) {
+            return json.fromMessage(message, targetClass, conversionHint);
+        }
+
+        @Override
+        public Message<?> toMessage(Object payload, MessageHeaders headers) {
+            return toMessage(payload, headers, null);
+        }
+
+        @Override
+        public Message<?> toMessage(Object payload, MessageHeaders headers, Object conversionHint) {
+            Message<?> message = json.toMessage(payload, headers, conversionHint);
+            byte[] cbor = message != null && binarySessions.get() > 0 ? toCbor(payload) : null;
+            if (cbor == null) {
+                return message;
+            }
+            MessageHeaderAccessor accessor = MessageHeaderAccessor.getMutableAccessor(message);
+            accessor.setHeader(CBOR_PAYLOAD_HEADER, cbor);
+            return MessageBuilder.createMessage(message.getPayload(), accessor.getMessageHeaders());
+        }
+    }
+
+    private static class SessionState {
+        final WebSocketSession binarySession;
+        volatile boolean binary;
+
+        SessionState(WebSocketSession session) {
+            this.binarySession = new WebSocketSessionDecorator(session) {
+                @Override
+                public void sendMessage(WebSocketMessage<?> message) throws IOException {
+                    // STOMP writes every frame as text unless it is application/octet-stream, which would mangle CBOR
+                    if (binary && message instanceof TextMessage text) {
+                        super.sendMessage(new BinaryMessage(text.asBytes(), text.isLast()));
+                    } else {
+                        super.sendMessage(message);
+                    }
+                }
+            };
+        }
+    }
+
+    private static class EpochMillisSerializer extends StdSerializer<LocalDateTime> {
+        EpochMillisSerializer() {
+            super(LocalDateTime.class);
+        }
+
+        @Override
+        public void serialize(LocalDateTime value, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            generator.writeNumber(value.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+    }
+
+    private static class EpochMillisDeserializer extends StdDeserializer<LocalDateTime> {
+        EpochMillisDeserializer() {
+            super(LocalDateTime.class);
+        }
+
+        @Override
+        public LocalDateTime deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(parser.getValueAsLong()), ZoneId.systemDefault());
+        }
+    }
+}
@@ -1,30 +1,63 @@
 package com.thehoodjunction.websocket;
 
+import com.thehoodjunction.service.ChatHistoryService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.handler.annotation.SendTo;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Controller;
 
+import java.security.Principal;
+
 @Controller
 @RequiredArgsConstructor
+@Profile("!reactive")
 public class WebSocketController {
 
     private final SimpMessagingTemplate messagingTemplate;
+    private final RoomAccessInterceptor roomAccessInterceptor;
+    private final ChatHistoryService chatHistoryService;
 
     @MessageMapping("/chat.sendMessage")
     @SendTo("/topic/public")
-    public WebSocketMessage sendMessage(@Payload WebSocketMessage message) {
-        return message;
+    public WebSocketMessage sendMessage(@Payload WebSocketMessage message, Principal principal) {
+        // The sender is the user authenticated at CONNECT, whatever the client claims
+        message.setSender(principal.getName());
+        return chatHistoryService.record("public", message);
+    }
+
+    // Neighborhood room: only reaches the hood's subscribers instead of every connected client
+    @MessageMapping("/chat.hood.{hoodId}")
+    @SendTo(RoomAccessInterceptor.ROOM_PREFIX + "{hoodId}")
+    public WebSocketMessage sendToHood(@DestinationVariable String hoodId, @Payload WebSocketMessage message,
+                                       Principal principal) {
+        if (!roomAccessInterceptor.isMember(principal, hoodId)) {
+            throw new AccessDeniedException("Not a member of hood " + hoodId);
+        }
+        message.setSender(principal.getName());
+        return chatHistoryService.record("hood." + hoodId, message);
+    }
+
+    @MessageExceptionHandler(AccessDeniedException.class)
+    @SendToUser(destinations = "/queue/errors", broadcast = false)
+    public String handleAccessDenied(AccessDeniedException e) {
+        return e.getMessage();
     }
 
     @MessageMapping("/chat.addUser")
     @SendTo("/topic/public")
-    public WebSocketMessage addUser(@Payload WebSocketMessage message, SimpMessageHeaderAccessor headerAccessor) {
+    public WebSocketMessage addUser(@Payload WebSocketMessage message, SimpMessageHeaderAccessor headerAccessor,
+                                    Principal principal) {
+        message.setSender(principal.getName());
         // Add username in web socket session
-        headerAccessor.getSessionAttributes().put("username", message.getSender());
+        headerAccessor.getSessionAttributes().put("username", principal.getName());
         return message;
     }
     
@@ -12,6 +12,10 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 public class WebSocketMessage {
+    // Assigned by the server; doubles as the history cursor for this message
+    private String id;
+    // "public" or "hood.{hoodId}"
+    private String room;
     private String type;
     private String content;
     private String sender;
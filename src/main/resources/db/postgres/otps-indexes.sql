@@ -0,0 +1,8 @@
+-- Optional PostgreSQL-only index for the otps table.
+-- Hibernate creates idx_otps_phone_used_created from the entity mapping. This partial index
+-- covers only rows that can still be verified, so it stays small however many used rows pile up.
+-- Apply manually; CONCURRENTLY avoids blocking writes while it builds.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_otps_active_phone_created
+    ON otps (phone_number, created_at DESC)
+    WHERE used = false;
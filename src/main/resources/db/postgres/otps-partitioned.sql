@@ -0,0 +1,44 @@
+-- Optional PostgreSQL migration of otps to a table range-partitioned by day on created_at.
+-- Enable app.otp.retention.partitioned afterwards: OtpPartitionMaintenance then creates
+-- upcoming daily partitions (otps_pYYYYMMDD) and drops whole partitions past the retention
+-- window, replacing the row-by-row purge. Run during a quiet period; it copies only live OTPs.
+
+BEGIN;
+
+ALTER TABLE otps RENAME TO otps_unpartitioned;
+
+CREATE TABLE otps (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    phone_number VARCHAR(255) NOT NULL,
+    otp_value    VARCHAR(255) NOT NULL,
+    created_at   TIMESTAMP(6) NOT NULL,
+    expires_at   TIMESTAMP(6) NOT NULL,
+    verified_at  TIMESTAMP(6),
+    used         BOOLEAN      NOT NULL,
+    delivery_status VARCHAR(16),
+    -- The partition key must be part of the primary key
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE INDEX idx_otps_phone_used_created ON otps (phone_number, used, created_at);
+CREATE INDEX idx_otps_expires_at ON otps (expires_at);
+
+-- Partition for today; OtpPartitionMaintenance creates the following days on startup
+DO $$
+BEGIN
+    EXECUTE format('CREATE TABLE otps_p%s PARTITION OF otps FOR VALUES FROM (%L) TO (%L)',
+                   to_char(current_date, 'YYYYMMDD'), current_date, current_date + 1);
+END $$;
+
+-- Catch-all for rows outside the daily partitions, e.g. clock skew; it is never dropped,
+-- so OtpPartitionMaintenance purges its expired rows in batches instead
+CREATE TABLE otps_default PARTITION OF otps DEFAULT;
+
+INSERT INTO otps (phone_number, otp_value, created_at, expires_at, verified_at, used, delivery_status)
+SELECT phone_number, otp_value, created_at, expires_at, verified_at, used, delivery_status
+FROM otps_unpartitioned
+WHERE expires_at > now();
+
+DROP TABLE otps_unpartitioned;
+
+COMMIT;
@@ -0,0 +1,140 @@
+package com.thehoodjunction.repository.jpa;
+
+import com.thehoodjunction.dto.DomainEvent;
+import com.thehoodjunction.model.OutboxEvent;
+import com.thehoodjunction.model.OutboxLane;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Limit;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The outbox relay's claim and drain queries, run against H2.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class OutboxLaneRepositoryTest {
+
+    @Autowired
+    private OutboxLaneRepository outboxLaneRepository;
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void claimsTheLaneDrainedLongestAgoThatHasEventsWaiting() {
+        outboxLaneRepository.save(new OutboxLane(0, Instant.parse("2026-01-01T00:00:00Z")));
+        outboxLaneRepository.save(new OutboxLane(1, Instant.parse("2026-01-02T00:00:00Z")));
+        outboxLaneRepository.save(new OutboxLane(2, Instant.EPOCH));
+        outboxEventRepository.save(event(0, "alice"));
+        outboxEventRepository.save(event(1, "bob"));
+
+        List<OutboxLane> claimed = outboxLaneRepository.claimPending(Limit.of(1));
+
+        // Lane 2 was drained longest ago but has nothing waiting
+        assertThat(claimed).extracting(OutboxLane::getLane).containsExactly(0);
+        assertThat(outboxLaneRepository.claimPending(Limit.of(5))).extracting(OutboxLane::getLane)
+                .containsExactly(0, 1);
+    }
+
+    @Test
+    void aLaneIsReadInOrderAndDeletedInOneBatch() {
+        outboxLaneRepository.save(new OutboxLane(0, Instant.EPOCH));
+        for (int i = 0; i < 5; i++) {
+            outboxEventRepository.save(event(0, "alice"));
+        }
+        outboxEventRepository.save(event(1, "bob"));
+
+        List<OutboxEvent> batch = outboxEventRepository.findByLaneOrderByIdAsc(0, Limit.of(3));
+        assertThat(batch).hasSize(3).extracting(OutboxEvent::getId).isSorted();
+        outboxEventRepository.deleteAllInBatch(batch);
+
+        assertThat(outboxEventRepository.findByLaneOrderByIdAsc(0, Limit.of(10))).hasSize(2)
+                .allSatisfy(event -> assertThat(event.getId()).isGreaterThan(batch.get(2).getId()));
+        assertThat(outboxEventRepository.findByLaneOrderByIdAsc(1, Limit.of(10))).hasSize(1);
+
+        outboxEventRepository.deleteAllInBatch(outboxEventRepository.findByLaneOrderByIdAsc(0, Limit.of(10)));
+        assertThat(outboxLaneRepository.claimPending(Limit.of(1))).isEmpty();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void aClaimedLaneIsNotHandedToAnotherWorker() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            outboxLaneRepository.save(new OutboxLane(0, Instant.EPOCH));
+            outboxEventRepository.save(event(0, "alice"));
+        });
+        CountDownLatch claimed = new CountDownLatch(1);
+        CountDownLatch released = new CountDownLatch(1);
+        try {
+            CompletableFuture<List<OutboxLane>> holder = CompletableFuture.supplyAsync(() ->
+                    transactionTemplate.execute(status -> {
+                        List<OutboxLane> lanes = outboxLaneRepository.claimPending(Limit.of(1));
+                        claimed.countDown();
+                        await(released);
+                        return lanes;
+                    }));
+            await(claimed);
+
+            // PostgreSQL skips the locked row; H2 has no SKIP LOCKED and gives up once its lock timeout passes
+            try {
+                List<OutboxLane> other = transactionTemplate.execute(status ->
+                        outboxLaneRepository.claimPending(Limit.of(1)));
+                assertThat(other).isEmpty();
+            } catch (PessimisticLockingFailureException e) {
+                // Expected on H2
+            }
+            released.countDown();
+            assertThat(holder.get(10, TimeUnit.SECONDS)).extracting(OutboxLane::getLane).containsExactly(0);
+        } finally {
+            released.countDown();
+            transactionTemplate.executeWithoutResult(status -> {
+                outboxEventRepository.deleteAllInBatch();
+                outboxLaneRepository.deleteAllInBatch();
+            });
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static OutboxEvent event(int lane, String key) {
+        return OutboxEvent.builder()
+                .lane(lane)
+                .eventKey(key)
+                .type(DomainEvent.Type.USER_LOGGED_IN)
+                .payload("{}")
+                .createdAt(Instant.now())
+                .build();
+    }
+
+    // Only the JPA side of the application; its main class also enables MongoDB repositories
+    @Configuration
+    @EntityScan(basePackageClasses = OutboxLane.class)
+    @EnableJpaRepositories(basePackageClasses = OutboxLaneRepository.class)
+    static class JpaOnly {
+    }
+}
@@ -0,0 +1,110 @@
+package com.thehoodjunction.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OffloadingPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private OffloadingPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        encoder.close();
+    }
+
+    @Test
+    void hashesOnThePoolAndVerifies() {
+        AtomicReference<String> hashingThread = new AtomicReference<>();
+        encoder = new OffloadingPasswordEncoder(new BCryptPasswordEncoder(4) {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                hashingThread.set(Thread.currentThread().getName());
+                return super.encode(rawPassword);
+            }
+        }, 2, 10, Duration.ofSeconds(5), meterRegistry);
+
+        String hash = encoder.encode("secret1");
+
+        assertThat(hashingThread.get()).startsWith("password-hash-");
+        assertThat(encoder.matches("secret1", hash)).isTrue();
+        assertThat(encoder.matches("wrong", hash)).isFalse();
+        assertThat(meterRegistry.get("password.hashing").tag("operation", "matches").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectsWhenThePoolIsSaturated() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        encoder = new OffloadingPasswordEncoder(blockingEncoder(release), 1, 0, Duration.ofSeconds(5), meterRegistry);
+
+        CompletableFuture<String> busy = CompletableFuture.supplyAsync(() -> encoder.encode("first"));
+        waitUntilActive();
+
+        assertThatThrownBy(() -> encoder.encode("second"))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+        assertThat(meterRegistry.get("password.hashing.rejected").counter().count()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(busy.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+    }
+
+    @Test
+    void givesUpAfterTheTimeout() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        encoder = new OffloadingPasswordEncoder(blockingEncoder(release), 1, 1, Duration.ofMillis(100), meterRegistry);
+
+        assertThatThrownBy(() -> encoder.encode("slow")).isInstanceOf(ResponseStatusException.class);
+        release.countDown();
+    }
+
+    @Test
+    void upgradesHashesWithALowerWorkFactor() {
+        String oldHash = new BCryptPasswordEncoder(4).encode("secret1");
+        encoder = new OffloadingPasswordEncoder(new BCryptPasswordEncoder(5), 1, 1, Duration.ofSeconds(5), meterRegistry);
+
+        assertThat(encoder.upgradeEncoding(oldHash)).isTrue();
+        assertThat(encoder.upgradeEncoding(encoder.encode("secret1"))).isFalse();
+        assertThat(encoder.matches("secret1", oldHash)).isTrue();
+    }
+
+    private void waitUntilActive() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("executor.active").gauge().value() < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static PasswordEncoder blockingEncoder(CountDownLatch release) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return rawPassword.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encode(rawPassword).equals(encodedPassword);
+            }
+        };
+    }
+}
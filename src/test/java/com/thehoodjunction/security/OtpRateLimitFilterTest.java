@@ -0,0 +1,113 @@
+package com.thehoodjunction.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thehoodjunction.config.RateLimitConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OtpRateLimitFilterTest {
+
+    private OtpRateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitConfig config = new RateLimitConfig();
+        config.setPerPhone(new RateLimitConfig.Limit(2, Duration.ofMinutes(10)));
+        config.setPerIp(new RateLimitConfig.Limit(3, Duration.ofMinutes(10)));
+        filter = new OtpRateLimitFilter(new InMemoryRateLimiter(config), config,
+                new ObjectMapper(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void rejectsBeyondThePhoneLimitWithRetryAfter() throws Exception {
+        assertThat(send("+919876543210", "10.0.0.1").getStatus()).isEqualTo(200);
+        // Formatting does not create a separate bucket
+        assertThat(send("+91 98765-43210", "10.0.0.1").getStatus()).isEqualTo(200);
+
+        MockHttpServletResponse rejected = send("+919876543210", "10.0.0.1");
+
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(Long.parseLong(rejected.getHeader("Retry-After"))).isBetween(290L, 300L);
+        assertThat(rejected.getContentAsString()).contains("\"success\":false");
+    }
+
+    @Test
+    void rejectsBeyondTheIpLimitAcrossPhoneNumbers() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertThat(send("+91987654321" + i, "10.0.0.2").getStatus()).isEqualTo(200);
+        }
+
+        assertThat(send("+919876543219", "10.0.0.2").getStatus()).isEqualTo(429);
+        assertThat(send("+919876543219", "10.0.0.3").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void controllerCanStillReadTheBody() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request("+919876543210", "10.0.0.4"), new MockHttpServletResponse(), chain);
+
+        String body = new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertThat(body).isEqualTo("{\"phoneNumber\":\"+919876543210\"}");
+    }
+
+    @Test
+    void controllerCanReadTheBodyWithAReadListener() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request("+919876543210", "10.0.0.5"), new MockHttpServletResponse(), chain);
+        ServletInputStream input = chain.getRequest().getInputStream();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        AtomicBoolean allRead = new AtomicBoolean();
+
+        input.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                int next;
+                while (input.isReady() && (next = input.read()) != -1) {
+                    body.write(next);
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                allRead.set(true);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                throw new AssertionError(t);
+            }
+        });
+
+        assertThat(allRead).isTrue();
+        assertThat(input.isFinished()).isTrue();
+        assertThat(body.toString(StandardCharsets.UTF_8)).isEqualTo("{\"phoneNumber\":\"+919876543210\"}");
+    }
+
+    private MockHttpServletResponse send(String phoneNumber, String remoteAddress) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(phoneNumber, remoteAddress), response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String phoneNumber, String remoteAddress) throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/otp/send");
+        request.setRemoteAddr(remoteAddress);
+        request.setContentType("application/json");
+        request.setContent(("{\"phoneNumber\":\"" + phoneNumber + "\"}").getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
@@ -0,0 +1,119 @@
+package com.thehoodjunction.security;
+
+import com.thehoodjunction.config.RateLimitConfig;
+import com.thehoodjunction.support.EmbeddedRedis;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Behaviour shared by the rate limiter backends.
+ */
+class RateLimiterTest {
+
+    private static EmbeddedRedis redis;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        redis = EmbeddedRedis.start();
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        redis.close();
+    }
+
+    static Stream<RateLimiter> limiters() {
+        redis.flushAll();
+        RateLimitConfig config = new RateLimitConfig();
+        return Stream.of(
+                new RedisRateLimiter(new StringRedisTemplate(redis.getConnectionFactory()), config),
+                new InMemoryRateLimiter(config));
+    }
+
+    @ParameterizedTest
+    @MethodSource("limiters")
+    void allowsBurstUpToCapacityThenRejects(RateLimiter limiter) {
+        RateLimiter.Bucket bucket = bucket("phone", "burst", 3, Duration.ofMinutes(15));
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire(List.of(bucket)).allowed()).isTrue();
+        }
+        RateLimiter.Decision rejected = limiter.tryAcquire(List.of(bucket));
+
+        assertThat(rejected.allowed()).isFalse();
+        assertThat(rejected.rejectedBy()).isEqualTo("phone");
+        // One token refills every 5 minutes
+        assertThat(rejected.retryAfter()).isBetween(Duration.ofMinutes(4), Duration.ofMinutes(5));
+    }
+
+    @ParameterizedTest
+    @MethodSource("limiters")
+    void refillsOverTime(RateLimiter limiter) throws InterruptedException {
+        RateLimiter.Bucket bucket = bucket("global", "refill", 2, Duration.ofMillis(200));
+        limiter.tryAcquire(List.of(bucket));
+        limiter.tryAcquire(List.of(bucket));
+        assertThat(limiter.tryAcquire(List.of(bucket)).allowed()).isFalse();
+
+        Thread.sleep(150);
+
+        assertThat(limiter.tryAcquire(List.of(bucket)).allowed()).isTrue();
+    }
+
+    @ParameterizedTest
+    @MethodSource("limiters")
+    void takesFromEveryBucketOrFromNone(RateLimiter limiter) {
+        RateLimiter.Bucket phone = bucket("phone", "all-or-nothing-phone", 5, Duration.ofMinutes(1));
+        RateLimiter.Bucket ip = bucket("ip", "all-or-nothing-ip", 1, Duration.ofMinutes(1));
+
+        assertThat(limiter.tryAcquire(List.of(phone, ip)).allowed()).isTrue();
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryAcquire(List.of(phone, ip)).rejectedBy()).isEqualTo("ip");
+        }
+
+        // Rejected requests did not drain the phone bucket
+        for (int i = 0; i < 4; i++) {
+            assertThat(limiter.tryAcquire(List.of(phone)).allowed()).isTrue();
+        }
+        assertThat(limiter.tryAcquire(List.of(phone)).allowed()).isFalse();
+    }
+
+    @ParameterizedTest
+    @MethodSource("limiters")
+    void concurrentRequestsNeverExceedCapacity(RateLimiter limiter) throws Exception {
+        RateLimiter.Bucket bucket = bucket("global", "concurrent", 25, Duration.ofHours(1));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Boolean>> attempts = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                attempts.add(() -> limiter.tryAcquire(List.of(bucket)).allowed());
+            }
+            long allowed = 0;
+            for (Future<Boolean> result : executor.invokeAll(attempts)) {
+                allowed += result.get() ? 1 : 0;
+            }
+            assertThat(allowed).isEqualTo(25);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static RateLimiter.Bucket bucket(String name, String key, int capacity, Duration refillPeriod) {
+        return new RateLimiter.Bucket(name, key, new RateLimitConfig.Limit(capacity, refillPeriod));
+    }
+}
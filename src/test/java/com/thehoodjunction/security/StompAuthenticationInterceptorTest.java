@@ -0,0 +1,97 @@
+package com.thehoodjunction.security;
+
+import com.thehoodjunction.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * JWT authentication of STOMP sessions at CONNECT.
+ */
+class StompAuthenticationInterceptorTest {
+
+    private static final String SECRET = "5367566B59703373367639792F423F4528482B4D6251655468576D5A71347437";
+
+    private JwtTokenProvider jwtTokenProvider;
+    private User user;
+    private AtomicInteger userLoads;
+    private StompAuthenticationInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        jwtTokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(jwtTokenProvider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtTokenProvider, "jwtExpirationInMs", 60_000L);
+        ReflectionTestUtils.invokeMethod(jwtTokenProvider, "init");
+
+        TokenRevocationService revocations = new TokenRevocationService();
+        ReflectionTestUtils.setField(revocations, "jwtExpirationInMs", 60_000L);
+
+        user = User.builder().id(1L).username("alice").password("ignored").roles(Set.of("USER")).build();
+        userLoads = new AtomicInteger();
+        interceptor = new StompAuthenticationInterceptor(jwtTokenProvider, revocations, username -> {
+            userLoads.incrementAndGet();
+            if (!username.equals(user.getUsername())) {
+                throw new UsernameNotFoundException(username);
+            }
+            return UserPrincipal.from(user);
+        });
+    }
+
+    @Test
+    void connectWithValidTokenAttachesTheUser() {
+        Message<?> connect = frame(StompCommand.CONNECT, "Bearer " + jwtTokenProvider.generateToken(user));
+
+        Message<?> result = interceptor.preSend(connect, null);
+
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(result);
+        assertThat(accessor.getUser()).isNotNull();
+        assertThat(accessor.getUser().getName()).isEqualTo("alice");
+        assertThat(userLoads).hasValue(1);
+    }
+
+    @Test
+    void connectWithoutAValidTokenIsRejected() {
+        String token = jwtTokenProvider.generateToken(user);
+
+        assertThatThrownBy(() -> interceptor.preSend(frame(StompCommand.CONNECT, null), null))
+                .isInstanceOf(BadCredentialsException.class);
+        assertThatThrownBy(() -> interceptor.preSend(frame(StompCommand.CONNECT, "Bearer " + token + "x"), null))
+                .isInstanceOf(BadCredentialsException.class);
+
+        User stranger = User.builder().username("mallory").password("ignored").roles(Set.of("USER")).build();
+        String strangerToken = jwtTokenProvider.generateToken(stranger);
+        assertThatThrownBy(() -> interceptor.preSend(frame(StompCommand.CONNECT, "Bearer " + strangerToken), null))
+                .isInstanceOf(BadCredentialsException.class);
+    }
+
+    @Test
+    void laterFramesAreNotReauthenticated() {
+        Message<?> send = frame(StompCommand.SEND, null);
+
+        assertThat(interceptor.preSend(send, null)).isSameAs(send);
+        assertThat(interceptor.preSend(frame(StompCommand.SUBSCRIBE, null), null)).isNotNull();
+        assertThat(userLoads).hasValue(0);
+    }
+
+    private static Message<?> frame(StompCommand command, String authorization) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        if (authorization != null) {
+            accessor.setNativeHeader("Authorization", authorization);
+        }
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
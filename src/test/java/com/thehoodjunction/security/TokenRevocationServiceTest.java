@@ -0,0 +1,62 @@
+package com.thehoodjunction.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * When revocations take effect, and where they are kept.
+ */
+class TokenRevocationServiceTest {
+
+    private TokenRevocationService revocations;
+
+    @BeforeEach
+    void setUp() {
+        revocations = new TokenRevocationService();
+        ReflectionTestUtils.setField(revocations, "jwtExpirationInMs", 60_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void revocationsInsideATransactionApplyOnlyOnceItCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+        revocations.revokeBefore("alice", 3L);
+        revocations.revokeAll("bob");
+
+        assertThat(revocations.isRevoked("alice", 2L)).isFalse();
+        assertThat(revocations.isRevoked("bob", 2L)).isFalse();
+
+        // alice's change commits, bob's is rolled back
+        TransactionSynchronization aliceCommit = TransactionSynchronizationManager.getSynchronizations().get(0);
+        TransactionSynchronizationManager.clearSynchronization();
+        aliceCommit.afterCommit();
+
+        assertThat(revocations.isRevoked("alice", 2L)).isTrue();
+        assertThat(revocations.isRevoked("alice", 3L)).isFalse();
+        assertThat(revocations.isRevoked("bob", 2L)).isFalse();
+    }
+
+    @Test
+    void statelessModeRequiresTheSharedStore() {
+        ReflectionTestUtils.setField(revocations, "stateless", true);
+
+        assertThatThrownBy(revocations::requireSharedStoreWhenStateless).isInstanceOf(IllegalStateException.class);
+
+        ReflectionTestUtils.setField(revocations, "sharedStore", mock(RedisTokenRevocationStore.class));
+        revocations.requireSharedStoreWhenStateless();
+    }
+}
@@ -0,0 +1,166 @@
+package com.thehoodjunction.service;
+
+import com.thehoodjunction.config.ChatHistoryConfig;
+import com.thehoodjunction.dto.ChatHistoryResponse;
+import com.thehoodjunction.model.ChatMessage;
+import com.thehoodjunction.repository.mongodb.ChatMessageRepository;
+import com.thehoodjunction.websocket.WebSocketMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Write-behind batching and cursor pagination of chat history.
+ */
+class ChatHistoryServiceTest {
+
+    private ChatMessageRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+    private ChatHistoryWriter writer;
+    // Released to let a blocked insert finish
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ChatMessageRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        release.countDown();
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    @Test
+    void writesInBatches() {
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        when(repository.insert(anyIterable())).thenAnswer(invocation -> {
+            List<?> batch = invocation.getArgument(0);
+            batchSizes.add(batch.size());
+            return batch;
+        });
+        writer = new ChatHistoryWriter(repository, 100, 3, Duration.ofMillis(50), meterRegistry);
+
+        for (int i = 0; i < 7; i++) {
+            assertThat(writer.append(message("public", i))).isTrue();
+        }
+
+        await().atMost(5, TimeUnit.SECONDS)
+                .until(() -> batchSizes.stream().mapToInt(Integer::intValue).sum() == 7);
+        assertThat(batchSizes).allMatch(size -> size <= 3);
+        assertThat(writer.unwritten("public")).isEmpty();
+        assertThat(meterRegistry.counter("chat.history.written").count()).isEqualTo(7);
+    }
+
+    @Test
+    void dropsWhenTheQueueIsFull() {
+        CountDownLatch inserting = blockInserts();
+        writer = new ChatHistoryWriter(repository, 2, 1, Duration.ofMillis(10), meterRegistry);
+
+        writer.append(message("public", 0));
+        awaitLatch(inserting);
+        assertThat(writer.append(message("public", 1))).isTrue();
+        assertThat(writer.append(message("public", 2))).isTrue();
+        assertThat(writer.append(message("public", 3))).isFalse();
+
+        assertThat(writer.unwritten("public")).hasSize(3);
+        assertThat(meterRegistry.counter("chat.history.dropped", "reason", "overflow").count()).isEqualTo(1);
+    }
+
+    @Test
+    void historyIncludesMessagesNotWrittenYet() {
+        CountDownLatch inserting = blockInserts();
+        writer = new ChatHistoryWriter(repository, 100, 1, Duration.ofMillis(10), meterRegistry);
+        ChatHistoryService service = service();
+
+        ChatMessage first = message("hood.1", 0);
+        ChatMessage second = message("hood.1", 1);
+        when(repository.findLatest(eq("hood.1"), any(Limit.class))).thenReturn(List.of(second, first));
+        WebSocketMessage live = service.record("hood.1", WebSocketMessage.builder()
+                .type("CHAT").content("hello").sender("alice").build());
+        awaitLatch(inserting);
+
+        ChatHistoryResponse response = service.history("hood.1", null, null, 3);
+
+        assertThat(response.getMessages()).extracting(WebSocketMessage::getId)
+                .containsExactly(ChatHistoryService.cursor(first), ChatHistoryService.cursor(second), live.getId());
+        assertThat(response.getNextCursor()).isEqualTo(ChatHistoryService.cursor(first));
+        assertThat(service.history("public", null, null, 3).getNextCursor()).isNull();
+    }
+
+    @Test
+    void cursorsAreValidatedAndPagesCapped() {
+        writer = new ChatHistoryWriter(repository, 100, 10, Duration.ofMillis(10), meterRegistry);
+        ChatHistoryService service = service();
+        ChatMessage message = message("public", 0);
+
+        ChatMessage parsed = ChatHistoryService.parseCursor(ChatHistoryService.cursor(message));
+        assertThat(parsed.getId()).isEqualTo(message.getId());
+        assertThat(parsed.getTimestamp()).isEqualTo(message.getTimestamp());
+
+        assertThatThrownBy(() -> service.history("public", "not-a-cursor", null, null))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+        assertThatThrownBy(() -> service.history("public", "1", "1", null))
+                .isInstanceOf(ResponseStatusException.class);
+
+        service.history("public", ChatHistoryService.cursor(message), null, 10_000);
+        verify(repository).findBefore(eq("public"), eq(message.getTimestamp()), eq(new ObjectId(message.getId())),
+                eq(Limit.of(200)));
+    }
+
+    private ChatHistoryService service() {
+        return new ChatHistoryService(new ChatHistoryConfig(), repository, writer);
+    }
+
+    // Inserts block until the test ends; the returned latch opens once the first insert has started
+    private CountDownLatch blockInserts() {
+        CountDownLatch inserting = new CountDownLatch(1);
+        when(repository.insert(anyIterable())).thenAnswer(invocation -> {
+            inserting.countDown();
+            release.await();
+            return invocation.getArgument(0);
+        });
+        return inserting;
+    }
+
+    private static void awaitLatch(CountDownLatch latch) {
+        await().atMost(5, TimeUnit.SECONDS).until(() -> latch.getCount() == 0);
+    }
+
+    private static ChatMessage message(String room, int second) {
+        return ChatMessage.builder()
+                .id(ObjectId.get().toHexString())
+                .room(room)
+                .type("CHAT")
+                .content("message " + second)
+                .sender("alice")
+                .timestamp(Instant.parse("2026-01-01T00:00:00Z").plusSeconds(second))
+                .build();
+    }
+}
@@ -0,0 +1,176 @@
+package com.thehoodjunction.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.thehoodjunction.config.DomainEventConfig;
+import com.thehoodjunction.config.Msg91Config;
+import com.thehoodjunction.config.OtpConfig;
+import com.thehoodjunction.dto.DomainEvent;
+import com.thehoodjunction.model.Otp;
+import com.thehoodjunction.model.OutboxEvent;
+import com.thehoodjunction.repository.jpa.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Writing auth and OTP lifecycle events to the outbox.
+ */
+class DomainEventPublisherTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final List<OutboxEvent> outbox = new CopyOnWriteArrayList<>();
+    private OutboxEventRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(OutboxEventRepository.class);
+        when(repository.save(any(OutboxEvent.class))).thenAnswer(invocation -> {
+            outbox.add(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+    }
+
+    @Test
+    void eventsAreStoredOnTheLaneOfTheirKey() throws Exception {
+        DomainEventPublisher publisher = new DomainEventPublisher(true, repository, objectMapper, 16);
+
+        publisher.publish(DomainEvent.Type.USER_REGISTERED, "alice", Map.of("roles", "USER"));
+        publisher.publish(DomainEvent.Type.USER_LOGGED_IN, "alice", Map.of());
+
+        assertThat(outbox).extracting(OutboxEvent::getLane).containsOnly(publisher.laneOf("alice"));
+        DomainEvent stored = objectMapper.readValue(outbox.get(0).getPayload(), DomainEvent.class);
+        assertThat(stored.getType()).isEqualTo(DomainEvent.Type.USER_REGISTERED);
+        assertThat(stored.getKey()).isEqualTo("alice");
+        assertThat(stored.getAttributes()).containsEntry("roles", "USER");
+        assertThat(stored.getId()).isNotEqualTo(objectMapper.readValue(outbox.get(1).getPayload(), DomainEvent.class)
+                .getId());
+    }
+
+    @Test
+    void nothingIsStoredWhenDisabled() {
+        new DomainEventPublisher(false, repository, objectMapper, 16)
+                .publish(DomainEvent.Type.USER_LOGGED_IN, "alice", Map.of());
+
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void otpsThatAreNotVerifiedInTimeAreReportedExpired() {
+        OtpLifecycleEvents events = new OtpLifecycleEvents(
+                new DomainEventPublisher(true, repository, objectMapper, 16), new InMemoryOtpStore(new OtpConfig()),
+                new DomainEventConfig(),
+                new SimpleMeterRegistry());
+
+        events.sent(otp("+911111111111", Duration.ofMillis(300)), false);
+        events.sent(otp("+912222222222", Duration.ofMillis(300)), false);
+        events.verified("+912222222222", false);
+        events.verified("+912222222222", true);
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> outbox.size() == 5);
+        // The verified OTP has expired by now too, without an event
+        await().during(500, TimeUnit.MILLISECONDS).atMost(2, TimeUnit.SECONDS).until(() -> outbox.size() == 5);
+        assertThat(outbox).filteredOn(event -> event.getEventKey().equals("+911111111111"))
+                .extracting(OutboxEvent::getType)
+                .containsExactly(DomainEvent.Type.OTP_SENT, DomainEvent.Type.OTP_EXPIRED);
+        assertThat(outbox).filteredOn(event -> event.getEventKey().equals("+912222222222"))
+                .extracting(OutboxEvent::getType)
+                .containsExactly(DomainEvent.Type.OTP_SENT, DomainEvent.Type.OTP_VERIFICATION_FAILED,
+                        DomainEvent.Type.OTP_VERIFIED);
+    }
+
+    @Test
+    void otpsTheSharedStoreSaysWereVerifiedAreNotReportedExpired() {
+        OtpStore otpStore = mock(OtpStore.class);
+        Otp verifiedElsewhere = otp("+913333333333", Duration.ofMillis(200));
+        Otp lapsed = otp("+914444444444", Duration.ofMillis(200));
+        when(otpStore.expiredUnverified(verifiedElsewhere)).thenReturn(false);
+        when(otpStore.expiredUnverified(lapsed)).thenReturn(true);
+        OtpLifecycleEvents events = new OtpLifecycleEvents(
+                new DomainEventPublisher(true, repository, objectMapper, 16), otpStore, new DomainEventConfig(),
+                new SimpleMeterRegistry());
+
+        events.sent(verifiedElsewhere, false);
+        events.sent(lapsed, false);
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> outbox.size() == 3);
+        verify(otpStore, timeout(2000)).expiredUnverified(verifiedElsewhere);
+        assertThat(outbox).filteredOn(event -> event.getType() == DomainEvent.Type.OTP_EXPIRED)
+                .extracting(OutboxEvent::getEventKey)
+                .containsExactly("+914444444444");
+        events.close();
+    }
+
+    @Test
+    void expiredEventsAreWrittenOnTheirOwnThreadAndFailuresCounted() {
+        List<String> threads = new CopyOnWriteArrayList<>();
+        when(repository.save(any(OutboxEvent.class))).thenAnswer(invocation -> {
+            OutboxEvent event = invocation.getArgument(0);
+            if (event.getType() == DomainEvent.Type.OTP_EXPIRED) {
+                threads.add(Thread.currentThread().getName());
+                throw new DataAccessResourceFailureException("down");
+            }
+            return event;
+        });
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OtpLifecycleEvents events = new OtpLifecycleEvents(
+                new DomainEventPublisher(true, repository, objectMapper, 16), new InMemoryOtpStore(new OtpConfig()),
+                new DomainEventConfig(), meterRegistry);
+
+        events.sent(otp("+911111111111", Duration.ofMillis(200)), false);
+
+        await().atMost(5, TimeUnit.SECONDS)
+                .until(() -> meterRegistry.get("otp.events.unrecorded").counter().count() == 1);
+        assertThat(threads).containsExactly("otp-expired-events");
+        events.close();
+    }
+
+    @Test
+    void aFailedOutboxInsertDoesNotFailAnOtpTheStoreCommittedOnItsOwn() {
+        when(repository.save(any(OutboxEvent.class))).thenThrow(new DataAccessResourceFailureException("down"));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OtpLifecycleEvents events = new OtpLifecycleEvents(
+                new DomainEventPublisher(true, repository, objectMapper, 16), new InMemoryOtpStore(new OtpConfig()),
+                new DomainEventConfig(), meterRegistry);
+        Msg91Config msg91Config = new Msg91Config();
+        msg91Config.setOtpLength(6);
+        msg91Config.setOtpExpiryMinutes(5);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        Msg91Service msg91Service = new Msg91Service(msg91Config, new InMemoryOtpStore(new OtpConfig()),
+                mock(OtpDispatcher.class), events, new TransactionTemplate(transactionManager));
+
+        Otp otp = msg91Service.generateAndSendOtp("+911111111111");
+
+        assertThat(msg91Service.verifyOtp("+911111111111", otp.getOtpValue())).isTrue();
+        assertThat(meterRegistry.get("otp.events.unrecorded").counter().count()).isEqualTo(2);
+        verify(transactionManager, never()).getTransaction(any());
+    }
+
+    private static Otp otp(String phoneNumber, Duration validity) {
+        return Otp.builder()
+                .phoneNumber(phoneNumber)
+                .otpValue("123456")
+                .createdAt(LocalDateTime.now())
+                .expiresAt(LocalDateTime.now().plus(validity))
+                .build();
+    }
+}
@@ -0,0 +1,178 @@
+package com.thehoodjunction.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thehoodjunction.config.Msg91Config;
+import com.thehoodjunction.config.OtpConfig;
+import com.thehoodjunction.model.Otp;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+/**
+ * OTP delivery against a local mock of the MSG91 API.
+ */
+class OtpDispatcherTest {
+
+    private static final String PHONE_NUMBER = "+919876543210";
+    private static final String SUCCESS = "{\"type\":\"success\",\"request_id\":\"1\"}";
+
+    private MockWebServer gateway;
+    private Msg91Config msg91Config;
+    private SimpleMeterRegistry meterRegistry;
+    private OkHttpClient httpClient;
+    private OtpStore otpStore;
+    private OtpDispatcher dispatcher;
+    private OtpLifecycleEvents otpLifecycleEvents;
+    private Msg91Service msg91Service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        gateway = new MockWebServer();
+        gateway.start();
+
+        msg91Config = new Msg91Config();
+        msg91Config.setBaseUrl(gateway.url("/").toString());
+        msg91Config.setAuthKey("test-key");
+        msg91Config.setOtpTemplateId("template");
+        msg91Config.setOtpLength(6);
+        msg91Config.setOtpExpiryMinutes(10);
+        startDispatcher();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        httpClient.dispatcher().executorService().shutdown();
+        gateway.shutdown();
+    }
+
+    @Test
+    void deliveredOtpIsMarkedSent() throws InterruptedException {
+        gateway.enqueue(new MockResponse().setBody(SUCCESS));
+
+        Otp otp = msg91Service.generateAndSendOtp(PHONE_NUMBER);
+
+        RecordedRequest request = gateway.takeRequest(5, TimeUnit.SECONDS);
+        assertThat(request).isNotNull();
+        assertThat(request.getRequestUrl().encodedPath()).isEqualTo("/api/v5/otp");
+        assertThat(request.getRequestUrl().queryParameter("mobile")).isEqualTo(PHONE_NUMBER);
+        assertThat(request.getRequestUrl().queryParameter("otp")).isEqualTo(otp.getOtpValue());
+        awaitDeliveryStatus(Otp.DeliveryStatus.SENT);
+    }
+
+    @Test
+    void gatewayErrorsAreMarkedFailed() {
+        gateway.enqueue(new MockResponse().setResponseCode(500));
+        msg91Service.generateAndSendOtp(PHONE_NUMBER);
+        awaitDeliveryStatus(Otp.DeliveryStatus.FAILED);
+
+        gateway.enqueue(new MockResponse().setBody("{\"type\":\"error\",\"message\":\"invalid mobile\"}"));
+        msg91Service.generateAndSendOtp(PHONE_NUMBER);
+        awaitDeliveryStatus(Otp.DeliveryStatus.FAILED);
+    }
+
+    @Test
+    void sendReturnsBeforeTheGatewayResponds() {
+        gateway.enqueue(new MockResponse().setBody(SUCCESS).setHeadersDelay(2, TimeUnit.SECONDS));
+
+        long started = System.nanoTime();
+        Otp otp = msg91Service.generateAndSendOtp(PHONE_NUMBER);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(1));
+        assertThat(otpStore.findActive(PHONE_NUMBER)).get().extracting(Otp::getOtpValue).isEqualTo(otp.getOtpValue());
+        assertThat(otpStore.findActive(PHONE_NUMBER)).get()
+                .extracting(Otp::getDeliveryStatus).isEqualTo(Otp.DeliveryStatus.PENDING);
+        awaitDeliveryStatus(Otp.DeliveryStatus.SENT);
+    }
+
+    @Test
+    void rejectsWhenTooManyDeliveriesArePending() {
+        httpClient.dispatcher().executorService().shutdown();
+        msg91Config.getDispatch().setMaxPending(1);
+        startDispatcher();
+        gateway.enqueue(new MockResponse().setBody(SUCCESS).setHeadersDelay(1, TimeUnit.SECONDS));
+        gateway.enqueue(new MockResponse().setBody(SUCCESS));
+
+        msg91Service.generateAndSendOtp(PHONE_NUMBER);
+
+        assertThatThrownBy(() -> msg91Service.generateAndSendOtp("+919876543211"))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+        awaitDeliveryStatus(Otp.DeliveryStatus.SENT);
+        await().atMost(Duration.ofSeconds(5)).until(() -> dispatcher.getPendingCount() == 0);
+
+        msg91Service.generateAndSendOtp("+919876543211");
+        await().atMost(Duration.ofSeconds(5)).until(() -> dispatcher.getPendingCount() == 0);
+    }
+
+    @Test
+    void aRejectedResendKeepsThePreviousOtpAndRecordsNothing() {
+        httpClient.dispatcher().executorService().shutdown();
+        msg91Config.getDispatch().setMaxPending(1);
+        startDispatcher();
+        gateway.enqueue(new MockResponse().setBody(SUCCESS).setHeadersDelay(1, TimeUnit.SECONDS));
+
+        Otp first = msg91Service.generateAndSendOtp(PHONE_NUMBER);
+
+        assertThatThrownBy(() -> msg91Service.resendOtp(PHONE_NUMBER))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+        assertThat(otpStore.findActive(PHONE_NUMBER)).get().extracting(Otp::getOtpValue).isEqualTo(first.getOtpValue());
+        verify(otpLifecycleEvents).recordCommitted(eq(PHONE_NUMBER), any());
+        verifyNoMoreInteractions(otpLifecycleEvents);
+        awaitDeliveryStatus(Otp.DeliveryStatus.SENT);
+        await().atMost(Duration.ofSeconds(5)).until(() -> dispatcher.getPendingCount() == 0);
+    }
+
+    @Test
+    void burstReusesPooledConnectionsAndRecordsLatency() {
+        for (int i = 0; i < 5; i++) {
+            gateway.enqueue(new MockResponse().setBody(SUCCESS));
+            msg91Service.generateAndSendOtp(PHONE_NUMBER);
+            awaitDeliveryStatus(Otp.DeliveryStatus.SENT);
+        }
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(meterRegistry.get("msg91.http.requests").tag("uri", "/api/v5/otp").timer().count()).isEqualTo(5));
+        assertThat(meterRegistry.get("msg91.http.connections.acquired").counter().count()).isEqualTo(5);
+        assertThat(meterRegistry.get("msg91.http.connections.opened").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("otp.dispatch.pending").gauge().value()).isZero();
+    }
+
+    private void startDispatcher() {
+        meterRegistry = new SimpleMeterRegistry();
+        otpStore = new InMemoryOtpStore(new OtpConfig());
+        httpClient = msg91Config.msg91HttpClient(meterRegistry);
+        SmsGateway gateway = new Msg91SmsGateway("msg91", httpClient, msg91Config.msg91OtpUrl(), new ObjectMapper());
+        dispatcher = new OtpDispatcher(msg91Config, otpStore, gateway, meterRegistry);
+        otpLifecycleEvents = mock(OtpLifecycleEvents.class);
+        msg91Service = new Msg91Service(msg91Config, otpStore, dispatcher, otpLifecycleEvents,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+    }
+
+    private void awaitDeliveryStatus(Otp.DeliveryStatus status) {
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(otpStore.findActive(PHONE_NUMBER)).get()
+                .extracting(Otp::getDeliveryStatus).isEqualTo(status));
+    }
+}
@@ -0,0 +1,146 @@
+package com.thehoodjunction.service;
+
+import com.thehoodjunction.config.OtpConfig;
+import com.thehoodjunction.model.Otp;
+import com.thehoodjunction.support.EmbeddedRedis;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Behaviour shared by the key-value OTP stores.
+ */
+class OtpStoreTest {
+
+    private static EmbeddedRedis redis;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        redis = EmbeddedRedis.start();
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        redis.close();
+    }
+
+    static Stream<OtpStore> stores() {
+        redis.flushAll();
+        OtpConfig otpConfig = new OtpConfig();
+        return Stream.of(
+                new RedisOtpStore(new StringRedisTemplate(redis.getConnectionFactory()), otpConfig),
+                new InMemoryOtpStore(otpConfig));
+    }
+
+    @ParameterizedTest
+    @MethodSource("stores")
+    void verifiesOnlyOnce(OtpStore store) {
+        store.save(otp("+919876543210", "123456", 10));
+
+        assertThat(store.verifyAndConsume("+919876543210", "000000")).isFalse();
+        assertThat(store.verifyAndConsume("+919876543210", "123456")).isTrue();
+        assertThat(store.verifyAndConsume("+919876543210", "123456")).isFalse();
+        assertThat(store.findActive("+919876543210")).isEmpty();
+    }
+
+    @ParameterizedTest
+    @MethodSource("stores")
+    void newOtpReplacesPreviousOne(OtpStore store) {
+        store.save(otp("+919876543211", "111111", 10));
+        store.save(otp("+919876543211", "222222", 10));
+
+        assertThat(store.findActive("+919876543211")).get().extracting(Otp::getOtpValue).isEqualTo("222222");
+        assertThat(store.verifyAndConsume("+919876543211", "111111")).isFalse();
+        assertThat(store.verifyAndConsume("+919876543211", "222222")).isTrue();
+    }
+
+    @ParameterizedTest
+    @MethodSource("stores")
+    void invalidatedOtpCannotBeVerified(OtpStore store) {
+        store.save(otp("+919876543212", "333333", 10));
+        store.invalidate("+919876543212");
+
+        assertThat(store.verifyAndConsume("+919876543212", "333333")).isFalse();
+    }
+
+    @ParameterizedTest
+    @MethodSource("stores")
+    void concurrentVerificationsConsumeOnce(OtpStore store) throws Exception {
+        store.save(otp("+919876543213", "444444", 10));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Boolean>> attempts = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                attempts.add(() -> store.verifyAndConsume("+919876543213", "444444"));
+            }
+            long successes = 0;
+            for (Future<Boolean> result : executor.invokeAll(attempts)) {
+                successes += result.get() ? 1 : 0;
+            }
+            assertThat(successes).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("stores")
+    void deliveryStatusOnlyUpdatesTheSameIssue(OtpStore store) {
+        Otp first = store.save(otp("+919876543214", "555555", 10));
+        assertThat(store.findActive("+919876543214")).get()
+                .extracting(Otp::getDeliveryStatus).isEqualTo(Otp.DeliveryStatus.PENDING);
+
+        store.updateDeliveryStatus(first, Otp.DeliveryStatus.SENT);
+        assertThat(store.findActive("+919876543214")).get()
+                .extracting(Otp::getDeliveryStatus).isEqualTo(Otp.DeliveryStatus.SENT);
+
+        store.save(otp("+919876543214", "666666", 10));
+        store.updateDeliveryStatus(first, Otp.DeliveryStatus.FAILED);
+        assertThat(store.findActive("+919876543214")).get()
+                .extracting(Otp::getDeliveryStatus).isEqualTo(Otp.DeliveryStatus.PENDING);
+    }
+
+    @Test
+    void redisRemembersWhichOtpWasVerified() {
+        redis.flushAll();
+        RedisOtpStore store = new RedisOtpStore(new StringRedisTemplate(redis.getConnectionFactory()), new OtpConfig());
+        Otp replaced = otp("+919876543215", "777777", 10);
+        replaced.setCreatedAt(replaced.getCreatedAt().minusSeconds(1));
+        store.save(replaced);
+        Otp verified = store.save(otp("+919876543215", "888888", 10));
+        Otp lapsed = store.save(otp("+919876543216", "999999", 10));
+
+        assertThat(store.verifyAndConsume("+919876543215", "888888")).isTrue();
+
+        assertThat(store.expiredUnverified(verified)).isFalse();
+        assertThat(store.expiredUnverified(replaced)).isTrue();
+        assertThat(store.expiredUnverified(lapsed)).isTrue();
+    }
+
+    private static Otp otp(String phoneNumber, String value, int expiryMinutes) {
+        LocalDateTime now = LocalDateTime.now();
+        return Otp.builder()
+                .phoneNumber(phoneNumber)
+                .otpValue(value)
+                .createdAt(now)
+                .expiresAt(now.plusMinutes(expiryMinutes))
+                .used(false)
+                .build();
+    }
+}
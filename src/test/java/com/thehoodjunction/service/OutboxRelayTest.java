@@ -0,0 +1,281 @@
+package com.thehoodjunction.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.thehoodjunction.config.DomainEventConfig;
+import com.thehoodjunction.dto.DomainEvent;
+import com.thehoodjunction.model.OutboxDeadLetter;
+import com.thehoodjunction.model.OutboxEvent;
+import com.thehoodjunction.model.OutboxLane;
+import com.thehoodjunction.repository.jpa.OutboxDeadLetterRepository;
+import com.thehoodjunction.repository.jpa.OutboxEventRepository;
+import com.thehoodjunction.repository.jpa.OutboxLaneRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Limit;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Relaying the outbox to an embedded broker.
+ */
+@EmbeddedKafka(partitions = 3)
+class OutboxRelayTest {
+
+    private static final int LANE = 3;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<AutoCloseable> resources = new ArrayList<>();
+    private OutboxLaneRepository laneRepository;
+    private OutboxEventRepository eventRepository;
+    private OutboxDeadLetterRepository deadLetterRepository;
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        laneRepository = mock(OutboxLaneRepository.class);
+        eventRepository = mock(OutboxEventRepository.class);
+        deadLetterRepository = mock(OutboxDeadLetterRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        Collections.reverse(resources);
+        for (AutoCloseable resource : resources) {
+            resource.close();
+        }
+    }
+
+    @Test
+    void aClaimedLaneIsSentInOrderThenDeleted(EmbeddedKafkaBroker broker) throws Exception {
+        String topic = "events-" + UUID.randomUUID();
+        broker.addTopics(topic);
+        OutboxRelay relay = relay(broker.getBrokersAsString(), topic, Map.of());
+        Consumer<String, DomainEvent> consumer = consumer(broker, topic);
+        List<OutboxEvent> batch = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            batch.add(outboxEvent(i, "user" + (i % 5)));
+        }
+        when(laneRepository.claimPending(any(Limit.class)))
+                .thenReturn(List.of(new OutboxLane(LANE, Instant.EPOCH)))
+                .thenReturn(List.of());
+        when(eventRepository.findByLaneOrderByIdAsc(LANE, Limit.of(500))).thenReturn(batch);
+
+        assertThat(relay.drainOnce()).isEqualTo(50);
+        assertThat(relay.drainOnce()).isZero();
+
+        verify(eventRepository).deleteAllInBatch(batch);
+        List<ConsumerRecord<String, DomainEvent>> records = poll(consumer, 50);
+        for (int user = 0; user < 5; user++) {
+            String key = "user" + user;
+            List<ConsumerRecord<String, DomainEvent>> forKey = records.stream()
+                    .filter(record -> record.key().equals(key))
+                    .toList();
+            assertThat(forKey).extracting(ConsumerRecord::partition).containsOnly(forKey.get(0).partition());
+            assertThat(forKey).extracting(record -> Integer.parseInt(record.value().getAttributes().get("seq")))
+                    .isSorted()
+                    .hasSize(10);
+        }
+        assertThat(meterRegistry.counter("outbox.relayed").count()).isEqualTo(50);
+    }
+
+    @Test
+    void aBatchTheBrokerDoesNotAcknowledgeIsRolledBack() throws Exception {
+        OutboxRelay relay = relay("localhost:9", "unreachable", Map.of(ProducerConfig.MAX_BLOCK_MS_CONFIG, 200));
+        when(laneRepository.claimPending(any(Limit.class))).thenReturn(List.of(new OutboxLane(LANE, Instant.EPOCH)));
+        when(eventRepository.findByLaneOrderByIdAsc(eq(LANE), any(Limit.class)))
+                .thenReturn(List.of(outboxEvent(0, "+911111111111")));
+
+        assertThatThrownBy(relay::drainOnce).isInstanceOf(RuntimeException.class);
+
+        verify(eventRepository, never()).deleteAllInBatch(any());
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void eventsThatCanNeverBeSentAreDeadLetteredAndTheRestRelayed(EmbeddedKafkaBroker broker) throws Exception {
+        String topic = "events-" + UUID.randomUUID();
+        broker.addTopics(topic);
+        OutboxRelay relay = relay(broker.getBrokersAsString(), topic,
+                Map.of(ProducerConfig.MAX_REQUEST_SIZE_CONFIG, 1024));
+        Consumer<String, DomainEvent> consumer = consumer(broker, topic);
+        OutboxEvent unreadable = outboxEvent(1, "user1");
+        unreadable.setPayload("not json");
+        OutboxEvent tooLarge = outboxEvent(2, "user1", "x".repeat(2048));
+        List<OutboxEvent> batch = List.of(outboxEvent(0, "user1"), unreadable, tooLarge, outboxEvent(3, "user1"));
+        when(laneRepository.claimPending(any(Limit.class))).thenReturn(List.of(new OutboxLane(LANE, Instant.EPOCH)));
+        when(eventRepository.findByLaneOrderByIdAsc(LANE, Limit.of(500))).thenReturn(batch);
+
+        assertThat(relay.drainOnce()).isEqualTo(2);
+
+        ArgumentCaptor<OutboxDeadLetter> deadLetters = ArgumentCaptor.forClass(OutboxDeadLetter.class);
+        verify(deadLetterRepository, times(2)).save(deadLetters.capture());
+        assertThat(deadLetters.getAllValues()).extracting(OutboxDeadLetter::getId).containsExactlyInAnyOrder(1L, 2L);
+        verify(eventRepository).deleteAllInBatch(batch);
+        assertThat(meterRegistry.counter("outbox.dead-lettered").count()).isEqualTo(2);
+        assertThat(poll(consumer, 2)).extracting(record -> record.value().getAttributes().get("seq"))
+                .containsExactly("0", "3");
+    }
+
+    @Test
+    void sendingStopsAtTheFirstFailedSend() throws Exception {
+        @SuppressWarnings("unchecked")
+        KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(anyString(), anyString(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new KafkaException("Topic not present in metadata")));
+        OutboxRelay relay = relay(kafkaTemplate, new DomainEventConfig.Outbox());
+        claimBatchOf(10);
+
+        assertThatThrownBy(relay::drainOnce).hasMessageContaining("Topic not present in metadata");
+
+        verify(kafkaTemplate, times(1)).send(anyString(), anyString(), any());
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void sendsThatBlockStopOnceTheSendTimeoutPasses() throws Exception {
+        @SuppressWarnings("unchecked")
+        KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenAnswer(invocation -> {
+            // As while the producer waits up to max.block.ms for metadata
+            Thread.sleep(50);
+            return new CompletableFuture<>();
+        });
+        DomainEventConfig.Outbox outbox = new DomainEventConfig.Outbox();
+        outbox.setSendTimeout(Duration.ofMillis(120));
+        OutboxRelay relay = relay(kafkaTemplate, outbox);
+        claimBatchOf(20);
+
+        assertThatThrownBy(relay::drainOnce).hasMessageContaining("within");
+
+        verify(kafkaTemplate, atMost(4)).send(anyString(), anyString(), any());
+        verify(eventRepository, never()).deleteAllInBatch(any());
+    }
+
+    private void claimBatchOf(int size) throws Exception {
+        List<OutboxEvent> batch = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            batch.add(outboxEvent(i, "user" + i));
+        }
+        when(laneRepository.claimPending(any(Limit.class))).thenReturn(List.of(new OutboxLane(LANE, Instant.EPOCH)));
+        when(eventRepository.findByLaneOrderByIdAsc(eq(LANE), any(Limit.class))).thenReturn(batch);
+    }
+
+    // Producer set up as under spring.kafka.producer in application.yml
+    private OutboxRelay relay(String bootstrapServers, String topic, Map<String, Object> overrides) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, 65536);
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, 20);
+        props.putAll(overrides);
+        DefaultKafkaProducerFactory<String, Object> producerFactory = new DefaultKafkaProducerFactory<>(props);
+        resources.add(producerFactory::destroy);
+
+        OutboxRelay relay = new OutboxRelay(laneRepository, eventRepository, deadLetterRepository,
+                new KafkaTemplate<>(producerFactory), objectMapper, new TransactionTemplate(transactionManager), topic,
+                new DomainEventConfig.Outbox(), meterRegistry);
+        resources.add(relay);
+        return relay;
+    }
+
+    private OutboxRelay relay(KafkaTemplate<String, Object> kafkaTemplate, DomainEventConfig.Outbox outbox) {
+        OutboxRelay relay = new OutboxRelay(laneRepository, eventRepository, deadLetterRepository, kafkaTemplate,
+                objectMapper, new TransactionTemplate(transactionManager), "events", outbox, meterRegistry);
+        resources.add(relay);
+        return relay;
+    }
+
+    // Consumer set up as under spring.kafka.consumer in application.yml
+    private Consumer<String, DomainEvent> consumer(EmbeddedKafkaBroker broker, String topic) {
+        Map<String, Object> props = KafkaTestUtils.consumerProps("events-test", "false", broker);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+        props.put(JsonDeserializer.TRUSTED_PACKAGES, "com.thehoodjunction.dto");
+        Consumer<String, DomainEvent> consumer = new DefaultKafkaConsumerFactory<String, DomainEvent>(props)
+                .createConsumer();
+        resources.add(consumer);
+        broker.consumeFromAnEmbeddedTopic(consumer, topic);
+        return consumer;
+    }
+
+    private static List<ConsumerRecord<String, DomainEvent>> poll(Consumer<String, DomainEvent> consumer, int count) {
+        List<ConsumerRecord<String, DomainEvent>> records = new ArrayList<>();
+        await().atMost(20, TimeUnit.SECONDS).until(() -> {
+            KafkaTestUtils.getRecords(consumer, Duration.ofMillis(200)).forEach(records::add);
+            return records.size() >= count;
+        });
+        return records;
+    }
+
+    private OutboxEvent outboxEvent(long id, String key) throws Exception {
+        return outboxEvent(id, key, "");
+    }
+
+    private OutboxEvent outboxEvent(long id, String key, String padding) throws Exception {
+        DomainEvent event = DomainEvent.builder()
+                .id(UUID.randomUUID().toString())
+                .type(DomainEvent.Type.USER_LOGGED_IN)
+                .key(key)
+                .occurredAt(Instant.now())
+                .attributes(Map.of("seq", String.valueOf(id), "padding", padding))
+                .build();
+        return OutboxEvent.builder()
+                .id(id)
+                .lane(LANE)
+                .eventKey(key)
+                .type(event.getType())
+                .payload(objectMapper.writeValueAsString(event))
+                .createdAt(event.getOccurredAt())
+                .build();
+    }
+}
@@ -0,0 +1,150 @@
+package com.thehoodjunction.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thehoodjunction.config.Msg91Config;
+import com.thehoodjunction.config.OtpConfig;
+import com.thehoodjunction.model.Otp;
+import com.thehoodjunction.support.EmbeddedRedis;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+
+/**
+ * The reactive OTP path: reactive stores and delivery through the WebClient gateway against a local mock of MSG91.
+ */
+class ReactiveOtpServiceTest {
+
+    private static final String PHONE_NUMBER = "+919876543210";
+    private static final String SUCCESS = "{\"type\":\"success\",\"request_id\":\"1\"}";
+
+    private static EmbeddedRedis redis;
+
+    private MockWebServer gateway;
+    private OtpStore otpStore;
+    private ReactiveOtpService otpService;
+
+    enum Store {
+        REDIS, MEMORY
+    }
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        redis = EmbeddedRedis.start();
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        redis.close();
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        gateway = new MockWebServer();
+        gateway.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        gateway.shutdown();
+    }
+
+    @ParameterizedTest
+    @EnumSource(Store.class)
+    void deliveredOtpIsMarkedSent(Store store) throws InterruptedException {
+        start(store);
+        gateway.enqueue(new MockResponse().setBody(SUCCESS));
+
+        Otp otp = otpService.generateAndSendOtp(PHONE_NUMBER).block(Duration.ofSeconds(5));
+
+        RecordedRequest request = gateway.takeRequest(5, TimeUnit.SECONDS);
+        assertThat(request).isNotNull();
+        assertThat(request.getRequestUrl().encodedPath()).isEqualTo("/api/v5/otp");
+        assertThat(request.getRequestUrl().queryParameter("mobile")).isEqualTo(PHONE_NUMBER);
+        assertThat(request.getRequestUrl().queryParameter("otp")).isEqualTo(otp.getOtpValue());
+        awaitDeliveryStatus(Otp.DeliveryStatus.SENT);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Store.class)
+    void gatewayErrorsAndRejectionsAreMarkedFailed(Store store) {
+        start(store);
+        gateway.enqueue(new MockResponse().setResponseCode(503));
+        otpService.generateAndSendOtp(PHONE_NUMBER).block(Duration.ofSeconds(5));
+        awaitDeliveryStatus(Otp.DeliveryStatus.FAILED);
+
+        gateway.enqueue(new MockResponse().setBody("{\"type\":\"error\",\"message\":\"invalid mobile\"}"));
+        otpService.generateAndSendOtp(PHONE_NUMBER).block(Duration.ofSeconds(5));
+        awaitDeliveryStatus(Otp.DeliveryStatus.FAILED);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Store.class)
+    void resentOtpReplacesThePreviousOneAndVerifiesOnce(Store store) {
+        start(store);
+        gateway.enqueue(new MockResponse().setBody(SUCCESS));
+        gateway.enqueue(new MockResponse().setBody(SUCCESS));
+
+        otpService.generateAndSendOtp(PHONE_NUMBER).block(Duration.ofSeconds(5));
+        Otp resent = otpService.resendOtp(PHONE_NUMBER).block(Duration.ofSeconds(5));
+
+        assertThat(otpStore.findActive(PHONE_NUMBER)).get()
+                .extracting(Otp::getOtpValue).isEqualTo(resent.getOtpValue());
+        assertThat(otpService.verifyOtp(PHONE_NUMBER, resent.getOtpValue()).block()).isTrue();
+        assertThat(otpService.verifyOtp(PHONE_NUMBER, resent.getOtpValue()).block()).isFalse();
+    }
+
+    private void start(Store store) {
+        Msg91Config msg91Config = new Msg91Config();
+        msg91Config.setBaseUrl(gateway.url("/").toString());
+        msg91Config.setAuthKey("test-key");
+        msg91Config.setOtpTemplateId("template");
+        msg91Config.setOtpLength(6);
+        msg91Config.setOtpExpiryMinutes(10);
+
+        OtpConfig otpConfig = new OtpConfig();
+        ReactiveOtpStore reactiveOtpStore;
+        if (store == Store.REDIS) {
+            redis.flushAll();
+            otpStore = new RedisOtpStore(new StringRedisTemplate(redis.getConnectionFactory()), otpConfig);
+            reactiveOtpStore = new ReactiveRedisOtpStore(
+                    new ReactiveStringRedisTemplate(redis.getConnectionFactory()), otpConfig);
+        } else {
+            otpStore = new InMemoryOtpStore(otpConfig);
+            reactiveOtpStore = new OffloadingReactiveOtpStore(otpStore, Schedulers.immediate());
+        }
+
+        SmsGateway smsGateway = new WebClientSmsGateway("msg91", WebClient.create(), msg91Config.msg91OtpUrl(),
+                new ObjectMapper());
+        OtpDispatcher dispatcher = new OtpDispatcher(msg91Config, otpStore, smsGateway, new SimpleMeterRegistry());
+        OtpLifecycleEvents otpLifecycleEvents = mock(OtpLifecycleEvents.class);
+        otpService = new ReactiveOtpService(new Msg91Service(msg91Config, otpStore, dispatcher, otpLifecycleEvents,
+                new TransactionTemplate(mock(PlatformTransactionManager.class))),
+                reactiveOtpStore, dispatcher, otpLifecycleEvents);
+    }
+
+    private void awaitDeliveryStatus(Otp.DeliveryStatus status) {
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(otpStore.findActive(PHONE_NUMBER)).get()
+                .extracting(Otp::getDeliveryStatus).isEqualTo(status));
+    }
+}
@@ -0,0 +1,140 @@
+package com.thehoodjunction.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thehoodjunction.config.RedisUserCacheConfig;
+import com.thehoodjunction.config.UserCacheConfig;
+import com.thehoodjunction.security.RedisTokenRevocationStore;
+import com.thehoodjunction.security.TokenRevocationService;
+import com.thehoodjunction.security.UserPrincipal;
+import com.thehoodjunction.support.EmbeddedRedis;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Two cache "nodes" sharing one embedded Redis server.
+ */
+class RedisUserPrincipalTierTest {
+
+    private static EmbeddedRedis redis;
+    private static LettuceConnectionFactory connectionFactory;
+
+    private final List<RedisMessageListenerContainer> containers = new ArrayList<>();
+    private final AtomicInteger databaseLoads = new AtomicInteger();
+    private final Function<String, UserPrincipal> databaseLoader = username -> {
+        databaseLoads.incrementAndGet();
+        return UserPrincipal.of(1L, username, "{bcrypt}hash", username + "@example.com", "Test User",
+                Set.of("USER"), 0L, true, true, true, true);
+    };
+
+    private Node nodeA;
+    private Node nodeB;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        redis = EmbeddedRedis.start();
+        connectionFactory = redis.getConnectionFactory();
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        redis.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis.flushAll();
+        nodeA = startNode();
+        nodeB = startNode();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (RedisMessageListenerContainer container : containers) {
+            container.destroy();
+        }
+    }
+
+    @Test
+    void secondNodeIsServedFromSharedTier() {
+        UserPrincipal first = nodeA.cache.get("alice", databaseLoader);
+        UserPrincipal second = nodeB.cache.get("alice", databaseLoader);
+
+        assertThat(databaseLoads).hasValue(1);
+        assertThat(second.getUsername()).isEqualTo("alice");
+        assertThat(second.getPassword()).isEqualTo(first.getPassword());
+        assertThat(second.getAuthorities()).extracting("authority").containsExactly("ROLE_USER");
+    }
+
+    @Test
+    void invalidationOnOneNodeEvictsEveryNearCache() {
+        nodeA.cache.get("alice", databaseLoader);
+        nodeB.cache.get("alice", databaseLoader);
+        assertThat(databaseLoads).hasValue(1);
+
+        nodeA.cache.invalidate("alice");
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            nodeB.cache.get("alice", databaseLoader);
+            assertThat(databaseLoads).hasValue(2);
+        });
+    }
+
+    @Test
+    void revocationIsSharedWithRunningAndStartingNodes() {
+        nodeA.revocations.revokeBefore("alice", 3L);
+
+        await().atMost(Duration.ofSeconds(5))
+                .untilAsserted(() -> assertThat(nodeB.revocations.isRevoked("alice", 2L)).isTrue());
+        assertThat(nodeB.revocations.isRevoked("alice", 3L)).isFalse();
+
+        Node lateNode = startNode();
+        lateNode.revocations.loadSharedRevocations();
+        assertThat(lateNode.revocations.isRevoked("alice", 2L)).isTrue();
+    }
+
+    private Node startNode() {
+        UserCacheConfig config = new UserCacheConfig();
+        config.getRedis().setEnabled(true);
+        StringRedisTemplate redisTemplate = new StringRedisTemplate(connectionFactory);
+
+        RedisUserPrincipalTier tier = new RedisUserPrincipalTier(redisTemplate, new ObjectMapper(), config);
+        UserPrincipalCache cache = new UserPrincipalCache(config, new SimpleMeterRegistry(),
+                new StaticListableBeanFactory(Map.of("tier", tier)).getBeanProvider(RedisUserPrincipalTier.class));
+
+        TokenRevocationService revocations = new TokenRevocationService();
+        ReflectionTestUtils.setField(revocations, "jwtExpirationInMs", 60_000L);
+        ReflectionTestUtils.setField(revocations, "sharedStore", new RedisTokenRevocationStore(redisTemplate, config));
+
+        RedisMessageListenerContainer container = new RedisUserCacheConfig()
+                .userCacheListenerContainer(connectionFactory, config, cache, revocations);
+        container.afterPropertiesSet();
+        container.start();
+        containers.add(container);
+
+        return new Node(cache, revocations);
+    }
+
+    private record Node(UserPrincipalCache cache, TokenRevocationService revocations) {
+    }
+}
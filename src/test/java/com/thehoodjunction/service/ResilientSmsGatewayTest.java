@@ -0,0 +1,212 @@
+package com.thehoodjunction.service;
+
+import com.thehoodjunction.config.SmsGatewayConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Resilience behaviour against fault-injecting gateways.
+ */
+class ResilientSmsGatewayTest {
+
+    private static final String PHONE_NUMBER = "+919876543210";
+
+    private SmsGatewayConfig.Resilience config;
+    private SimpleMeterRegistry meterRegistry;
+    private FaultInjectingGateway primary;
+    private FaultInjectingGateway secondary;
+
+    @BeforeEach
+    void setUp() {
+        config = new SmsGatewayConfig.Resilience();
+        config.setInitialBackoff(Duration.ofMillis(5));
+        config.setMaxBackoff(Duration.ofMillis(20));
+        config.setMinimumNumberOfCalls(4);
+        config.setSlidingWindowSize(4);
+        meterRegistry = new SimpleMeterRegistry();
+        primary = new FaultInjectingGateway("primary");
+        secondary = new FaultInjectingGateway("secondary");
+    }
+
+    @Test
+    void retriesTransientFailures() throws Exception {
+        primary.fail(2, true);
+
+        send(gateway(null));
+
+        assertThat(primary.calls).hasValue(3);
+        assertThat(meterRegistry.get("sms.gateway.retries").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void doesNotRetryOrFailOverRejectedMessages() {
+        primary.fail(1, false);
+
+        assertThatThrownBy(() -> send(gateway(secondary)))
+                .hasCauseInstanceOf(SmsDeliveryException.class);
+        assertThat(primary.calls).hasValue(1);
+        assertThat(secondary.calls).hasValue(0);
+    }
+
+    @Test
+    void retryBudgetLimitsRetriesUnderSustainedFailure() {
+        config.setRetryRatio(0.1);
+        config.setRetryBudgetMaxTokens(2);
+        config.setSlidingWindowSize(100);
+        config.setMinimumNumberOfCalls(100);
+        primary.fail(Integer.MAX_VALUE, true);
+        ResilientSmsGateway gateway = gateway(null);
+
+        for (int i = 0; i < 20; i++) {
+            assertThatThrownBy(() -> send(gateway)).hasCauseInstanceOf(SmsDeliveryException.class);
+        }
+
+        // 20 requests, 2 saved-up tokens plus 0.1 per request: at most 4 retries rather than 40
+        assertThat(primary.calls.get()).isLessThanOrEqualTo(24);
+        assertThat(meterRegistry.get("sms.gateway.retries.denied").counter().count()).isPositive();
+    }
+
+    @Test
+    void openBreakerFailsFastWithoutCallingTheGateway() {
+        config.setMaxAttempts(1);
+        primary.fail(Integer.MAX_VALUE, true);
+        ResilientSmsGateway gateway = gateway(null);
+
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> send(gateway)).hasCauseInstanceOf(SmsDeliveryException.class);
+        }
+        assertThat(gateway.isAvailable()).isFalse();
+
+        int callsWhenOpened = primary.calls.get();
+        assertThatThrownBy(() -> send(gateway)).hasCauseInstanceOf(CallNotPermittedException.class);
+        assertThat(primary.calls).hasValue(callsWhenOpened);
+    }
+
+    @Test
+    void failsOverToSecondaryWhenPrimaryIsDown() throws Exception {
+        config.setMaxAttempts(1);
+        primary.fail(Integer.MAX_VALUE, true);
+        ResilientSmsGateway gateway = gateway(secondary);
+
+        for (int i = 0; i < 6; i++) {
+            send(gateway);
+        }
+
+        assertThat(secondary.calls).hasValue(6);
+        // Once the primary's breaker opens, it is skipped without being called
+        assertThat(primary.calls).hasValue(4);
+        assertThat(gateway.isAvailable()).isTrue();
+        assertThat(meterRegistry.get("sms.gateway.failovers").counter().count()).isEqualTo(6);
+    }
+
+    @Test
+    void hedgesSlowPrimaryWithSecondary() throws Exception {
+        config.setHedgeDelay(Duration.ofMillis(50));
+        primary.delay(Duration.ofSeconds(2));
+        ResilientSmsGateway gateway = gateway(secondary);
+
+        long started = System.nanoTime();
+        send(gateway);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(1));
+        assertThat(secondary.calls).hasValue(1);
+        assertThat(meterRegistry.get("sms.gateway.hedges").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void bulkheadRejectsCallsBeyondTheLimit() {
+        config.setMaxConcurrentCalls(2);
+        config.setMaxAttempts(1);
+        primary.delay(Duration.ofMillis(500));
+        ResilientSmsGateway gateway = gateway(null);
+
+        List<CompletableFuture<Void>> inFlight = new ArrayList<>();
+        inFlight.add(gateway.sendOtp(PHONE_NUMBER, "123456"));
+        inFlight.add(gateway.sendOtp(PHONE_NUMBER, "123456"));
+
+        assertThatThrownBy(() -> send(gateway)).hasCauseInstanceOf(BulkheadFullException.class);
+        assertThat(primary.calls).hasValue(2);
+        CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new)).join();
+    }
+
+    private ResilientSmsGateway gateway(SmsGateway secondary) {
+        return new ResilientSmsGateway(primary, secondary, config, meterRegistry);
+    }
+
+    private static void send(SmsGateway gateway) throws ExecutionException, InterruptedException {
+        try {
+            gateway.sendOtp(PHONE_NUMBER, "123456").get(5, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            throw new AssertionError("Gateway did not complete", e);
+        }
+    }
+
+    /**
+     * Stub gateway whose calls fail or stall on demand
+     */
+    private static class FaultInjectingGateway implements SmsGateway {
+
+        private final String name;
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile int remainingFailures;
+        private volatile boolean failuresRetryable;
+        private volatile Duration delay = Duration.ZERO;
+
+        FaultInjectingGateway(String name) {
+            this.name = name;
+        }
+
+        void fail(int times, boolean retryable) {
+            remainingFailures = times;
+            failuresRetryable = retryable;
+        }
+
+        void delay(Duration delay) {
+            this.delay = delay;
+        }
+
+        @Override
+        public CompletableFuture<Void> sendOtp(String phoneNumber, String otpValue) {
+            calls.incrementAndGet();
+            boolean fail = remainingFailures > 0;
+            if (fail && remainingFailures != Integer.MAX_VALUE) {
+                remainingFailures--;
+            }
+
+            CompletableFuture<Void> result = new CompletableFuture<>();
+            Runnable complete = () -> {
+                if (fail) {
+                    result.completeExceptionally(new SmsDeliveryException(name + " injected failure", failuresRetryable));
+                } else {
+                    result.complete(null);
+                }
+            };
+            if (delay.isZero()) {
+                complete.run();
+            } else {
+                CompletableFuture.delayedExecutor(delay.toMillis(), TimeUnit.MILLISECONDS).execute(complete);
+            }
+            return result;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+}
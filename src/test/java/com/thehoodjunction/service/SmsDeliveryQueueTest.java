@@ -0,0 +1,210 @@
+package com.thehoodjunction.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.thehoodjunction.config.Msg91Config;
+import com.thehoodjunction.config.SmsDeliveryQueueConfig;
+import com.thehoodjunction.model.Otp;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.net.ConnectException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * OTP delivery through the RabbitMQ lanes, with the broker stood in for by a mocked template.
+ */
+class SmsDeliveryQueueTest {
+
+    private static final String PHONE_NUMBER = "+919876543210";
+
+    // Configured like Spring Boot's mapper, which ignores the derived "expired" property on the way back
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private Msg91Config msg91Config;
+    private RabbitTemplate rabbitTemplate;
+    private SmsGateway smsGateway;
+    private OtpStore otpStore;
+
+    @BeforeEach
+    void setUp() {
+        msg91Config = new Msg91Config();
+        msg91Config.getDispatch().setMode(Msg91Config.Dispatch.Mode.QUEUE);
+        rabbitTemplate = mock(RabbitTemplate.class);
+        when(rabbitTemplate.invoke(ArgumentMatchers.<RabbitOperations.OperationsCallback<Object>>any()))
+                .thenAnswer(invocation -> invocation.<RabbitOperations.OperationsCallback<?>>getArgument(0)
+                        .doInRabbit(rabbitTemplate));
+        smsGateway = mock(SmsGateway.class);
+        otpStore = mock(OtpStore.class);
+    }
+
+    @Test
+    void firstSendsAndResendsTakeSeparateLanesAndWaitForTheConfirm() throws Exception {
+        SmsDeliveryQueue queue = queue();
+
+        queue.enqueue(otp(10), false);
+        queue.enqueue(otp(10), true);
+
+        ArgumentCaptor<Message> messages = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate).send(eq("sms.otp"), eq("login"), messages.capture());
+        verify(rabbitTemplate).send(eq("sms.otp"), eq("resend"), messages.capture());
+        verify(rabbitTemplate, times(2)).waitForConfirmsOrDie(5000);
+        Message message = messages.getValue();
+        assertThat(message.getMessageProperties().getDeliveryMode()).isEqualTo(MessageDeliveryMode.PERSISTENT);
+        assertThat(objectMapper.readValue(message.getBody(), Otp.class).getPhoneNumber()).isEqualTo(PHONE_NUMBER);
+        assertThat(meterRegistry.counter("otp.queue.enqueued", "lane", "resend").count()).isEqualTo(1);
+    }
+
+    @Test
+    void anUnreachableBrokerRejectsTheOtp() {
+        doThrow(new AmqpConnectException(new ConnectException("Connection refused")))
+                .when(rabbitTemplate).send(anyString(), anyString(), any(Message.class));
+        OtpDispatcher dispatcher = new OtpDispatcher(msg91Config, otpStore, smsGateway, queue(), meterRegistry);
+        Otp otp = otp(10);
+
+        assertThatThrownBy(() -> dispatcher.dispatch(otp, false))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+
+        verify(otpStore).updateDeliveryStatus(otp, Otp.DeliveryStatus.FAILED);
+        verifyNoInteractions(smsGateway);
+    }
+
+    @Test
+    void aDeliveredOtpIsMarkedSent() throws Exception {
+        when(smsGateway.sendOtp(PHONE_NUMBER, "123456")).thenReturn(CompletableFuture.completedFuture(null));
+
+        worker().onMessage(message(otp(10), List.of()));
+
+        verify(otpStore).updateDeliveryStatus(any(Otp.class), eq(Otp.DeliveryStatus.SENT));
+        assertThat(meterRegistry.counter("otp.queue.delivered", "lane", "login", "outcome", "sent").count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void failedAttemptsAreDeadLetteredUntilTheLastOne() throws Exception {
+        when(smsGateway.sendOtp(anyString(), anyString()))
+                .thenAnswer(invocation -> CompletableFuture.failedFuture(new SmsDeliveryException("HTTP 500", true)));
+        SmsDeliveryWorker worker = worker();
+
+        assertThatThrownBy(() -> worker.onMessage(message(otp(10), List.of())))
+                .isInstanceOf(AmqpRejectAndDontRequeueException.class);
+        // Rejected by the lane once, then expired out of the delay queue back onto it
+        Message second = message(otp(10), List.of(
+                Map.of("queue", "sms.otp.login.retry", "reason", "expired", "count", 1L),
+                Map.of("queue", "sms.otp.login", "reason", "rejected", "count", 1L)));
+        assertThat(SmsDeliveryWorker.attempt(second)).isEqualTo(2);
+        assertThatThrownBy(() -> worker.onMessage(second)).isInstanceOf(AmqpRejectAndDontRequeueException.class);
+        verify(otpStore, never()).updateDeliveryStatus(any(), any());
+
+        worker.onMessage(message(otp(10), List.of(
+                Map.of("queue", "sms.otp.login", "reason", "rejected", "count", 2L))));
+
+        verify(otpStore).updateDeliveryStatus(any(Otp.class), eq(Otp.DeliveryStatus.FAILED));
+    }
+
+    @Test
+    void failuresThatAreNotRetryableAreMarkedFailedAtOnce() throws Exception {
+        when(smsGateway.sendOtp(anyString(), anyString())).thenAnswer(invocation ->
+                CompletableFuture.failedFuture(new SmsDeliveryException("msg91 rejected the OTP: invalid mobile", false)));
+
+        worker().onMessage(message(otp(10), List.of()));
+
+        verify(smsGateway, times(1)).sendOtp(anyString(), anyString());
+        verify(otpStore).updateDeliveryStatus(any(Otp.class), eq(Otp.DeliveryStatus.FAILED));
+        assertThat(meterRegistry.counter("otp.queue.delivered", "lane", "login", "outcome", "rejected").count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.find("otp.queue.delivered").tag("outcome", "retried").counter()).isNull();
+    }
+
+    @Test
+    void otpsThatExpireInTheQueueAreNotSent() throws Exception {
+        worker().onMessage(message(otp(-1), List.of()));
+
+        verifyNoInteractions(smsGateway);
+        verify(otpStore).updateDeliveryStatus(any(Otp.class), eq(Otp.DeliveryStatus.FAILED));
+    }
+
+    @Test
+    void eachLaneDeadLettersThroughItsOwnDelayQueue() {
+        Declarables topology = new SmsDeliveryQueueConfig(msg91Config).smsDeliveryTopology();
+        List<Queue> queues = topology.getDeclarablesByType(Queue.class);
+        List<Binding> bindings = topology.getDeclarablesByType(Binding.class);
+
+        assertThat(queues).extracting(Queue::getName)
+                .containsExactlyInAnyOrder("sms.otp.login", "sms.otp.login.retry", "sms.otp.resend", "sms.otp.resend.retry");
+        assertThat(queues).allMatch(Queue::isDurable);
+        Queue login = queues.stream().filter(queue -> queue.getName().equals("sms.otp.login")).findFirst().orElseThrow();
+        assertThat(login.getArguments()).containsEntry("x-dead-letter-exchange", "sms.otp.retry");
+        Queue retry = queues.stream().filter(queue -> queue.getName().equals("sms.otp.login.retry")).findFirst()
+                .orElseThrow();
+        assertThat(retry.getArguments())
+                .containsEntry("x-dead-letter-exchange", "sms.otp")
+                .containsEntry("x-message-ttl", 5000);
+        assertThat(bindings).extracting(Binding::getExchange, Binding::getRoutingKey, Binding::getDestination)
+                .contains(tuple("sms.otp", "login", "sms.otp.login"),
+                        tuple("sms.otp.retry", "login", "sms.otp.login.retry"));
+    }
+
+    private SmsDeliveryQueue queue() {
+        return new SmsDeliveryQueue(rabbitTemplate, objectMapper, msg91Config.getDispatch().getQueue(), meterRegistry);
+    }
+
+    private SmsDeliveryWorker worker() {
+        return new SmsDeliveryWorker(smsGateway, otpStore, objectMapper, msg91Config.getDispatch().getQueue(),
+                meterRegistry);
+    }
+
+    private Message message(Otp otp, List<Map<String, ?>> deaths) throws Exception {
+        MessageProperties properties = new MessageProperties();
+        properties.setReceivedRoutingKey("login");
+        if (!deaths.isEmpty()) {
+            properties.setHeader("x-death", deaths);
+        }
+        return new Message(objectMapper.writeValueAsBytes(otp), properties);
+    }
+
+    private static Otp otp(int validMinutes) {
+        return Otp.builder()
+                .id(1L)
+                .phoneNumber(PHONE_NUMBER)
+                .otpValue("123456")
+                .createdAt(LocalDateTime.now())
+                .expiresAt(LocalDateTime.now().plusMinutes(validMinutes))
+                .build();
+    }
+}
@@ -0,0 +1,55 @@
+package com.thehoodjunction.support;
+
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+
+/**
+ * Redis server started in-process on a free port, standing in for the real one in tests.
+ */
+public final class EmbeddedRedis implements AutoCloseable {
+
+    private final RedisServer redisServer;
+    private final LettuceConnectionFactory connectionFactory;
+
+    private EmbeddedRedis(RedisServer redisServer, LettuceConnectionFactory connectionFactory) {
+        this.redisServer = redisServer;
+        this.connectionFactory = connectionFactory;
+    }
+
+    public static EmbeddedRedis start() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        RedisServer redisServer = new RedisServer(port);
+        redisServer.start();
+
+        LettuceConnectionFactory connectionFactory =
+                new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        return new EmbeddedRedis(redisServer, connectionFactory);
+    }
+
+    public LettuceConnectionFactory getConnectionFactory() {
+        return connectionFactory;
+    }
+
+    public int getPort() {
+        return connectionFactory.getPort();
+    }
+
+    public void flushAll() {
+        connectionFactory.getConnection().serverCommands().flushAll();
+    }
+
+    @Override
+    public void close() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+}
@@ -0,0 +1,162 @@
+package com.thehoodjunction.websocket;
+
+import com.thehoodjunction.config.WebSocketConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Per-session limits on broker messages waiting for a WebSocket client.
+ */
+class OutboundFlowControlTest {
+
+    private static final int MAX_PENDING = 4;
+
+    private SimpleMeterRegistry meterRegistry;
+    private WebSocketSession session;
+    private List<Message<?>> resent;
+    private MessageChannel channel;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("s1");
+        resent = new ArrayList<>();
+        channel = (message, timeout) -> resent.add(message);
+    }
+
+    @Test
+    void dropsMessagesBeyondTheLimitUntilTheSessionCatchesUp() throws Exception {
+        OutboundFlowControl flowControl = flowControl(WebSocketConfig.SlowConsumerPolicy.DROP);
+        WebSocketSession tracked = connect(flowControl);
+
+        for (int i = 0; i < MAX_PENDING; i++) {
+            assertThat(flowControl.preSend(message("/topic/public", i), channel)).isNotNull();
+        }
+        assertThat(flowControl.preSend(message("/topic/public", MAX_PENDING), channel)).isNull();
+        assertThat(meterRegistry.get("websocket.frames.dropped").tag("reason", "dropped").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("websocket.sessions.pending").gauge().value()).isEqualTo(MAX_PENDING);
+
+        tracked.sendMessage(frame());
+        assertThat(flowControl.preSend(message("/topic/public", 0), channel)).isNotNull();
+        assertThat(meterRegistry.get("websocket.fanout.latency").tag("destination", "/topic/public").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void coalescesToTheLatestMessagePerDestination() throws Exception {
+        OutboundFlowControl flowControl = flowControl(WebSocketConfig.SlowConsumerPolicy.COALESCE);
+        WebSocketSession tracked = connect(flowControl);
+
+        for (int i = 0; i < MAX_PENDING; i++) {
+            flowControl.preSend(message("/topic/public", i), channel);
+        }
+        Message<?> latestRoom = message("/topic/hood.7", 2);
+        assertThat(flowControl.preSend(message("/topic/hood.7", 1), channel)).isNull();
+        assertThat(flowControl.preSend(latestRoom, channel)).isNull();
+        assertThat(meterRegistry.get("websocket.frames.dropped").tag("reason", "coalesced").counter().count())
+                .isEqualTo(1);
+
+        tracked.sendMessage(frame());
+        assertThat(resent).isEmpty();
+        tracked.sendMessage(frame());
+        assertThat(resent).containsExactly(latestRoom);
+    }
+
+    @Test
+    void coalescesEachRoomSeparately() throws Exception {
+        OutboundFlowControl flowControl = flowControl(WebSocketConfig.SlowConsumerPolicy.COALESCE);
+        WebSocketSession tracked = connect(flowControl);
+
+        for (int i = 0; i < MAX_PENDING; i++) {
+            flowControl.preSend(message("/topic/public", i), channel);
+        }
+        Message<?> room7 = message("/topic/hood.7", 1);
+        Message<?> room8 = message("/topic/hood.8", 1);
+        assertThat(flowControl.preSend(room7, channel)).isNull();
+        assertThat(flowControl.preSend(room8, channel)).isNull();
+        assertThat(meterRegistry.find("websocket.frames.dropped").tag("reason", "coalesced").counter()).isNull();
+
+        tracked.sendMessage(frame());
+        tracked.sendMessage(frame());
+        assertThat(resent).containsExactly(room7, room8);
+    }
+
+    @Test
+    void disconnectsSlowSessions() throws Exception {
+        OutboundFlowControl flowControl = flowControl(WebSocketConfig.SlowConsumerPolicy.DISCONNECT);
+        connect(flowControl);
+
+        for (int i = 0; i <= MAX_PENDING; i++) {
+            flowControl.preSend(message("/topic/public", i), channel);
+        }
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    @Test
+    void otherFramesAndSessionsAreNotLimited() throws Exception {
+        OutboundFlowControl flowControl = flowControl(WebSocketConfig.SlowConsumerPolicy.DROP);
+        WebSocketSession tracked = connect(flowControl);
+
+        for (int i = 0; i < MAX_PENDING * 2; i++) {
+            SimpMessageHeaderAccessor heartbeat = SimpMessageHeaderAccessor.create(SimpMessageType.HEARTBEAT);
+            heartbeat.setSessionId("s1");
+            assertThat(flowControl.preSend(MessageBuilder.createMessage(new byte[0], heartbeat.getMessageHeaders()),
+                    channel)).isNotNull();
+            tracked.sendMessage(new TextMessage("\n"));
+        }
+        SimpMessageHeaderAccessor other = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        other.setSessionId("s2");
+        other.setDestination("/topic/public");
+        for (int i = 0; i < MAX_PENDING * 2; i++) {
+            assertThat(flowControl.preSend(MessageBuilder.createMessage(new byte[0], other.getMessageHeaders()),
+                    channel)).isNotNull();
+        }
+        assertThat(flowControl.getPendingCount()).isZero();
+    }
+
+    private OutboundFlowControl flowControl(WebSocketConfig.SlowConsumerPolicy policy) {
+        WebSocketConfig config = new WebSocketConfig();
+        config.getSlowConsumer().setPolicy(policy);
+        config.getSlowConsumer().setMaxPending(MAX_PENDING);
+        return new OutboundFlowControl(config, meterRegistry);
+    }
+
+    private WebSocketSession connect(OutboundFlowControl flowControl) throws Exception {
+        WebSocketHandler handler = mock(WebSocketHandler.class);
+        flowControl.decorate(handler).afterConnectionEstablished(session);
+        ArgumentCaptor<WebSocketSession> tracked = ArgumentCaptor.forClass(WebSocketSession.class);
+        verify(handler).afterConnectionEstablished(tracked.capture());
+        return tracked.getValue();
+    }
+
+    private static Message<?> message(String destination, int sequence) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId("s1");
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(("{\"sequence\":" + sequence + "}").getBytes(), accessor.getMessageHeaders());
+    }
+
+    private static TextMessage frame() {
+        return new TextMessage("MESSAGE\ndestination:/topic/public\n\n{}\u0000");
+    }
+}
@@ -0,0 +1,102 @@
+package com.thehoodjunction.websocket;
+
+import com.thehoodjunction.config.UserCacheConfig;
+import com.thehoodjunction.repository.jpa.HoodMembershipRepository;
+import com.thehoodjunction.security.UserPrincipal;
+import com.thehoodjunction.service.HoodMembershipService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Membership checks on neighborhood rooms.
+ */
+class RoomAccessInterceptorTest {
+
+    private HoodMembershipRepository repository;
+    private RoomAccessInterceptor interceptor;
+    private UsernamePasswordAuthenticationToken alice;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(HoodMembershipRepository.class);
+        when(repository.findHoodIdsByUserId(1L)).thenReturn(Set.of(42L));
+        interceptor = new RoomAccessInterceptor(
+                new HoodMembershipService(repository, new UserCacheConfig(), new SimpleMeterRegistry()));
+
+        UserPrincipal principal = UserPrincipal.of(1L, "alice", null, null, null, Set.of("USER"), 0, true, true, true,
+                true);
+        alice = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+    }
+
+    @Test
+    void membersMaySubscribeAndMembershipIsCached() {
+        Message<?> subscribe = frame(StompCommand.SUBSCRIBE, "/topic/hood.42");
+
+        assertThat(interceptor.preSend(subscribe, null)).isSameAs(subscribe);
+        interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/topic/hood.42"), null);
+        verify(repository, times(1)).findHoodIdsByUserId(1L);
+    }
+
+    @Test
+    void nonMembersAndPatternsAreRejected() {
+        assertThatThrownBy(() -> interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/topic/hood.7"), null))
+                .isInstanceOf(AccessDeniedException.class);
+        assertThatThrownBy(() -> interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/topic/hood.*"), null))
+                .isInstanceOf(AccessDeniedException.class);
+        assertThat(interceptor.isMember(null, "42")).isFalse();
+    }
+
+    @Test
+    void topicPatternsAreRejectedOutsideTheRoomPrefixToo() {
+        for (String pattern : new String[] {"/topic/hood*", "/topic/**", "/topic/#", "/topic/*.42", "/topic/hood.{id}"}) {
+            assertThatThrownBy(() -> interceptor.preSend(frame(StompCommand.SUBSCRIBE, pattern), null))
+                    .as(pattern)
+                    .isInstanceOf(AccessDeniedException.class);
+        }
+    }
+
+    @Test
+    void onlyAllowlistedDestinationsMayBeSubscribedTo() {
+        assertThat(interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/user/queue/errors"), null)).isNotNull();
+        assertThat(interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/user/queue/private"), null)).isNotNull();
+        // The relay's cross-node user destination and user registry topics
+        for (String destination : new String[] {"/topic/unresolved-user-destination", "/topic/simp-user-registry",
+                "/queue/private-user123", "/topic/public.extra"}) {
+            assertThatThrownBy(() -> interceptor.preSend(frame(StompCommand.SUBSCRIBE, destination), null))
+                    .as(destination)
+                    .isInstanceOf(AccessDeniedException.class);
+        }
+    }
+
+    @Test
+    void clientsMayOnlySendThroughApplicationDestinations() {
+        assertThat(interceptor.preSend(frame(StompCommand.SEND, "/app/chat.hood.42"), null)).isNotNull();
+        assertThat(interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/topic/public"), null)).isNotNull();
+        assertThatThrownBy(() -> interceptor.preSend(frame(StompCommand.SEND, "/topic/hood.42"), null))
+                .isInstanceOf(AccessDeniedException.class);
+    }
+
+    private Message<?> frame(StompCommand command, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setDestination(destination);
+        accessor.setUser(alice);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,103 @@
+package com.thehoodjunction.websocket;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MultiValueMap;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Destination-indexed subscriptions for the simple broker.
+ */
+class RoomSubscriptionRegistryTest {
+
+    private final RoomSubscriptionRegistry registry = new RoomSubscriptionRegistry();
+
+    @Test
+    void findsOnlyTheRoomsSubscribers() {
+        registry.registerSubscription(subscribe("s1", "sub-1", "/topic/hood.1"));
+        registry.registerSubscription(subscribe("s1", "sub-2", "/topic/hood.1"));
+        registry.registerSubscription(subscribe("s2", "sub-1", "/topic/hood.1"));
+        registry.registerSubscription(subscribe("s3", "sub-1", "/topic/hood.2"));
+
+        MultiValueMap<String, String> subscribers = registry.findSubscriptions(message("/topic/hood.1"));
+
+        assertThat(subscribers).containsOnlyKeys("s1", "s2");
+        assertThat(subscribers.get("s1")).containsExactly("sub-1", "sub-2");
+        assertThat(registry.findSubscriptions(message("/topic/hood.3"))).isEmpty();
+    }
+
+    @Test
+    void unsubscribeAndDisconnectRemoveSubscriptions() {
+        registry.registerSubscription(subscribe("s1", "sub-1", "/topic/hood.1"));
+        registry.registerSubscription(subscribe("s1", "sub-2", "/topic/hood.2"));
+        registry.registerSubscription(subscribe("s2", "sub-1", "/topic/hood.1"));
+
+        registry.unregisterSubscription(unsubscribe("s1", "sub-1"));
+        assertThat(registry.findSubscriptions(message("/topic/hood.1"))).containsOnlyKeys("s2");
+
+        registry.unregisterAllSubscriptions("s1");
+        registry.unregisterAllSubscriptions("s2");
+        assertThat(registry.findSubscriptions(message("/topic/hood.2"))).isEmpty();
+        assertThat(registry.getDestinationCount()).isZero();
+    }
+
+    @Test
+    void patternSubscriptionsStillMatch() {
+        registry.registerSubscription(subscribe("s1", "sub-1", "/topic/hood.1"));
+        registry.registerSubscription(subscribe("s2", "sub-1", "/topic/*"));
+
+        assertThat(registry.findSubscriptions(message("/topic/hood.1"))).containsOnlyKeys("s1", "s2");
+        assertThat(registry.findSubscriptions(message("/topic/public"))).containsOnlyKeys("s2");
+    }
+
+    @Test
+    void concurrentSubscribesAreNotLost() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int session = 0; session < 2000; session++) {
+            String sessionId = "s" + session;
+            String room = "/topic/hood." + (session % 10);
+            executor.execute(() -> {
+                registry.registerSubscription(subscribe(sessionId, "sub-1", room));
+                registry.registerSubscription(subscribe(sessionId, "sub-2", "/topic/public"));
+                registry.unregisterSubscription(unsubscribe(sessionId, "sub-2"));
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        for (int room = 0; room < 10; room++) {
+            assertThat(registry.findSubscriptions(message("/topic/hood." + room))).hasSize(200);
+        }
+        assertThat(registry.findSubscriptions(message("/topic/public"))).isEmpty();
+    }
+
+    private static Message<?> subscribe(String sessionId, String subscriptionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<?> unsubscribe(String sessionId, String subscriptionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.UNSUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<?> message(String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,140 @@
+package com.thehoodjunction.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.thehoodjunction.config.WebSocketConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * CBOR negotiation and per-session payload selection.
+ */
+class StompPayloadCodecTest {
+
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    private StompPayloadCodec codec;
+    private CompositeMessageConverter converter;
+
+    @BeforeEach
+    void setUp() {
+        // As configured by Spring Boot
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        codec = new StompPayloadCodec(new WebSocketConfig(), objectMapper, new SimpleMeterRegistry());
+        converter = codec.withCbor(new CompositeMessageConverter(
+                List.of(new StringMessageConverter(), new MappingJackson2MessageConverter(objectMapper))));
+    }
+
+    @Test
+    void negotiatedSessionsGetCborWithEpochMillis() throws Exception {
+        connect("s1", "application/cbor");
+        connect("s2", null);
+        Message<?> broadcast = converter.toMessage(chatMessage(), null);
+
+        Message<?> toCborSession = codec.preSend(deliver(broadcast, "s1"), null);
+        assertThat(toCborSession.getHeaders().get(MessageHeaders.CONTENT_TYPE))
+                .isEqualTo(StompPayloadCodec.APPLICATION_CBOR);
+        assertThat(toCborSession.getHeaders()).doesNotContainKey(StompPayloadCodec.CBOR_PAYLOAD_HEADER);
+        JsonNode decoded = new CBORMapper().readTree((byte[]) toCborSession.getPayload());
+        assertThat(decoded.get("content").asText()).isEqualTo("hello");
+        assertThat(decoded.get("timestamp").asLong())
+                .isEqualTo(TIMESTAMP.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+
+        Message<?> toJsonSession = codec.preSend(deliver(broadcast, "s2"), null);
+        assertThat(toJsonSession.getHeaders().get(MessageHeaders.CONTENT_TYPE))
+                .isEqualTo(MimeTypeUtils.APPLICATION_JSON);
+        assertThat(new String((byte[]) toJsonSession.getPayload())).contains("\"timestamp\":\"2026-01-01T12:00:00\"");
+    }
+
+    @Test
+    void broadcastsAreOnlyEncodedTwiceWhileSomeoneNeedsCbor() throws Exception {
+        connect("s1", "application/json");
+
+        assertThat(converter.toMessage(chatMessage(), null).getHeaders())
+                .doesNotContainKey(StompPayloadCodec.CBOR_PAYLOAD_HEADER);
+        assertThat(converter.toMessage("plain text", null).getPayload()).isEqualTo("plain text".getBytes());
+    }
+
+    @Test
+    void cborSessionsAreWrittenBinaryFramesAndCborIsRead() throws Exception {
+        Connection connection = connect("s1", "application/cbor");
+
+        connection.decorated().sendMessage(new TextMessage("MESSAGE\n\n\0".getBytes()));
+        ArgumentCaptor<BinaryMessage> sent = ArgumentCaptor.forClass(BinaryMessage.class);
+        verify(connection.raw()).sendMessage(sent.capture());
+        assertThat(sent.getValue().getPayloadLength()).isEqualTo(10);
+
+        byte[] body = new CBORMapper().writeValueAsBytes(
+                WebSocketMessage.builder().type("CHAT").content("hello").build());
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SEND);
+        accessor.setContentType(StompPayloadCodec.APPLICATION_CBOR);
+        Object read = converter.fromMessage(MessageBuilder.createMessage(body, accessor.getMessageHeaders()),
+                WebSocketMessage.class);
+        assertThat(read).isInstanceOf(WebSocketMessage.class);
+        assertThat(((WebSocketMessage) read).getContent()).isEqualTo("hello");
+    }
+
+    private record Connection(WebSocketSession raw, WebSocketSession decorated) {
+    }
+
+    private Connection connect(String sessionId, String accept) throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(sessionId);
+        WebSocketHandler handler = mock(WebSocketHandler.class);
+        codec.decorate(handler).afterConnectionEstablished(session);
+        ArgumentCaptor<WebSocketSession> decorated = ArgumentCaptor.forClass(WebSocketSession.class);
+        verify(handler).afterConnectionEstablished(decorated.capture());
+
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.setSessionId(sessionId);
+        if (accept != null) {
+            accessor.setNativeHeader(StompPayloadCodec.ACCEPT_HEADER, accept);
+        }
+        codec.inbound().preSend(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()), null);
+        return new Connection(session, decorated.getValue());
+    }
+
+    // What the simple broker hands the outbound channel for one subscriber
+    private static Message<?> deliver(Message<?> broadcast, String sessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.copyHeadersIfAbsent(broadcast.getHeaders());
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(broadcast.getPayload(), accessor.getMessageHeaders());
+    }
+
+    private static WebSocketMessage chatMessage() {
+        return WebSocketMessage.builder().type("CHAT").content("hello").sender("alice").timestamp(TIMESTAMP).build();
+    }
+}